@@ -0,0 +1,83 @@
+package com.tasktracker.benchmarks;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.service.LocalStorageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+final class BenchmarkData {
+    private static final int LOAD_BATCH = 10_000;
+
+    private BenchmarkData() {}
+
+    /**
+     * Wires the service layer the same way the application does, against a
+     * throwaway data directory. Compaction is pushed out of the way so it
+     * does not land inside a measurement.
+     */
+    static AnnotationConfigApplicationContext createContext(Path dataDir) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+            "tasktracker.storage.data-dir", dataDir.toString(),
+            "tasktracker.storage.compaction-threshold-bytes", String.valueOf(Long.MAX_VALUE))));
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.scan("com.tasktracker.service", "com.tasktracker.repository");
+        context.refresh();
+        return context;
+    }
+
+    static void populate(LocalStorageService storage, int count, long seed) {
+        Random random = new Random(seed);
+        LocalDateTime now = LocalDateTime.now();
+        List<Task> batch = new ArrayList<>(LOAD_BATCH);
+        for (int i = 0; i < count; i++) {
+            batch.add(randomTask(random, now, i));
+            if (batch.size() == LOAD_BATCH) {
+                storage.saveAll(batch);
+                batch = new ArrayList<>(LOAD_BATCH);
+            }
+        }
+        storage.saveAll(batch);
+    }
+
+    static Task randomTask(Random random, LocalDateTime now, int n) {
+        Task task = new Task("Task " + n, "Generated benchmark task number " + n + " with some description text");
+        Task.TaskStatus status = Task.TaskStatus.values()[random.nextInt(Task.TaskStatus.values().length)];
+        task.setStatus(status);
+        task.setPriority(Task.TaskPriority.values()[random.nextInt(Task.TaskPriority.values().length)]);
+        LocalDateTime createdAt = now.minusMinutes(random.nextInt(60 * 24 * 365));
+        task.setCreatedAt(createdAt);
+        task.setUpdatedAt(createdAt);
+        if (random.nextBoolean()) {
+            task.setDueDate(createdAt.plusDays(random.nextInt(30)));
+        }
+        if (status == Task.TaskStatus.COMPLETED) {
+            task.setCompletedAt(createdAt.plusHours(random.nextInt(24 * 20)));
+        }
+        return task;
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.tasktracker.benchmarks;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.storage.TaskCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int taskCount;
+
+    @Param({"json", "binary"})
+    public String format;
+
+    private TaskCodec codec;
+    private List<Task> tasks;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        codec = TaskCodec.forFormat(format);
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            Task task = BenchmarkData.randomTask(random, now, i);
+            task.setId((long) i + 1);
+            task.setVersion(1L);
+            tasks.add(task);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(tasks, out);
+        encoded = out.toByteArray();
+        System.out.printf("%n%s snapshot of %d tasks: %d bytes%n", format, taskCount, encoded.length);
+    }
+
+    @Benchmark
+    public void encode() throws IOException {
+        codec.write(tasks, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public List<Task> decode() throws IOException {
+        return codec.read(new ByteArrayInputStream(encoded));
+    }
+}
@@ -0,0 +1,88 @@
+package com.tasktracker.benchmarks;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.service.ExportImportService;
+import com.tasktracker.service.LocalStorageService;
+import com.tasktracker.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ExportImportBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int taskCount;
+
+    private Path dataDir;
+    private AnnotationConfigApplicationContext context;
+    private TaskService taskService;
+    private ExportImportService exportImportService;
+    private byte[] jsonExport;
+    private byte[] csvExport;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("tasktracker-bench");
+        context = BenchmarkData.createContext(dataDir);
+        taskService = context.getBean(TaskService.class);
+        exportImportService = context.getBean(ExportImportService.class);
+        BenchmarkData.populate(context.getBean(LocalStorageService.class), taskCount, 42);
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try (Stream<Task> tasks = taskService.streamTasks()) {
+            exportImportService.writeJson(tasks, json);
+        }
+        jsonExport = json.toByteArray();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        try (Stream<Task> tasks = taskService.streamTasks()) {
+            exportImportService.writeCsv(tasks, csv);
+        }
+        csvExport = csv.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        BenchmarkData.deleteRecursively(dataDir);
+    }
+
+    @Benchmark
+    public long exportJson() throws IOException {
+        try (Stream<Task> tasks = taskService.streamTasks()) {
+            return exportImportService.writeJson(tasks, OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public long exportCsv() throws IOException {
+        try (Stream<Task> tasks = taskService.streamTasks()) {
+            return exportImportService.writeCsv(tasks, OutputStream.nullOutputStream());
+        }
+    }
+
+    // Parsing and validation only; persisting the rows would grow the store between invocations
+    @Benchmark
+    public long importJson(Blackhole blackhole) {
+        return exportImportService.importFromJson(new ByteArrayInputStream(jsonExport), blackhole::consume);
+    }
+
+    @Benchmark
+    public long importCsv(Blackhole blackhole) {
+        return exportImportService.importFromCsv(new ByteArrayInputStream(csvExport), blackhole::consume);
+    }
+}
@@ -0,0 +1,118 @@
+package com.tasktracker.benchmarks;
+
+import com.tasktracker.model.ActivityEvent;
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+import com.tasktracker.model.TaskStatistics;
+import com.tasktracker.model.WeeklyCompletion;
+import com.tasktracker.service.LocalStorageService;
+import com.tasktracker.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int taskCount;
+
+    private Path dataDir;
+    private AnnotationConfigApplicationContext context;
+    private TaskService taskService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("tasktracker-bench");
+        context = BenchmarkData.createContext(dataDir);
+        taskService = context.getBean(TaskService.class);
+        BenchmarkData.populate(context.getBean(LocalStorageService.class), taskCount, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        BenchmarkData.deleteRecursively(dataDir);
+    }
+
+    @Benchmark
+    public long countByStatus() {
+        return taskService.countByStatus(Task.TaskStatus.PENDING);
+    }
+
+    @Benchmark
+    public TaskStatistics getStatistics() {
+        return taskService.getStatistics();
+    }
+
+    @Benchmark
+    public Map<String, Long> getTaskStatusDistribution() {
+        return taskService.getTaskStatusDistribution();
+    }
+
+    @Benchmark
+    public Map<String, Long> getTaskPriorityDistribution() {
+        return taskService.getTaskPriorityDistribution();
+    }
+
+    @Benchmark
+    public double getCompletionRate() {
+        return taskService.getCompletionRate();
+    }
+
+    @Benchmark
+    public String getAverageCompletionTime() {
+        return taskService.getAverageCompletionTime();
+    }
+
+    @Benchmark
+    public long getTasksCreatedThisMonth() {
+        return taskService.getTasksCreatedThisMonth();
+    }
+
+    @Benchmark
+    public long getTasksCompletedThisMonth() {
+        return taskService.getTasksCompletedThisMonth();
+    }
+
+    @Benchmark
+    public List<WeeklyCompletion> getWeeklyCompletion() {
+        return taskService.getWeeklyCompletion(52);
+    }
+
+    @Benchmark
+    public Map<Task.TaskPriority, Long> countOverdueByPriority() {
+        return taskService.countOverdueByPriority();
+    }
+
+    @Benchmark
+    public List<ActivityEvent> getRecentActivity() {
+        return taskService.getRecentActivity();
+    }
+
+    @Benchmark
+    public TaskPage searchTasks() {
+        TaskQuery query = new TaskQuery();
+        query.setStatus(Task.TaskStatus.PENDING);
+        return taskService.searchTasks("number 42", query);
+    }
+
+    @Benchmark
+    public TaskPage findTasksFirstPage() {
+        TaskQuery query = new TaskQuery();
+        query.setStatus(Task.TaskStatus.IN_PROGRESS);
+        return taskService.findTasks(query);
+    }
+}
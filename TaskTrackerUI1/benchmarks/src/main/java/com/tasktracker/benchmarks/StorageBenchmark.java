@@ -0,0 +1,71 @@
+package com.tasktracker.benchmarks;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.service.LocalStorageService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int taskCount;
+
+    private Path dataDir;
+    private AnnotationConfigApplicationContext context;
+    private LocalStorageService storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("tasktracker-bench");
+        context = BenchmarkData.createContext(dataDir);
+        storage = context.getBean(LocalStorageService.class);
+        BenchmarkData.populate(storage, taskCount, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        BenchmarkData.deleteRecursively(dataDir);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, taskCount + 1);
+    }
+
+    @Benchmark
+    public Task saveTask() {
+        Task task = storage.getTaskById(randomId()).orElseThrow();
+        task.setStatus(Task.TaskStatus.IN_PROGRESS);
+        return storage.saveTask(task);
+    }
+
+    @Benchmark
+    public Optional<Task> getTaskById() {
+        return storage.getTaskById(randomId());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Task> getAllTasks() {
+        return storage.getAllTasks();
+    }
+
+    @Benchmark
+    public long countByStatus() {
+        return storage.countByStatus(Task.TaskStatus.COMPLETED);
+    }
+}
@@ -0,0 +1,55 @@
+package com.tasktracker.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes through to the response while keeping a copy of the body, up to
+ * a limit past which the copy is dropped and only the response is written.
+ */
+class CapturingOutputStream extends FilterOutputStream {
+    private final int limit;
+    private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+    private boolean closed;
+
+    CapturingOutputStream(OutputStream out, int limit) {
+        super(out);
+        this.limit = limit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        if (keep(1)) {
+            copy.write(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        if (keep(len)) {
+            copy.write(b, off, len);
+        }
+    }
+
+    private boolean keep(int len) {
+        if (copy != null && copy.size() + len > limit) {
+            copy = null;
+        }
+        return copy != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        super.close();
+    }
+
+    // The whole body, or null if it was not written completely or was too large
+    byte[] captured() {
+        return closed && copy != null ? copy.toByteArray() : null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.tasktracker.controller;
+
+import com.tasktracker.model.TaskChange;
+import com.tasktracker.service.ChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-sent events for the change feed. Each event's id is its feed
+ * position, so a reconnecting EventSource resumes through Last-Event-ID;
+ * a page passes the position it was rendered at as {@code since}.
+ */
+@RestController
+public class ChangeStreamController {
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Value("${tasktracker.changes.timeout-ms:600000}")
+    private long timeoutMs;
+
+    @GetMapping(path = "/api/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                              @RequestParam(required = false) String since) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        ChangeFeed.Subscription subscription = changeFeed.subscribe(
+            lastEventId != null ? lastEventId : since, new ChangeFeed.Subscriber() {
+                @Override
+                public void send(List<TaskChange> changes) throws IOException {
+                    for (TaskChange change : changes) {
+                        emitter.send(SseEmitter.event()
+                            .id(changeFeed.position(change.getSeq()))
+                            .name("change")
+                            .data(change, MediaType.APPLICATION_JSON));
+                    }
+                }
+
+                @Override
+                public void reset(String position) throws IOException {
+                    emitter.send(SseEmitter.event()
+                        .id(position)
+                        .name("reset")
+                        .data(Map.of("position", position), MediaType.APPLICATION_JSON));
+                }
+
+                @Override
+                public void heartbeat() throws IOException {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+            });
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return emitter;
+    }
+}
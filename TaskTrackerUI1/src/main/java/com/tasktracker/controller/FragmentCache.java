@@ -0,0 +1,90 @@
+package com.tasktracker.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Rendered HTML of page fragments, kept with the validator of the data they
+ * show. A page inserts the HTML unescaped; as long as the data has not
+ * changed the fragment is neither queried nor rendered again. Variants
+ * carry page and filter parameters, so only the most recently used
+ * {@code tasktracker.cache.fragment-entries} are kept; with 0, fragments
+ * are rendered on every request.
+ */
+@Component
+class FragmentCache {
+
+    private record Entry(String version, String html) {}
+
+    private final ITemplateEngine templateEngine;
+    private final ApplicationContext applicationContext;
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+
+    FragmentCache(ITemplateEngine templateEngine,
+                  ApplicationContext applicationContext,
+                  @Value("${tasktracker.cache.fragment-entries:0}") int maxEntries) {
+        this.templateEngine = templateEngine;
+        this.applicationContext = applicationContext;
+        this.maxEntries = Math.max(0, maxEntries);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > FragmentCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the fragment selected from {@code template} as rendered for
+     * {@code variant} at the current version, rendering it from
+     * {@code model} when there is no such copy. The version is read again
+     * afterwards and the result only kept if nothing changed meanwhile.
+     */
+    String render(String variant, Supplier<String> version, String template, String selector,
+                  Supplier<Map<String, Object>> model, ServletWebRequest webRequest) {
+        String renderedFor = version.get();
+        if (maxEntries > 0) {
+            synchronized (entries) {
+                Entry entry = entries.get(variant);
+                if (entry != null && entry.version().equals(renderedFor)) {
+                    return entry.html();
+                }
+            }
+        }
+        String html = process(template, selector, model.get(), webRequest);
+        if (maxEntries > 0 && renderedFor.equals(version.get())) {
+            synchronized (entries) {
+                entries.put(variant, new Entry(renderedFor, html));
+            }
+        }
+        return html;
+    }
+
+    private String process(String template, String selector, Map<String, Object> model, ServletWebRequest webRequest) {
+        HttpServletRequest request = webRequest.getRequest();
+        WebContext context = new WebContext(
+            JakartaServletWebApplication.buildApplication(request.getServletContext())
+                .buildExchange(request, webRequest.getResponse()),
+            RequestContextUtils.getLocale(request));
+        Map<String, Object> variables = new HashMap<>(model);
+        variables.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+            new ThymeleafEvaluationContext(applicationContext, null));
+        context.setVariables(variables);
+        return templateEngine.process(template, Set.of(selector), context);
+    }
+}
@@ -0,0 +1,82 @@
+package com.tasktracker.controller;
+
+import com.tasktracker.repository.TaskOwner;
+import com.tasktracker.service.DueDateScheduler;
+import com.tasktracker.service.NotificationQueue;
+import com.tasktracker.service.SettingsService;
+import com.tasktracker.service.TaskService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * Strong ETags and Last-Modified dates for the rendered views. Every view
+ * starts from the store's data version and adds whatever else it shows, so
+ * a conditional GET can be answered with 304 before any query runs.
+ */
+@Component
+public class PageValidators {
+
+    public record Validator(String etag, long lastModified) {
+
+        public Validator with(Object part, long modifiedAt) {
+            return new Validator(etag + "-" + part, Math.max(lastModified, modifiedAt));
+        }
+
+        public Validator with(Object part) {
+            return with(part, lastModified);
+        }
+    }
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private SettingsService settingsService;
+
+    @Autowired
+    private NotificationQueue notificationQueue;
+
+    @Autowired
+    private DueDateScheduler dueDateScheduler;
+
+    // Views of the current owner's stored tasks only
+    public Validator taskData(String view) {
+        String version = Long.toString(taskService.getDataEpoch(), 36) + "." + taskService.getDataVersion();
+        return new Validator(view + "-" + TaskOwner.current() + "-" + version, taskService.getLastModified());
+    }
+
+    // Views that also show settings, notifications and the overdue list
+    public Validator dashboard(String view) {
+        return taskData(view)
+            .with("s" + settingsService.getVersion(), settingsService.getLastModified())
+            .with("n" + notificationQueue.getVersion(), notificationQueue.getLastModified())
+            .with("o" + dueDateScheduler.getFiredCount(), dueDateScheduler.getLastFiredAt());
+    }
+
+    // Views with figures relative to today
+    public Validator daily(Validator validator) {
+        LocalDate today = LocalDate.now();
+        return validator.with(today, today.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    /**
+     * Sets the validators on the response and returns true when the client's
+     * copy is current. Responses carrying a flash message are never
+     * short-circuited, since the message is not part of the version.
+     */
+    public boolean notModified(ServletWebRequest request, Validator validator) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        Map<String, ?> flash = RequestContextUtils.getInputFlashMap(request.getRequest());
+        if (flash != null && !flash.isEmpty()) {
+            return false;
+        }
+        return request.checkNotModified(validator.etag(), validator.lastModified());
+    }
+}
@@ -1,6 +1,8 @@
 package com.tasktracker.controller;
 
 import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskStatistics;
+import com.tasktracker.repository.TaskOwner;
 import com.tasktracker.service.TaskService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -8,6 +10,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 @Controller
@@ -15,13 +18,22 @@ public class ProfileController {
     
     @Autowired
     private TaskService taskService;
+    
+    @Autowired
+    private PageValidators pageValidators;
 
     @GetMapping("/profile")
-    public String showProfile(Model model) {
+    public String showProfile(ServletWebRequest webRequest, Model model) {
+        if (pageValidators.notModified(webRequest, pageValidators.taskData("profile"))) {
+            return null;
+        }
         model.addAttribute("currentPage", "profile");
-        model.addAttribute("tasksCreated", taskService.getTotalTasks());
-        model.addAttribute("tasksCompleted", taskService.countByStatus(Task.TaskStatus.COMPLETED));
-        model.addAttribute("completionRate", taskService.getCompletionRate());
+        model.addAttribute("owner", TaskOwner.current());
+        TaskStatistics stats = taskService.getStatistics();
+        model.addAttribute("tasksCreated", stats.getTotalTasks());
+        model.addAttribute("tasksCompleted", stats.countByStatus(Task.TaskStatus.COMPLETED));
+        model.addAttribute("completionRate", stats.getCompletionRate());
+        model.addAttribute("recentActivity", taskService.getRecentActivity());
         return "profile";
     }
     
@@ -0,0 +1,247 @@
+package com.tasktracker.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+import com.tasktracker.repository.PartitionLimitException;
+import com.tasktracker.repository.TaskOwner;
+import com.tasktracker.service.StaleTaskException;
+import com.tasktracker.service.TaskService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * JSON access to the task store. Lists are paged like the dashboard and can
+ * be trimmed to a few fields with {@code ?fields=}; a client that wants
+ * every task asks for {@code application/x-ndjson} and gets one task per
+ * line, streamed straight from the store.
+ */
+@RestController
+@RequestMapping("/api/tasks")
+public class TaskApiController {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    public record TaskListResponse(List<Object> tasks, int page, int size, long totalElements,
+                                   int totalPages, String nextCursor) {}
+
+    public record StatusChange(Task.TaskStatus status) {}
+
+    public record BulkStatusChange(List<Long> ids, Task.TaskStatus status) {}
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private PageValidators pageValidators;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @GetMapping
+    public TaskListResponse list(@RequestParam(defaultValue = "1") int page,
+                                 @RequestParam(defaultValue = "20") int size,
+                                 @RequestParam(required = false) String sort,
+                                 @RequestParam(required = false) Task.TaskStatus status,
+                                 @RequestParam(required = false) Task.TaskPriority priority,
+                                 @RequestParam(required = false) String cursor,
+                                 @RequestParam(required = false) String q,
+                                 @RequestParam(required = false) String fields,
+                                 ServletWebRequest webRequest) {
+        TaskProjection projection = TaskProjection.parse(fields);
+        // Weak, so that the container may still gzip the body
+        if (webRequest.checkNotModified("W/\"" + pageValidators.taskData("api").etag() + "\"")) {
+            return null;
+        }
+        TaskQuery query = new TaskQuery();
+        query.setPage(page);
+        query.setSize(size);
+        query.setSort(TaskQuery.Sort.fromParam(sort));
+        query.setStatus(status);
+        query.setPriority(priority);
+        query.setCursor(cursor);
+
+        TaskPage taskPage = q != null && !q.isBlank()
+            ? taskService.searchTasks(q, query)
+            : taskService.findTasks(query);
+        return new TaskListResponse(projection.apply(taskPage.getTasks()), taskPage.getPage(),
+            taskPage.getSize(), taskPage.getTotalElements(), taskPage.getTotalPages(),
+            taskPage.getNextCursor());
+    }
+
+    @GetMapping(produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) Task.TaskStatus status,
+                                                        @RequestParam(required = false) Task.TaskPriority priority,
+                                                        @RequestParam(required = false) String fields) {
+        TaskProjection projection = TaskProjection.parse(fields);
+        TaskQuery query = new TaskQuery();
+        query.setStatus(status);
+        query.setPriority(priority);
+
+        // The body is written on another thread, outside the request's owner scope
+        String owner = TaskOwner.current();
+        StreamingResponseBody body = (OutputStream out) -> {
+            try (TaskOwner.Scope scope = TaskOwner.use(owner);
+                 Stream<Task> tasks = taskService.streamTasks().filter(query::matches);
+                 SequenceWriter writer = objectMapper.writer()
+                     .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                     .withRootValueSeparator("\n")
+                     .writeValues(out)) {
+                Iterator<Task> it = tasks.iterator();
+                while (it.hasNext()) {
+                    writer.write(projection.apply(it.next()));
+                }
+                writer.flush();
+                out.write('\n');
+            }
+        };
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_TYPE, NDJSON)
+            .body(body);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Object> get(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        TaskProjection projection = TaskProjection.parse(fields);
+        Task task = find(id);
+        return ResponseEntity.ok()
+            .eTag(etag(task))
+            .body(projection.apply(task));
+    }
+
+    @PostMapping
+    public ResponseEntity<Task> create(@Valid @RequestBody Task task) {
+        task.setId(null);
+        task.setVersion(null);
+        Task saved = taskService.createTask(task);
+        return ResponseEntity.created(ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}").buildAndExpand(saved.getId()).toUri())
+            .eTag(etag(saved))
+            .body(saved);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Task> update(@PathVariable Long id,
+                                       @Valid @RequestBody Task task,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Task current = find(id);
+        if (ifMatch != null) {
+            if (!ifMatch.trim().equals("*") && !ifMatch.trim().equals(etag(current))) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "Task " + id + " is at version " + current.getVersion());
+            }
+            task.setVersion(current.getVersion());
+        }
+        Task saved = taskService.updateTask(id, task);
+        return ResponseEntity.ok().eTag(etag(saved)).body(saved);
+    }
+
+    @PutMapping("/{id}/status")
+    public ResponseEntity<Task> updateStatus(@PathVariable Long id, @RequestBody StatusChange change) {
+        if (change.status() == null) {
+            throw new IllegalArgumentException("status is required");
+        }
+        find(id);
+        Task saved = taskService.updateTaskStatus(id, change.status());
+        return ResponseEntity.ok().eTag(etag(saved)).body(saved);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
+        find(id);
+        taskService.deleteTask(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<Task>> createAll(@RequestBody List<Task> tasks) {
+        for (Task task : tasks) {
+            if (task.getTitle() == null || task.getTitle().isBlank()) {
+                throw new IllegalArgumentException("Title is required");
+            }
+            if (task.getStatus() == null || task.getPriority() == null) {
+                throw new IllegalArgumentException("Status and priority are required");
+            }
+            task.setId(null);
+            task.setVersion(null);
+        }
+        taskService.saveAll(tasks);
+        return ResponseEntity.status(HttpStatus.CREATED).body(tasks);
+    }
+
+    @PatchMapping("/status")
+    public List<Task> updateStatusBulk(@RequestBody BulkStatusChange change) {
+        if (change.ids() == null || change.status() == null) {
+            throw new IllegalArgumentException("ids and status are required");
+        }
+        return taskService.updateStatusBulk(change.ids(), change.status());
+    }
+
+    @DeleteMapping
+    public Map<String, Integer> deleteAll(@RequestParam List<Long> ids) {
+        return Map.of("deleted", taskService.deleteByIds(ids));
+    }
+
+    private Task find(Long id) {
+        return taskService.getTaskById(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Task " + id + " not found"));
+    }
+
+    private static String etag(Task task) {
+        return "\"" + task.getVersion() + "\"";
+    }
+
+    @ExceptionHandler(StaleTaskException.class)
+    public ResponseEntity<Map<String, Object>> handleStale(StaleTaskException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+            "error", e.getMessage(),
+            "expectedVersion", e.getExpectedVersion(),
+            "actualVersion", e.getActualVersion()));
+    }
+
+    @ExceptionHandler(PartitionLimitException.class)
+    public ResponseEntity<Map<String, Object>> handlePartitionLimit(PartitionLimitException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, HttpMessageNotReadableException.class,
+        MethodArgumentTypeMismatchException.class})
+    public ResponseEntity<Map<String, Object>> handleBadRequest(Exception e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalid(MethodArgumentNotValidException e) {
+        Map<String, String> fieldErrors = new LinkedHashMap<>();
+        e.getBindingResult().getFieldErrors()
+            .forEach(error -> fieldErrors.putIfAbsent(error.getField(), error.getDefaultMessage()));
+        return ResponseEntity.badRequest().body(Map.of("error", "Validation failed", "fields", fieldErrors));
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, Object>> handleStatus(ResponseStatusException e) {
+        return ResponseEntity.status(e.getStatusCode())
+            .body(Map.of("error", e.getReason() != null ? e.getReason() : e.getStatusCode().toString()));
+    }
+}
@@ -1,10 +1,22 @@
 package com.tasktracker.controller;
 
 import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+import com.tasktracker.model.TaskStatistics;
+import com.tasktracker.model.UserSettings;
+import com.tasktracker.model.WeeklyCompletion;
+import com.tasktracker.repository.TaskOwner;
+import com.tasktracker.service.ChangeFeed;
 import com.tasktracker.service.ExportImportService;
+import com.tasktracker.service.NotificationQueue;
+import com.tasktracker.service.SettingsService;
+import com.tasktracker.service.StaleTaskException;
 import com.tasktracker.service.TaskService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -12,14 +24,44 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @Controller
 public class TaskController {
+    private static final int OVERDUE_LIMIT = 5;
+    private static final int TREND_WEEKS = 52;
+    private static final DateTimeFormatter WEEK_LABEL = DateTimeFormatter.ofPattern("MMM d");
+    
+    private record AnalyticsData(TaskStatistics stats, long overdue, long createdThisWeek, long completedThisWeek,
+                                 List<WeeklyCompletion> weekly, Map<Task.TaskPriority, Long> overdueByPriority) {}
+    
+    @FunctionalInterface
+    private interface ExportWriter {
+        void write(Stream<Task> tasks, OutputStream out) throws IOException;
+    }
+    
+    // Figures are small; export bodies can be up to export-max-bytes each
+    private final VersionedCache<AnalyticsData> analyticsCache = new VersionedCache<>(256);
+    private final VersionedCache<byte[]> exportCache = new VersionedCache<>(8);
+    
+    @Value("${tasktracker.cache.export-max-bytes:16777216}")
+    private int exportCacheMaxBytes;
     
     @Autowired
     private TaskService taskService;
@@ -27,23 +69,112 @@ public class TaskController {
     @Autowired
     private ExportImportService exportImportService;
     
+    @Autowired
+    private SettingsService settingsService;
+    
+    @Autowired
+    private NotificationQueue notificationQueue;
+    
+    @Autowired
+    private PageValidators pageValidators;
+    
+    @Autowired
+    private FragmentCache fragmentCache;
+    
+    @Autowired
+    private ChangeFeed changeFeed;
+    
     @GetMapping("/")
     public String welcome() {
         return "welcome";
     }
     
     @GetMapping("/home")
-    public String home(Model model) {
-        List<Task> tasks = taskService.getRecentTasks();
-        model.addAttribute("tasks", tasks);
-        model.addAttribute("totalTasks", taskService.getTotalTasks());
-        model.addAttribute("completedTasks", taskService.countByStatus(Task.TaskStatus.COMPLETED));
-        model.addAttribute("inProgressTasks", taskService.countByStatus(Task.TaskStatus.IN_PROGRESS));
-        model.addAttribute("pendingTasks", taskService.countByStatus(Task.TaskStatus.PENDING));
+    public String home(@RequestParam(defaultValue = "1") int page,
+                       @RequestParam(required = false) Integer size,
+                       @RequestParam(required = false) String sort,
+                       @RequestParam(required = false) Task.TaskStatus status,
+                       @RequestParam(required = false) Task.TaskPriority priority,
+                       @RequestParam(required = false) String cursor,
+                       ServletWebRequest webRequest,
+                       Model model) {
+        // Taken before anything is read, so live updates resume from no later than what the page shows
+        String changePosition = changeFeed.position();
+        if (pageValidators.notModified(webRequest, pageValidators.dashboard("home"))) {
+            return null;
+        }
+        UserSettings settings = settingsService.getSettings();
+        TaskQuery query = new TaskQuery();
+        query.setPage(page);
+        query.setSize(size != null ? size : settings.getTasksPerPage());
+        query.setSort(TaskQuery.Sort.fromParam(sort != null ? sort : settings.getSortBy()));
+        query.setStatus(status);
+        query.setPriority(priority);
+        query.setCursor(cursor);
+        
+        boolean compactView = "compact".equals(settings.getDefaultView());
+        
+        // Both fragments depend on nothing but the tasks and the parameters in their variant
+        String owner = TaskOwner.current();
+        model.addAttribute("statCards", fragmentCache.render(owner + "/stats",
+            () -> pageValidators.taskData("stats").etag(), "fragments/stats", "statCards", () -> {
+                TaskStatistics stats = taskService.getStatistics();
+                return Map.of(
+                    "totalTasks", stats.getTotalTasks(),
+                    "completedTasks", stats.countByStatus(Task.TaskStatus.COMPLETED),
+                    "inProgressTasks", stats.countByStatus(Task.TaskStatus.IN_PROGRESS),
+                    "pendingTasks", stats.countByStatus(Task.TaskStatus.PENDING));
+            }, webRequest));
+        String tableVariant = owner + "/table?page=" + query.getPage() + "&size=" + query.getSize()
+            + "&sort=" + query.getSort() + "&status=" + query.getStatus() + "&priority=" + query.getPriority()
+            + "&cursor=" + query.getCursor() + "&compact=" + compactView;
+        model.addAttribute("taskTable", fragmentCache.render(tableVariant,
+            () -> pageValidators.taskData("table").etag(), "fragments/task-list", "taskTable", () -> {
+                TaskPage taskPage = taskService.findTasks(query);
+                return Map.of(
+                    "tasks", taskPage.getTasks(),
+                    "taskPage", taskPage,
+                    "query", query,
+                    "compactView", compactView);
+            }, webRequest));
+        model.addAttribute("query", query);
+        model.addAttribute("sorts", TaskQuery.Sort.values());
+        model.addAttribute("statuses", Task.TaskStatus.values());
+        model.addAttribute("priorities", Task.TaskPriority.values());
+        model.addAttribute("compactView", compactView);
+        model.addAttribute("overdueTasks", taskService.getOverdueTasks(OVERDUE_LIMIT));
+        model.addAttribute("overdueCount", taskService.countOverdue());
+        model.addAttribute("notifications", notificationQueue.pending());
+        model.addAttribute("changePosition", changePosition);
         model.addAttribute("currentPage", "home");
         return "home";
     }
     
+    @GetMapping("/search")
+    public String search(@RequestParam(required = false) String q,
+                         @RequestParam(defaultValue = "1") int page,
+                         @RequestParam(required = false) Integer size,
+                         @RequestParam(required = false) Task.TaskStatus status,
+                         @RequestParam(required = false) Task.TaskPriority priority,
+                         Model model) {
+        TaskQuery query = new TaskQuery();
+        query.setPage(page);
+        query.setSize(size != null ? size : settingsService.getSettings().getTasksPerPage());
+        query.setStatus(status);
+        query.setPriority(priority);
+        
+        TaskPage taskPage = taskService.searchTasks(q, query);
+        model.addAttribute("q", q);
+        model.addAttribute("tasks", taskPage.getTasks());
+        model.addAttribute("taskPage", taskPage);
+        model.addAttribute("query", query);
+        model.addAttribute("statuses", Task.TaskStatus.values());
+        model.addAttribute("priorities", Task.TaskPriority.values());
+        model.addAttribute("compactView", "compact".equals(settingsService.getSettings().getDefaultView()));
+        model.addAttribute("currentPage", "search");
+        return "search";
+    }
+    
     @GetMapping("/task/new")
     public String newTaskForm(Model model) {
         model.addAttribute("task", new Task());
@@ -77,7 +208,13 @@ public class TaskController {
             taskService.createTask(task);
             redirectAttributes.addFlashAttribute("message", "Task created successfully!");
         } else {
-            taskService.updateTask(task.getId(), task);
+            try {
+                taskService.updateTask(task.getId(), task);
+            } catch (StaleTaskException e) {
+                redirectAttributes.addFlashAttribute("error",
+                    "This task was changed by someone else. Review the latest version and try again.");
+                return "redirect:/task/edit/" + task.getId();
+            }
             redirectAttributes.addFlashAttribute("message", "Task updated successfully!");
         }
         
@@ -105,24 +242,100 @@ public class TaskController {
         return "redirect:/home";
     }
 
+    @PostMapping("/task/bulk")
+    public String bulkAction(@RequestParam(required = false) List<Long> ids,
+                             @RequestParam String action,
+                             RedirectAttributes attributes) {
+        if (ids == null || ids.isEmpty()) {
+            attributes.addFlashAttribute("error", "Select at least one task first");
+            return "redirect:/home";
+        }
+        switch (action) {
+            case "complete" -> {
+                int count = taskService.updateStatusBulk(ids, Task.TaskStatus.COMPLETED).size();
+                attributes.addFlashAttribute("message", count + " tasks marked as completed");
+            }
+            case "start" -> {
+                int count = taskService.updateStatusBulk(ids, Task.TaskStatus.IN_PROGRESS).size();
+                attributes.addFlashAttribute("message", count + " tasks marked as in progress");
+            }
+            case "delete" -> {
+                int count = taskService.deleteByIds(ids);
+                attributes.addFlashAttribute("message", count + " tasks deleted");
+            }
+            default -> attributes.addFlashAttribute("error", "Unknown bulk action: " + action);
+        }
+        return "redirect:/home";
+    }
+
     @GetMapping("/analytics")
-    public String analytics(Model model) {
-        Map<String, Long> statusData = taskService.getTaskStatusDistribution();
-        Map<String, Long> priorityData = taskService.getTaskPriorityDistribution();
+    public CompletableFuture<String> analytics(ServletWebRequest webRequest, Model model) {
+        String changePosition = changeFeed.position();
+        PageValidators.Validator validator = pageValidators.daily(pageValidators.dashboard("analytics"));
+        if (pageValidators.notModified(webRequest, validator)) {
+            return null;
+        }
+        AnalyticsData cached = analyticsCache.get(TaskOwner.current(), validator.etag());
+        CompletableFuture<AnalyticsData> data = cached != null
+            ? CompletableFuture.completedFuture(cached)
+            : loadAnalytics(validator.etag());
         
-        model.addAttribute("statusData", statusData);
-        model.addAttribute("priorityData", priorityData);
-        model.addAttribute("completionRate", taskService.getCompletionRate());
-        model.addAttribute("averageCompletionTime", taskService.getAverageCompletionTime());
-        model.addAttribute("tasksThisMonth", taskService.getTasksCreatedThisMonth());
-        model.addAttribute("completedThisMonth", taskService.getTasksCompletedThisMonth());
-        model.addAttribute("currentPage", "analytics");
+        return data.thenApply(analytics -> {
+            TaskStatistics stats = analytics.stats();
+            model.addAttribute("statusData", stats.getStatusDistribution());
+            model.addAttribute("priorityData", stats.getPriorityDistribution());
+            model.addAttribute("completionRate", stats.getCompletionRate());
+            model.addAttribute("averageCompletionTime", stats.getAverageCompletionTime());
+            model.addAttribute("tasksThisMonth", stats.getCreatedThisMonth());
+            model.addAttribute("completedThisMonth", stats.getCompletedThisMonth());
+            model.addAttribute("overdueTasks", analytics.overdue());
+            model.addAttribute("tasksThisWeek", analytics.createdThisWeek());
+            model.addAttribute("completedThisWeek", analytics.completedThisWeek());
+            model.addAttribute("trendWeeks", TREND_WEEKS);
+            model.addAttribute("weekLabels", analytics.weekly().stream()
+                .map(week -> week.getWeekStart().format(WEEK_LABEL)).toList());
+            model.addAttribute("weeklyCreated", analytics.weekly().stream().map(WeeklyCompletion::getCreated).toList());
+            model.addAttribute("weeklyCompleted", analytics.weekly().stream().map(WeeklyCompletion::getCompleted).toList());
+            model.addAttribute("weeklyRate", analytics.weekly().stream().map(WeeklyCompletion::getCompletionRate).toList());
+            Map<String, Long> overdueByPriority = new LinkedHashMap<>();
+            analytics.overdueByPriority().forEach((priority, count) -> overdueByPriority.put(priority.toString(), count));
+            model.addAttribute("overdueByPriority", overdueByPriority);
+            model.addAttribute("changePosition", changePosition);
+            model.addAttribute("currentPage", "analytics");
+            return "analytics";
+        });
+    }
+    
+    // The queries are independent, so they run concurrently and the request thread is released meanwhile
+    private CompletableFuture<AnalyticsData> loadAnalytics(String etag) {
+        String owner = TaskOwner.current();
+        LocalDateTime weekAgo = LocalDate.now().minusDays(7).atStartOfDay();
+        CompletableFuture<TaskStatistics> statistics = taskService.getStatisticsAsync();
+        CompletableFuture<Long> overdue = taskService.countOverdueAsync();
+        CompletableFuture<Long> createdThisWeek = taskService.countCreatedSinceAsync(weekAgo);
+        CompletableFuture<Long> completedThisWeek = taskService.countCompletedSinceAsync(weekAgo);
+        CompletableFuture<List<WeeklyCompletion>> weekly = taskService.getWeeklyCompletionAsync(TREND_WEEKS);
+        CompletableFuture<Map<Task.TaskPriority, Long>> overdueByPriority = taskService.countOverdueByPriorityAsync();
         
-        return "analytics";
+        CompletableFuture<Void> all = CompletableFuture.allOf(statistics, overdue, createdThisWeek, completedThisWeek,
+            weekly, overdueByPriority);
+        return all.thenApply(ignored -> {
+            AnalyticsData data = new AnalyticsData(statistics.join(), overdue.join(),
+                createdThisWeek.join(), completedThisWeek.join(), weekly.join(), overdueByPriority.join());
+            // Only cache figures that are known to belong to this version; this may run on a storage thread
+            try (TaskOwner.Scope scope = TaskOwner.use(owner)) {
+                if (etag.equals(pageValidators.daily(pageValidators.dashboard("analytics")).etag())) {
+                    analyticsCache.put(owner, etag, data);
+                }
+            }
+            return data;
+        });
     }
 
     @GetMapping("/settings")
     public String settings(Model model) {
+        model.addAttribute("settings", settingsService.getSettings());
+        model.addAttribute("sorts", TaskQuery.Sort.values());
         model.addAttribute("currentPage", "settings");
         return "settings";
     }
@@ -142,7 +355,12 @@ public class TaskController {
             @RequestParam int tasksPerPage,
             @RequestParam String sortBy,
             RedirectAttributes redirectAttributes) {
-        // TODO: Implement settings storage
+        if (tasksPerPage < 1 || tasksPerPage > TaskQuery.MAX_PAGE_SIZE) {
+            redirectAttributes.addFlashAttribute("error",
+                "Tasks per page must be between 1 and " + TaskQuery.MAX_PAGE_SIZE);
+            return "redirect:/settings";
+        }
+        settingsService.updateDisplaySettings(defaultView, tasksPerPage, TaskQuery.Sort.fromParam(sortBy).name());
         redirectAttributes.addFlashAttribute("message", "Display settings saved successfully!");
         return "redirect:/settings";
     }
@@ -153,11 +371,20 @@ public class TaskController {
             @RequestParam(required = false) boolean dueDateReminders,
             @RequestParam(required = false) boolean statusUpdates,
             RedirectAttributes redirectAttributes) {
-        // TODO: Implement settings storage
+        settingsService.updateNotificationSettings(emailNotifications, dueDateReminders, statusUpdates);
+        if (!dueDateReminders) {
+            notificationQueue.clearAll();
+        }
         redirectAttributes.addFlashAttribute("message", "Notification settings saved successfully!");
         return "redirect:/settings";
     }
 
+    @PostMapping("/notifications/dismiss")
+    public String dismissNotifications() {
+        notificationQueue.clear();
+        return "redirect:/home";
+    }
+
     @GetMapping("/about")
     public String about(Model model) {
         model.addAttribute("currentPage", "about");
@@ -165,33 +392,74 @@ public class TaskController {
     }
     
     @GetMapping("/export/json")
-    public ResponseEntity<byte[]> exportJson() {
-        try {
-            List<Task> tasks = taskService.getAllTasks();
-            String json = exportImportService.exportToJson(tasks);
-            
-            return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=tasks.json")
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(json.getBytes("UTF-8"));
-        } catch (Exception e) {
-            return ResponseEntity.status(500).build();
-        }
+    public ResponseEntity<StreamingResponseBody> exportJson(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            ServletWebRequest webRequest) {
+        return export("json", "tasks.json", MediaType.APPLICATION_JSON, acceptsGzip(acceptEncoding), webRequest,
+            exportImportService::writeJson);
     }
     
     @GetMapping("/export/csv")
-    public ResponseEntity<byte[]> exportCsv() {
-        try {
-            List<Task> tasks = taskService.getAllTasks();
-            String csv = exportImportService.exportToCsv(tasks);
-            
-            return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=tasks.csv")
-                .contentType(MediaType.parseMediaType("text/csv"))
-                .body(csv.getBytes("UTF-8"));
-        } catch (Exception e) {
-            return ResponseEntity.status(500).build();
+    public ResponseEntity<StreamingResponseBody> exportCsv(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            ServletWebRequest webRequest) {
+        return export("csv", "tasks.csv", MediaType.parseMediaType("text/csv"), acceptsGzip(acceptEncoding), webRequest,
+            exportImportService::writeCsv);
+    }
+    
+    /**
+     * Streams an export, or replays the copy kept from the last export of
+     * the same version. Bodies over the cache limit are streamed every time.
+     */
+    private ResponseEntity<StreamingResponseBody> export(String format, String filename, MediaType contentType,
+                                                         boolean gzip, ServletWebRequest webRequest, ExportWriter writer) {
+        String variant = format + (gzip ? "-gzip" : "");
+        PageValidators.Validator validator = pageValidators.taskData("export-" + variant);
+        if (pageValidators.notModified(webRequest, validator)) {
+            return null;
+        }
+        String owner = TaskOwner.current();
+        String cacheKey = owner + "/" + variant;
+        byte[] cached = exportCache.get(cacheKey, validator.etag());
+        if (cached != null) {
+            return exportResponse(filename, contentType, gzip)
+                .contentLength(cached.length)
+                .body(out -> out.write(cached));
         }
+        // The body is written on another thread, outside the request's owner scope
+        StreamingResponseBody body = out -> {
+            CapturingOutputStream capture = new CapturingOutputStream(out, exportCacheMaxBytes);
+            try (TaskOwner.Scope scope = TaskOwner.use(owner)) {
+                try (Stream<Task> tasks = taskService.streamTasks()) {
+                    writer.write(tasks, encode(capture, gzip));
+                }
+                // Tasks changed while streaming means the body does not match this version
+                byte[] written = capture.captured();
+                if (written != null && validator.etag().equals(pageValidators.taskData("export-" + variant).etag())) {
+                    exportCache.put(cacheKey, validator.etag(), written);
+                }
+            }
+        };
+        return exportResponse(filename, contentType, gzip).body(body);
+    }
+    
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+    
+    private static OutputStream encode(OutputStream out, boolean gzip) throws IOException {
+        return gzip ? new GZIPOutputStream(out, 8192) : out;
+    }
+    
+    private static ResponseEntity.BodyBuilder exportResponse(String filename, MediaType contentType, boolean gzip) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .contentType(contentType);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder;
     }
     
     @PostMapping("/import")
@@ -205,20 +473,19 @@ public class TaskController {
             }
             
             filename = filename.toLowerCase();
-            List<Task> tasks;
+            long imported;
             
             if (filename.endsWith(".json")) {
-                tasks = exportImportService.importFromJson(file);
+                imported = exportImportService.importFromJson(file, taskService::saveAll);
             } else if (filename.endsWith(".csv")) {
-                tasks = exportImportService.importFromCsv(file);
+                imported = exportImportService.importFromCsv(file, taskService::saveAll);
             } else {
                 redirectAttributes.addFlashAttribute("error", "Invalid file format. Please use .json or .csv files.");
                 return "redirect:/home";
             }
             
-            taskService.saveAll(tasks);
             redirectAttributes.addFlashAttribute("message", 
-                tasks.size() + " tasks imported successfully!");
+                imported + " tasks imported successfully!");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", 
                 "Error importing tasks: " + e.getMessage());
@@ -227,6 +494,26 @@ public class TaskController {
         return "redirect:/home";
     }
     
+    @PostMapping("/import/stream")
+    public ResponseEntity<Map<String, Object>> importTasksStream(@RequestParam String format,
+                                                                 HttpServletRequest request) {
+        try (InputStream in = request.getInputStream()) {
+            long imported;
+            if ("json".equalsIgnoreCase(format)) {
+                imported = exportImportService.importFromJson(in, taskService::saveAll);
+            } else if ("csv".equalsIgnoreCase(format)) {
+                imported = exportImportService.importFromCsv(in, taskService::saveAll);
+            } else {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Invalid format. Please use json or csv."));
+            }
+            return ResponseEntity.ok(Map.of("imported", imported));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Error importing tasks: " + e.getMessage()));
+        }
+    }
+    
     @PostMapping("/task/clear")
     public ResponseEntity<Void> clearAllTasks() {
         try {
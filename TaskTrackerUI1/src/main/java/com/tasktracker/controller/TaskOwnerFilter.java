@@ -0,0 +1,86 @@
+package com.tasktracker.controller;
+
+import com.tasktracker.repository.TaskOwner;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Puts each request in its task owner's scope. API clients name the owner
+ * in the {@code X-Task-Owner} header; browsers pick one with {@code ?owner=}
+ * on any page, which is remembered in a cookie. Requests naming no owner
+ * work on the default owner's tasks. This identifies owners, it does not
+ * authenticate them: a deployment with real users sets the header in the
+ * proxy in front of the application. With
+ * {@code tasktracker.owners.allowed} set, only the listed owners (and the
+ * default one) are accepted.
+ */
+@Component
+public class TaskOwnerFilter extends OncePerRequestFilter {
+    static final String OWNER_HEADER = "X-Task-Owner";
+    static final String OWNER_PARAM = "owner";
+    static final String OWNER_COOKIE = "task_owner";
+
+    private final Set<String> allowed;
+
+    public TaskOwnerFilter(@Value("${tasktracker.owners.allowed:}") List<String> allowed) {
+        this.allowed = allowed.stream()
+            .map(TaskOwner::normalize)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String requested = request.getHeader(OWNER_HEADER);
+        boolean selected = false;
+        if (requested == null && HttpMethod.GET.matches(request.getMethod())) {
+            requested = request.getParameter(OWNER_PARAM);
+            selected = requested != null;
+        }
+        if (requested == null) {
+            Cookie cookie = WebUtils.getCookie(request, OWNER_COOKIE);
+            requested = cookie != null ? cookie.getValue() : TaskOwner.DEFAULT;
+        }
+        String owner = TaskOwner.normalize(requested);
+        if (owner == null) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid task owner");
+            return;
+        }
+        if (!allowed.isEmpty() && !allowed.contains(owner) && !owner.equals(TaskOwner.DEFAULT)) {
+            response.sendError(HttpStatus.FORBIDDEN.value(), "Unknown task owner");
+            return;
+        }
+        if (selected) {
+            Cookie cookie = new Cookie(OWNER_COOKIE, owner);
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setAttribute("SameSite", "Lax");
+            response.addCookie(cookie);
+        }
+        try (TaskOwner.Scope ignored = TaskOwner.use(owner)) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    // Async dispatches render results computed for the same owner
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
@@ -0,0 +1,67 @@
+package com.tasktracker.controller;
+
+import com.tasktracker.model.Task;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The subset of task fields an API client asked for with {@code ?fields=}.
+ * Without a field list the task itself is serialized.
+ */
+class TaskProjection {
+
+    private static final Map<String, Function<Task, Object>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("id", Task::getId);
+        FIELDS.put("title", Task::getTitle);
+        FIELDS.put("description", Task::getDescription);
+        FIELDS.put("status", Task::getStatus);
+        FIELDS.put("priority", Task::getPriority);
+        FIELDS.put("createdAt", Task::getCreatedAt);
+        FIELDS.put("updatedAt", Task::getUpdatedAt);
+        FIELDS.put("dueDate", Task::getDueDate);
+        FIELDS.put("completedAt", Task::getCompletedAt);
+        FIELDS.put("version", Task::getVersion);
+    }
+
+    private static final TaskProjection ALL = new TaskProjection(null);
+
+    private final Map<String, Function<Task, Object>> selected;
+
+    private TaskProjection(Map<String, Function<Task, Object>> selected) {
+        this.selected = selected;
+    }
+
+    static TaskProjection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Map<String, Function<Task, Object>> selected = new LinkedHashMap<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            Function<Task, Object> getter = FIELDS.get(name);
+            if (getter == null) {
+                throw new IllegalArgumentException("Unknown field '" + name + "', expected one of " + FIELDS.keySet());
+            }
+            selected.put(name, getter);
+        }
+        return new TaskProjection(selected);
+    }
+
+    Object apply(Task task) {
+        if (selected == null) {
+            return task;
+        }
+        Map<String, Object> view = new LinkedHashMap<>(selected.size() * 2);
+        selected.forEach((name, getter) -> view.put(name, getter.apply(task)));
+        return view;
+    }
+
+    List<Object> apply(List<Task> tasks) {
+        return tasks.stream().map(this::apply).toList();
+    }
+}
@@ -0,0 +1,36 @@
+package com.tasktracker.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the latest rendering of each variant along with the ETag it was
+ * rendered for. A lookup with any other ETag misses, so an entry goes
+ * stale as soon as the data behind it changes and is replaced on the
+ * next render. Variants include the owner, so only the most recently used
+ * {@code maxEntries} are kept.
+ */
+class VersionedCache<V> {
+
+    private record Entry<V>(String etag, V value) {}
+
+    private final Map<String, Entry<V>> entries;
+
+    VersionedCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized V get(String variant, String etag) {
+        Entry<V> entry = entries.get(variant);
+        return entry != null && entry.etag().equals(etag) ? entry.value() : null;
+    }
+
+    synchronized void put(String variant, String etag, V value) {
+        entries.put(variant, new Entry<>(etag, value));
+    }
+}
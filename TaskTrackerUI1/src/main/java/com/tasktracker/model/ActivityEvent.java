@@ -0,0 +1,97 @@
+package com.tasktracker.model;
+
+import java.time.LocalDateTime;
+
+public class ActivityEvent {
+
+    public enum Type {
+        CREATED("Created task"),
+        STARTED("Started task"),
+        COMPLETED("Completed task"),
+        REOPENED("Reopened task"),
+        UPDATED("Updated task"),
+        DELETED("Deleted task"),
+        CLEARED("Cleared all tasks");
+
+        private final String label;
+
+        Type(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final Type type;
+    private final Long taskId;
+    private final String title;
+    private final Task.TaskStatus fromStatus;
+    private final Task.TaskStatus toStatus;
+    private final LocalDateTime date;
+
+    public ActivityEvent(Type type, Long taskId, String title,
+                         Task.TaskStatus fromStatus, Task.TaskStatus toStatus, LocalDateTime date) {
+        this.type = type;
+        this.taskId = taskId;
+        this.title = title;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.date = date;
+    }
+
+    public static ActivityEvent created(Task task, LocalDateTime date) {
+        return new ActivityEvent(Type.CREATED, task.getId(), task.getTitle(), null, task.getStatus(), date);
+    }
+
+    public static ActivityEvent updated(Task task, LocalDateTime date) {
+        return new ActivityEvent(Type.UPDATED, task.getId(), task.getTitle(), task.getStatus(), task.getStatus(), date);
+    }
+
+    public static ActivityEvent deleted(Task task, LocalDateTime date) {
+        return new ActivityEvent(Type.DELETED, task.getId(), task.getTitle(), task.getStatus(), null, date);
+    }
+
+    public static ActivityEvent cleared(LocalDateTime date) {
+        return new ActivityEvent(Type.CLEARED, null, null, null, null, date);
+    }
+
+    // A status change is reported by where the task ended up
+    public static ActivityEvent transition(Task task, Task.TaskStatus from, LocalDateTime date) {
+        Type type = switch (task.getStatus()) {
+            case PENDING -> Type.REOPENED;
+            case IN_PROGRESS -> Type.STARTED;
+            case COMPLETED -> Type.COMPLETED;
+        };
+        return new ActivityEvent(type, task.getId(), task.getTitle(), from, task.getStatus(), date);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Task.TaskStatus getFromStatus() {
+        return fromStatus;
+    }
+
+    public Task.TaskStatus getToStatus() {
+        return toStatus;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public String getDescription() {
+        return title != null ? type.getLabel() + ": " + title : type.getLabel();
+    }
+}
@@ -0,0 +1,65 @@
+package com.tasktracker.model;
+
+import java.time.LocalDateTime;
+
+public class DueDateEvent {
+
+    public enum Type {
+        REMINDER("Due soon"),
+        OVERDUE("Overdue");
+
+        private final String label;
+
+        Type(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final Type type;
+    private final String owner;
+    private final Long taskId;
+    private final String title;
+    private final LocalDateTime dueDate;
+    private final LocalDateTime firedAt;
+
+    public DueDateEvent(Type type, String owner, Long taskId, String title, LocalDateTime dueDate, LocalDateTime firedAt) {
+        this.type = type;
+        this.owner = owner;
+        this.taskId = taskId;
+        this.title = title;
+        this.dueDate = dueDate;
+        this.firedAt = firedAt;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDateTime getDueDate() {
+        return dueDate;
+    }
+
+    public LocalDateTime getFiredAt() {
+        return firedAt;
+    }
+
+    public String getDescription() {
+        return type.getLabel() + ": " + title;
+    }
+}
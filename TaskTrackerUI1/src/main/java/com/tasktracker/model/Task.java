@@ -1,6 +1,7 @@
 package com.tasktracker.model;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
 public class Task {
@@ -9,12 +10,15 @@ public class Task {
     @NotBlank(message = "Title is required")
     private String title;
     private String description;
+    @NotNull(message = "Status is required")
     private TaskStatus status = TaskStatus.PENDING;
+    @NotNull(message = "Priority is required")
     private TaskPriority priority = TaskPriority.MEDIUM;
-    private LocalDateTime createdAt = LocalDateTime.now();
-    private LocalDateTime updatedAt = LocalDateTime.now();
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
     private LocalDateTime dueDate;
     private LocalDateTime completedAt;
+    private Long version;
     
     public enum TaskStatus {
         PENDING, IN_PROGRESS, COMPLETED
@@ -61,7 +65,6 @@ public class Task {
     
     public void setStatus(TaskStatus status) {
         this.status = status;
-        this.updatedAt = LocalDateTime.now();
     }
     
     public TaskPriority getPriority() {
@@ -103,4 +106,12 @@ public class Task {
     public void setCompletedAt(LocalDateTime completedAt) {
         this.completedAt = completedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
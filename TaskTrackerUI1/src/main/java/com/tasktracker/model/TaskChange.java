@@ -0,0 +1,88 @@
+package com.tasktracker.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * One mutation as published on the change feed. Besides the changed task's
+ * fields it carries the status and priority counts right after the change,
+ * so a client can replace its totals instead of adjusting them and seeing
+ * the same change twice does no harm.
+ */
+public class TaskChange {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, CLEARED
+    }
+
+    private final long seq;
+    private final Type type;
+    private final Long taskId;
+    private final String title;
+    private final Task.TaskStatus status;
+    private final Task.TaskStatus previousStatus;
+    private final Task.TaskPriority priority;
+    private final Long version;
+    private final LocalDateTime date;
+    private final Map<Task.TaskStatus, Long> statusCounts;
+    private final Map<Task.TaskPriority, Long> priorityCounts;
+
+    public TaskChange(long seq, Type type, Task task, Task.TaskStatus previousStatus, LocalDateTime date,
+                      Map<Task.TaskStatus, Long> statusCounts, Map<Task.TaskPriority, Long> priorityCounts) {
+        this.seq = seq;
+        this.type = type;
+        this.taskId = task != null ? task.getId() : null;
+        this.title = task != null ? task.getTitle() : null;
+        this.status = task != null && type != Type.DELETED ? task.getStatus() : null;
+        this.previousStatus = previousStatus;
+        this.priority = task != null ? task.getPriority() : null;
+        this.version = task != null ? task.getVersion() : null;
+        this.date = date;
+        this.statusCounts = statusCounts;
+        this.priorityCounts = priorityCounts;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Task.TaskStatus getStatus() {
+        return status;
+    }
+
+    public Task.TaskStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public Task.TaskPriority getPriority() {
+        return priority;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public Map<Task.TaskStatus, Long> getStatusCounts() {
+        return statusCounts;
+    }
+
+    public Map<Task.TaskPriority, Long> getPriorityCounts() {
+        return priorityCounts;
+    }
+}
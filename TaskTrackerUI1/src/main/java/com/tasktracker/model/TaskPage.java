@@ -0,0 +1,51 @@
+package com.tasktracker.model;
+
+import java.util.List;
+
+public class TaskPage {
+    private final List<Task> tasks;
+    private final int page;
+    private final int size;
+    private final long totalElements;
+    private final String nextCursor;
+
+    public TaskPage(List<Task> tasks, int page, int size, long totalElements, String nextCursor) {
+        this.tasks = tasks;
+        this.page = page;
+        this.size = size;
+        this.totalElements = totalElements;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public int getTotalPages() {
+        return (int) Math.max(1, (totalElements + size - 1) / size);
+    }
+
+    public boolean hasPrevious() {
+        return page > 1;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
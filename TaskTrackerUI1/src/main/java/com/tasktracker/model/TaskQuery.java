@@ -0,0 +1,85 @@
+package com.tasktracker.model;
+
+public class TaskQuery {
+
+    public enum Sort {
+        NEWEST, OLDEST, DUE_DATE, PRIORITY;
+
+        public static Sort fromParam(String value) {
+            if (value == null || value.isBlank()) {
+                return NEWEST;
+            }
+            String normalized = value.trim().replace('-', '_').toUpperCase();
+            if (normalized.equals("DUEDATE")) {
+                return DUE_DATE;
+            }
+            try {
+                return Sort.valueOf(normalized);
+            } catch (IllegalArgumentException e) {
+                return NEWEST;
+            }
+        }
+    }
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private int page = 1;
+    private int size = 10;
+    private Sort sort = Sort.NEWEST;
+    private Task.TaskStatus status;
+    private Task.TaskPriority priority;
+    private String cursor;
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = Math.max(1, page);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = Math.max(1, Math.min(MAX_PAGE_SIZE, size));
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public void setSort(Sort sort) {
+        this.sort = sort != null ? sort : Sort.NEWEST;
+    }
+
+    public Task.TaskStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(Task.TaskStatus status) {
+        this.status = status;
+    }
+
+    public Task.TaskPriority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Task.TaskPriority priority) {
+        this.priority = priority;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor != null && !cursor.isBlank() ? cursor : null;
+    }
+
+    public boolean matches(Task task) {
+        return (status == null || task.getStatus() == status)
+            && (priority == null || task.getPriority() == priority);
+    }
+}
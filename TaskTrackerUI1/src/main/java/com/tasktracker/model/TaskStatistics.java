@@ -0,0 +1,81 @@
+package com.tasktracker.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TaskStatistics {
+    private final long totalTasks;
+    private final Map<Task.TaskStatus, Long> statusCounts;
+    private final Map<Task.TaskPriority, Long> priorityCounts;
+    private final long timedCompletions;
+    private final long completionDaysSum;
+    private final long createdThisMonth;
+    private final long completedThisMonth;
+
+    public TaskStatistics(long totalTasks,
+                          Map<Task.TaskStatus, Long> statusCounts,
+                          Map<Task.TaskPriority, Long> priorityCounts,
+                          long timedCompletions,
+                          long completionDaysSum,
+                          long createdThisMonth,
+                          long completedThisMonth) {
+        this.totalTasks = totalTasks;
+        this.statusCounts = Collections.unmodifiableMap(statusCounts);
+        this.priorityCounts = Collections.unmodifiableMap(priorityCounts);
+        this.timedCompletions = timedCompletions;
+        this.completionDaysSum = completionDaysSum;
+        this.createdThisMonth = createdThisMonth;
+        this.completedThisMonth = completedThisMonth;
+    }
+
+    public long getTotalTasks() {
+        return totalTasks;
+    }
+
+    public long countByStatus(Task.TaskStatus status) {
+        return statusCounts.getOrDefault(status, 0L);
+    }
+
+    public long countByPriority(Task.TaskPriority priority) {
+        return priorityCounts.getOrDefault(priority, 0L);
+    }
+
+    public Map<String, Long> getStatusDistribution() {
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        statusCounts.forEach((status, count) -> {
+            if (count > 0) {
+                distribution.put(status.toString(), count);
+            }
+        });
+        return distribution;
+    }
+
+    public Map<String, Long> getPriorityDistribution() {
+        Map<String, Long> distribution = new LinkedHashMap<>();
+        priorityCounts.forEach((priority, count) -> {
+            if (count > 0) {
+                distribution.put(priority.toString(), count);
+            }
+        });
+        return distribution;
+    }
+
+    public double getCompletionRate() {
+        if (totalTasks == 0) return 0.0;
+        return Math.round((double) countByStatus(Task.TaskStatus.COMPLETED) / totalTasks * 100);
+    }
+
+    public String getAverageCompletionTime() {
+        if (timedCompletions == 0) return "N/A";
+        return String.format("%.1f days", (double) completionDaysSum / timedCompletions);
+    }
+
+    public long getCreatedThisMonth() {
+        return createdThisMonth;
+    }
+
+    public long getCompletedThisMonth() {
+        return completedThisMonth;
+    }
+}
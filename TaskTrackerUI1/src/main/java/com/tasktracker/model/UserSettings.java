@@ -0,0 +1,58 @@
+package com.tasktracker.model;
+
+public class UserSettings {
+    private String defaultView = "list";
+    private int tasksPerPage = 10;
+    private String sortBy = "NEWEST";
+    private boolean emailNotifications;
+    private boolean dueDateReminders = true;
+    private boolean statusUpdates;
+
+    public String getDefaultView() {
+        return defaultView;
+    }
+
+    public void setDefaultView(String defaultView) {
+        this.defaultView = defaultView;
+    }
+
+    public int getTasksPerPage() {
+        return tasksPerPage;
+    }
+
+    public void setTasksPerPage(int tasksPerPage) {
+        this.tasksPerPage = tasksPerPage;
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public void setSortBy(String sortBy) {
+        this.sortBy = sortBy;
+    }
+
+    public boolean isEmailNotifications() {
+        return emailNotifications;
+    }
+
+    public void setEmailNotifications(boolean emailNotifications) {
+        this.emailNotifications = emailNotifications;
+    }
+
+    public boolean isDueDateReminders() {
+        return dueDateReminders;
+    }
+
+    public void setDueDateReminders(boolean dueDateReminders) {
+        this.dueDateReminders = dueDateReminders;
+    }
+
+    public boolean isStatusUpdates() {
+        return statusUpdates;
+    }
+
+    public void setStatusUpdates(boolean statusUpdates) {
+        this.statusUpdates = statusUpdates;
+    }
+}
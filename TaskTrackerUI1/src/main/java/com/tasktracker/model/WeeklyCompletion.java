@@ -0,0 +1,43 @@
+package com.tasktracker.model;
+
+import java.time.LocalDate;
+
+/**
+ * One week of the completion trend: tasks created in the week, tasks
+ * completed in it, and how many of the week's new tasks are completed by now.
+ */
+public class WeeklyCompletion {
+    private final LocalDate weekStart;
+    private final long created;
+    private final long completed;
+    private final long createdAndCompleted;
+
+    public WeeklyCompletion(LocalDate weekStart, long created, long completed, long createdAndCompleted) {
+        this.weekStart = weekStart;
+        this.created = created;
+        this.completed = completed;
+        this.createdAndCompleted = createdAndCompleted;
+    }
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getCreatedAndCompleted() {
+        return createdAndCompleted;
+    }
+
+    // Share of the week's new tasks completed since, as a whole percentage
+    public double getCompletionRate() {
+        if (created == 0) return 0.0;
+        return Math.round((double) createdAndCompleted / created * 100);
+    }
+}
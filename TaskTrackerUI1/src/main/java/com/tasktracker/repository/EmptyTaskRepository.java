@@ -0,0 +1,239 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+import com.tasktracker.model.TaskStatistics;
+import com.tasktracker.model.WeeklyCompletion;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * What an owner without a partition sees: no tasks. Reads answer from
+ * nothing and deletes have nothing to remove, so looking at an unknown
+ * owner never creates files, threads or pools; saving opens a real
+ * partition instead of coming here.
+ */
+final class EmptyTaskRepository implements TaskRepository {
+    static final EmptyTaskRepository INSTANCE = new EmptyTaskRepository();
+
+    private EmptyTaskRepository() {
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        return Stream.empty();
+    }
+
+    @Override
+    public Optional<Task> getTaskById(Long id) {
+        return Optional.empty();
+    }
+
+    @Override
+    public long count() {
+        return 0;
+    }
+
+    @Override
+    public long countByStatus(Task.TaskStatus status) {
+        return 0;
+    }
+
+    @Override
+    public long countByPriority(Task.TaskPriority priority) {
+        return 0;
+    }
+
+    @Override
+    public TaskStatistics getStatistics() {
+        return new TaskStatistics(0, Map.of(), Map.of(), 0, 0, 0, 0);
+    }
+
+    @Override
+    public CompletableFuture<TaskStatistics> getStatisticsAsync() {
+        return CompletableFuture.completedFuture(getStatistics());
+    }
+
+    @Override
+    public TaskPage findTasks(TaskQuery query) {
+        return new TaskPage(List.of(), query.getPage(), query.getSize(), 0, null);
+    }
+
+    @Override
+    public CompletableFuture<TaskPage> findTasksAsync(TaskQuery query) {
+        return CompletableFuture.completedFuture(findTasks(query));
+    }
+
+    @Override
+    public TaskPage search(String text, TaskQuery query) {
+        return findTasks(query);
+    }
+
+    @Override
+    public CompletableFuture<TaskPage> searchAsync(String text, TaskQuery query) {
+        return CompletableFuture.completedFuture(search(text, query));
+    }
+
+    @Override
+    public long countCreatedAfter(LocalDateTime from) {
+        return 0;
+    }
+
+    @Override
+    public CompletableFuture<Long> countCreatedAfterAsync(LocalDateTime from) {
+        return CompletableFuture.completedFuture(0L);
+    }
+
+    @Override
+    public long countCompletedAfter(LocalDateTime from) {
+        return 0;
+    }
+
+    @Override
+    public CompletableFuture<Long> countCompletedAfterAsync(LocalDateTime from) {
+        return CompletableFuture.completedFuture(0L);
+    }
+
+    @Override
+    public List<Task> getTasksNewestFirst(int limit) {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<Task> getRecentlyCompleted(int limit) {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<Task> getOverdueTasks(LocalDateTime now, int limit) {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public long countOverdue(LocalDateTime now) {
+        return 0;
+    }
+
+    @Override
+    public CompletableFuture<Long> countOverdueAsync(LocalDateTime now) {
+        return CompletableFuture.completedFuture(0L);
+    }
+
+    @Override
+    public Map<Task.TaskPriority, Long> countOverdueByPriority(LocalDateTime now) {
+        Map<Task.TaskPriority, Long> result = new EnumMap<>(Task.TaskPriority.class);
+        for (Task.TaskPriority priority : Task.TaskPriority.values()) {
+            result.put(priority, 0L);
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Map<Task.TaskPriority, Long>> countOverdueByPriorityAsync(LocalDateTime now) {
+        return CompletableFuture.completedFuture(countOverdueByPriority(now));
+    }
+
+    @Override
+    public List<WeeklyCompletion> getWeeklyCompletion(LocalDate firstWeek, int weeks) {
+        List<WeeklyCompletion> result = new ArrayList<>(weeks);
+        for (int week = 0; week < weeks; week++) {
+            result.add(new WeeklyCompletion(firstWeek.plusWeeks(week), 0, 0, 0));
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<List<WeeklyCompletion>> getWeeklyCompletionAsync(LocalDate firstWeek, int weeks) {
+        return CompletableFuture.completedFuture(getWeeklyCompletion(firstWeek, weeks));
+    }
+
+    @Override
+    public List<Task> getOpenTasksWithDueDate() {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public Task saveTask(Task task) {
+        throw new UnsupportedOperationException("An empty partition cannot store tasks");
+    }
+
+    @Override
+    public CompletableFuture<Task> saveTaskAsync(Task task) {
+        throw new UnsupportedOperationException("An empty partition cannot store tasks");
+    }
+
+    @Override
+    public List<Task> saveAll(List<Task> batch) {
+        throw new UnsupportedOperationException("An empty partition cannot store tasks");
+    }
+
+    @Override
+    public CompletableFuture<List<Task>> saveAllAsync(List<Task> batch) {
+        throw new UnsupportedOperationException("An empty partition cannot store tasks");
+    }
+
+    @Override
+    public void deleteTask(Long id) {
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteTaskAsync(Long id) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public List<Task> updateAll(Collection<Long> ids, Consumer<Task> mutation) {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        return 0;
+    }
+
+    @Override
+    public void truncate() {
+    }
+
+    // Any partition opened later has a newer epoch, so validators of this view never match it
+    @Override
+    public long getDataVersion() {
+        return 0;
+    }
+
+    @Override
+    public long getDataEpoch() {
+        return 0;
+    }
+
+    @Override
+    public long getLastModified() {
+        return 0;
+    }
+
+    @Override
+    public TaskRepository openPartition(Path dataDir) {
+        throw new UnsupportedOperationException("An empty partition has no backend to open");
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,34 @@
+package com.tasktracker.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * Connection pool for the JDBC task store. Without an explicit
+ * {@code tasktracker.storage.jdbc.url} the database lives in the data
+ * directory as {@code tasks.mv.db}; pool settings come from
+ * {@code spring.datasource.hikari.*}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tasktracker.storage.backend", havingValue = "jdbc")
+public class JdbcStorageConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource taskDataSource(@Value("${tasktracker.storage.data-dir:data}") String dataDir,
+                                           @Value("${tasktracker.storage.jdbc.url:}") String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("task-store");
+        dataSource.setJdbcUrl(url.isBlank()
+            ? "jdbc:h2:file:" + Paths.get(dataDir).toAbsolutePath().resolve("tasks")
+            : url);
+        dataSource.setUsername("sa");
+        return dataSource;
+    }
+}
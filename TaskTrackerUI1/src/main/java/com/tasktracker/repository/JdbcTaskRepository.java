@@ -0,0 +1,887 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+import com.tasktracker.model.TaskStatistics;
+import com.tasktracker.model.WeeklyCompletion;
+import com.tasktracker.service.StaleTaskException;
+import com.tasktracker.storage.SearchIndex;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Task store in an embedded H2 database. Listings are keyset scans over
+ * indexed columns, the analytics figures are aggregate queries, and batch
+ * writes go through prepared-statement batches inside one transaction.
+ * The status and priority counts that every change reads are kept in
+ * memory, seeded by one grouped query and adjusted by each committed
+ * write from the before-images it locked; like the id sequence and the
+ * data version, this assumes the database has a single writing process.
+ */
+@Repository
+@Qualifier(PartitionedTaskRepository.PARTITION)
+@ConditionalOnProperty(name = "tasktracker.storage.backend", havingValue = "jdbc")
+public class JdbcTaskRepository implements TaskRepository {
+    private static final Logger log = LoggerFactory.getLogger(JdbcTaskRepository.class);
+    private static final int BATCH_SIZE = 1000;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final String COLUMNS =
+        "id, title, description, status, priority, created_at, updated_at, due_date, completed_at, version";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM tasks";
+    private static final String UPSERT = "MERGE INTO tasks (title, description, status, priority, created_at,"
+        + " updated_at, due_date, completed_at, version, id) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int COMPLETED = Task.TaskStatus.COMPLETED.ordinal();
+    private static final String OPEN_STATUSES = Arrays.stream(Task.TaskStatus.values())
+        .filter(status -> status != Task.TaskStatus.COMPLETED)
+        .map(status -> Integer.toString(status.ordinal()))
+        .collect(Collectors.joining(", ", "(", ")"));
+
+    private static final RowMapper<Task> TASK_ROW = (rs, rowNum) -> {
+        Task task = new Task();
+        task.setId(rs.getLong(1));
+        task.setTitle(rs.getString(2));
+        task.setDescription(rs.getString(3));
+        task.setStatus(enumAt(Task.TaskStatus.values(), rs, 4));
+        task.setPriority(enumAt(Task.TaskPriority.values(), rs, 5));
+        task.setCreatedAt(rs.getObject(6, LocalDateTime.class));
+        task.setUpdatedAt(rs.getObject(7, LocalDateTime.class));
+        task.setDueDate(rs.getObject(8, LocalDateTime.class));
+        task.setCompletedAt(rs.getObject(9, LocalDateTime.class));
+        task.setVersion(rs.getLong(10));
+        return task;
+    };
+
+    // What a write replaces: the stored version, status and priority of an existing row
+    private record Before(long version, Task.TaskStatus status, Task.TaskPriority priority) {}
+
+    private static final RowMapper<Before> BEFORE_ROW = (rs, rowNum) ->
+        new Before(rs.getLong(2), enumAt(Task.TaskStatus.values(), rs, 3), enumAt(Task.TaskPriority.values(), rs, 4));
+
+    /**
+     * One index walk of a listing order, as in the file store's pager: an
+     * extra condition, the column it is ordered by and the direction.
+     */
+    private record Segment(String condition, Object[] args, String key, boolean descending) {}
+
+    private record Position(int segment, LocalDateTime key, long id) {}
+
+    private final DataSource dataSource;
+    // Partitions opened from this store own their pool; the configured one belongs to the context
+    private final boolean ownsDataSource;
+    private final int fetchSize;
+    private final MeterRegistry meterRegistry;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    // Reads in one snapshot, for figures that must agree with each other
+    private final TransactionTemplate snapshots;
+    // Writes hold the read side from their transaction until the counts are adjusted; truncate the write side
+    private final ReentrantReadWriteLock truncationLock = new ReentrantReadWriteLock();
+    private final Executor storageExecutor;
+    private final AtomicLong currentId;
+    private final long dataEpoch = System.currentTimeMillis();
+    private final AtomicLong dataVersion = new AtomicLong();
+    private volatile long lastModified = dataEpoch;
+    // Rows without a status are in the total but not in the status counts
+    private long totalCount;
+    private final long[] statusCounts = new long[Task.TaskStatus.values().length];
+    private final long[] priorityCounts = new long[Task.TaskPriority.values().length];
+    private final Timer saveTimer;
+    private final Timer saveAllTimer;
+    private final Timer deleteTimer;
+    private final Timer updateAllTimer;
+    private final Timer deleteByIdsTimer;
+    private final Timer truncateTimer;
+    private final Timer findTimer;
+    private final Timer searchTimer;
+    private final Timer getAllTimer;
+    private final Timer reportTimer;
+
+    @Autowired
+    public JdbcTaskRepository(DataSource dataSource,
+                              @Value("${tasktracker.storage.jdbc.fetch-size:1000}") int fetchSize,
+                              MeterRegistry meterRegistry,
+                              @Qualifier("storageExecutor") Executor storageExecutor) {
+        this(dataSource, false, fetchSize, meterRegistry, storageExecutor);
+    }
+
+    private JdbcTaskRepository(DataSource dataSource, boolean ownsDataSource, int fetchSize,
+                               MeterRegistry meterRegistry, Executor storageExecutor) {
+        this.dataSource = dataSource;
+        this.ownsDataSource = ownsDataSource;
+        this.fetchSize = fetchSize;
+        this.meterRegistry = meterRegistry;
+        new ResourceDatabasePopulator(new ClassPathResource("db/tasks-schema.sql")).execute(dataSource);
+        this.jdbc = new JdbcTemplate(dataSource);
+        jdbc.setFetchSize(fetchSize);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.snapshots = new TransactionTemplate(transactionManager);
+        snapshots.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshots.setReadOnly(true);
+        this.storageExecutor = storageExecutor;
+        this.currentId = new AtomicLong(jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tasks", Long.class));
+        loadCounts();
+
+        this.saveTimer = operationTimer(meterRegistry, "save");
+        this.saveAllTimer = operationTimer(meterRegistry, "save_all");
+        this.deleteTimer = operationTimer(meterRegistry, "delete");
+        this.updateAllTimer = operationTimer(meterRegistry, "update_all");
+        this.deleteByIdsTimer = operationTimer(meterRegistry, "delete_by_ids");
+        this.truncateTimer = operationTimer(meterRegistry, "truncate");
+        this.findTimer = operationTimer(meterRegistry, "find");
+        this.searchTimer = operationTimer(meterRegistry, "search");
+        this.getAllTimer = operationTimer(meterRegistry, "get_all");
+        this.reportTimer = operationTimer(meterRegistry, "report");
+        log.info("Opened task database with {} tasks", count());
+    }
+
+    private static Timer operationTimer(MeterRegistry meterRegistry, String op) {
+        return Timer.builder("tasktracker.storage.operation")
+            .tag("op", op)
+            .description("Latency of task store operations")
+            .register(meterRegistry);
+    }
+
+    private synchronized void loadCounts() {
+        jdbc.query("SELECT status, priority, COUNT(*) FROM tasks GROUP BY status, priority", rs -> {
+            Task.TaskStatus status = enumAt(Task.TaskStatus.values(), rs, 1);
+            Task.TaskPriority priority = enumAt(Task.TaskPriority.values(), rs, 2);
+            adjust(status, priority, rs.getLong(3));
+        });
+    }
+
+    private synchronized void adjust(Task.TaskStatus status, Task.TaskPriority priority, long delta) {
+        totalCount += delta;
+        if (status != null) {
+            statusCounts[status.ordinal()] += delta;
+        }
+        if (priority != null) {
+            priorityCounts[priority.ordinal()] += delta;
+        }
+    }
+
+    // Applies a committed write's effect on the counts and bumps the data version
+    private void applied(Collection<Before> replaced, Collection<Task> written) {
+        for (Before before : replaced) {
+            adjust(before.status(), before.priority(), -1);
+        }
+        for (Task task : written) {
+            adjust(task.getStatus(), task.getPriority(), 1);
+        }
+        markModified();
+    }
+
+    private void markModified() {
+        dataVersion.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, storageExecutor);
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return getAllTimer.record(() -> jdbc.query(SELECT + " ORDER BY id", TASK_ROW));
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        return jdbc.queryForStream(SELECT + " ORDER BY id", TASK_ROW);
+    }
+
+    @Override
+    public Optional<Task> getTaskById(Long id) {
+        return jdbc.query(SELECT + " WHERE id = ?", TASK_ROW, id).stream().findFirst();
+    }
+
+    @Override
+    public synchronized long count() {
+        return totalCount;
+    }
+
+    @Override
+    public synchronized long countByStatus(Task.TaskStatus status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    @Override
+    public synchronized long countByPriority(Task.TaskPriority priority) {
+        return priorityCounts[priority.ordinal()];
+    }
+
+    // One repeatable-read transaction, so the totals, distributions and monthly figures describe the same rows
+    @Override
+    public TaskStatistics getStatistics() {
+        return snapshots.execute(tx -> statistics());
+    }
+
+    private TaskStatistics statistics() {
+        Map<Task.TaskStatus, Long> statuses = new EnumMap<>(Task.TaskStatus.class);
+        Map<Task.TaskPriority, Long> priorities = new EnumMap<>(Task.TaskPriority.class);
+        long[] total = new long[1];
+        jdbc.query("SELECT status, priority, COUNT(*) FROM tasks GROUP BY status, priority", rs -> {
+            long count = rs.getLong(3);
+            total[0] += count;
+            Task.TaskStatus status = enumAt(Task.TaskStatus.values(), rs, 1);
+            if (status != null) {
+                statuses.merge(status, count, Long::sum);
+            }
+            Task.TaskPriority priority = enumAt(Task.TaskPriority.values(), rs, 2);
+            if (priority != null) {
+                priorities.merge(priority, count, Long::sum);
+            }
+        });
+        for (Task.TaskStatus status : Task.TaskStatus.values()) {
+            statuses.putIfAbsent(status, 0L);
+        }
+        for (Task.TaskPriority priority : Task.TaskPriority.values()) {
+            priorities.putIfAbsent(priority, 0L);
+        }
+
+        // Whole days from creation to completion, truncated like ChronoUnit.DAYS.between
+        long[] timed = jdbc.queryForObject("SELECT COUNT(*), COALESCE(SUM(DATEDIFF(SECOND, created_at, completed_at) / 86400), 0)"
+                + " FROM tasks WHERE status = ? AND completed_at IS NOT NULL AND created_at IS NOT NULL",
+            (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)}, COMPLETED);
+        YearMonth month = YearMonth.now();
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        long createdThisMonth = countLong("SELECT COUNT(*) FROM tasks WHERE created_at >= ? AND created_at < ?", from, to);
+        long completedThisMonth = countLong("SELECT COUNT(*) FROM tasks WHERE status = ? AND completed_at >= ? AND completed_at < ?",
+            COMPLETED, from, to);
+        return new TaskStatistics(total[0], statuses, priorities, timed[0], timed[1], createdThisMonth, completedThisMonth);
+    }
+
+    @Override
+    public CompletableFuture<TaskStatistics> getStatisticsAsync() {
+        return submit(this::getStatistics);
+    }
+
+    private long countLong(String sql, Object... args) {
+        Long count = jdbc.queryForObject(sql, Long.class, args);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public TaskPage findTasks(TaskQuery query) {
+        return findTimer.record(() -> find(query));
+    }
+
+    private TaskPage find(TaskQuery query) {
+        List<Segment> segments = plan(query);
+        Position start = decodeCursor(query.getCursor());
+        long skip = start == null ? (long) (query.getPage() - 1) * query.getSize() : 0;
+        List<Task> page = new ArrayList<>(query.getSize());
+        Position last = null;
+        boolean more = false;
+
+        for (int s = start != null ? start.segment() : 0; s < segments.size() && !more; s++) {
+            Segment segment = segments.get(s);
+            StringBuilder where = new StringBuilder();
+            List<Object> args = new ArrayList<>();
+            filter(query, where, args);
+            and(where, segment.condition());
+            args.addAll(List.of(segment.args()));
+            if (skip > 0) {
+                long inSegment = countLong("SELECT COUNT(*) FROM tasks" + where, args.toArray());
+                if (inSegment <= skip) {
+                    skip -= inSegment;
+                    continue;
+                }
+            }
+            if (start != null && s == start.segment()) {
+                after(segment, start, where, args);
+            }
+            // Rows without a key sort lowest, spelled out so the cursor predicate can rely on it
+            String direction = segment.descending() ? " DESC NULLS LAST" : " NULLS FIRST";
+            String idDirection = segment.descending() ? " DESC" : "";
+            // One row past the page tells whether there is a next one
+            args.add(query.getSize() - page.size() + 1);
+            args.add(skip);
+            skip = 0;
+            List<Task> rows = jdbc.query(SELECT + where + " ORDER BY " + segment.key() + direction + ", id" + idDirection
+                + " LIMIT ? OFFSET ?", TASK_ROW, args.toArray());
+            for (Task task : rows) {
+                if (page.size() == query.getSize()) {
+                    more = true;
+                    break;
+                }
+                page.add(task);
+                last = new Position(s, keyOf(task, segment.key()), task.getId());
+            }
+        }
+
+        String nextCursor = more ? encodeCursor(last) : null;
+        return new TaskPage(page, query.getPage(), query.getSize(), countMatching(query), nextCursor);
+    }
+
+    // Rows after the cursor position in the segment's order, where a null key sorts below every other
+    private static void after(Segment segment, Position start, StringBuilder where, List<Object> args) {
+        String key = segment.key();
+        if (start.key() == null) {
+            and(where, segment.descending()
+                ? "(" + key + " IS NULL AND id < ?)"
+                : "(" + key + " IS NOT NULL OR id > ?)");
+            args.add(start.id());
+        } else {
+            and(where, segment.descending()
+                ? "(" + key + " < ? OR " + key + " IS NULL OR (" + key + " = ? AND id < ?))"
+                : "(" + key + " > ? OR (" + key + " = ? AND id > ?))");
+            args.addAll(List.of(start.key(), start.key(), start.id()));
+        }
+    }
+
+    private List<Segment> plan(TaskQuery query) {
+        List<Segment> segments = new ArrayList<>();
+        switch (query.getSort()) {
+            case NEWEST -> segments.add(new Segment(null, new Object[0], "created_at", true));
+            case OLDEST -> segments.add(new Segment(null, new Object[0], "created_at", false));
+            case DUE_DATE -> {
+                segments.add(new Segment("due_date IS NOT NULL", new Object[0], "due_date", false));
+                segments.add(new Segment("due_date IS NULL", new Object[0], "created_at", true));
+            }
+            case PRIORITY -> {
+                Task.TaskPriority[] priorities = Task.TaskPriority.values();
+                for (int i = priorities.length - 1; i >= 0; i--) {
+                    if (query.getPriority() == null || query.getPriority() == priorities[i]) {
+                        segments.add(new Segment("priority = ?", new Object[] {i}, "created_at", true));
+                    }
+                }
+            }
+        }
+        return segments;
+    }
+
+    private static LocalDateTime keyOf(Task task, String key) {
+        return key.equals("due_date") ? task.getDueDate() : task.getCreatedAt();
+    }
+
+    private static void filter(TaskQuery query, StringBuilder where, List<Object> args) {
+        if (query.getStatus() != null) {
+            and(where, "status = ?");
+            args.add(query.getStatus().ordinal());
+        }
+        if (query.getPriority() != null) {
+            and(where, "priority = ?");
+            args.add(query.getPriority().ordinal());
+        }
+    }
+
+    private static void and(StringBuilder where, String condition) {
+        if (condition != null) {
+            where.append(where.length() == 0 ? " WHERE " : " AND ").append(condition);
+        }
+    }
+
+    private long countMatching(TaskQuery query) {
+        if (query.getStatus() == null && query.getPriority() == null) {
+            return count();
+        }
+        if (query.getPriority() == null) {
+            return countByStatus(query.getStatus());
+        }
+        if (query.getStatus() == null) {
+            return countByPriority(query.getPriority());
+        }
+        return countLong("SELECT COUNT(*) FROM tasks WHERE status = ? AND priority = ?",
+            query.getStatus().ordinal(), query.getPriority().ordinal());
+    }
+
+    private static String encodeCursor(Position position) {
+        String raw = position.segment() + "|" + (position.key() != null ? position.key() : "") + "|" + position.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decodeCursor(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            LocalDateTime key = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            return new Position(Integer.parseInt(parts[0]), key, Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<TaskPage> findTasksAsync(TaskQuery query) {
+        return submit(() -> findTasks(query));
+    }
+
+    /**
+     * Every term has to start a word in the title or description. Matches
+     * are ranked by where the terms occur, title first, then newest first.
+     */
+    @Override
+    public TaskPage search(String text, TaskQuery query) {
+        return searchTimer.record(() -> {
+            List<String> terms = new ArrayList<>(SearchIndex.tokenize(text));
+            if (terms.isEmpty()) {
+                return new TaskPage(List.of(), query.getPage(), query.getSize(), 0, null);
+            }
+            StringBuilder where = new StringBuilder();
+            List<Object> args = new ArrayList<>();
+            filter(query, where, args);
+            StringBuilder score = new StringBuilder();
+            List<Object> scoreArgs = new ArrayList<>();
+            for (String term : terms) {
+                String pattern = "(?<![\\p{L}\\p{N}])" + Pattern.quote(term);
+                and(where, "(REGEXP_LIKE(title, ?, 'i') OR REGEXP_LIKE(description, ?, 'i'))");
+                args.add(pattern);
+                args.add(pattern);
+                score.append(score.length() == 0 ? "" : " + ")
+                    .append("CASE WHEN REGEXP_LIKE(title, ?, 'i') THEN ").append(TITLE_WEIGHT).append(" ELSE 0 END")
+                    .append(" + CASE WHEN REGEXP_LIKE(description, ?, 'i') THEN ").append(DESCRIPTION_WEIGHT).append(" ELSE 0 END");
+                scoreArgs.add(pattern);
+                scoreArgs.add(pattern);
+            }
+            long total = countLong("SELECT COUNT(*) FROM tasks" + where, args.toArray());
+
+            List<Object> pageArgs = new ArrayList<>(scoreArgs);
+            pageArgs.addAll(args);
+            pageArgs.add(query.getSize());
+            pageArgs.add((long) (query.getPage() - 1) * query.getSize());
+            List<Task> page = jdbc.query("SELECT " + COLUMNS + ", " + score + " AS score FROM tasks" + where
+                + " ORDER BY score DESC, id DESC LIMIT ? OFFSET ?", TASK_ROW, pageArgs.toArray());
+            return new TaskPage(page, query.getPage(), query.getSize(), total, null);
+        });
+    }
+
+    @Override
+    public CompletableFuture<TaskPage> searchAsync(String text, TaskQuery query) {
+        return submit(() -> search(text, query));
+    }
+
+    @Override
+    public long countCreatedAfter(LocalDateTime from) {
+        return countLong("SELECT COUNT(*) FROM tasks WHERE created_at > ?", from);
+    }
+
+    @Override
+    public CompletableFuture<Long> countCreatedAfterAsync(LocalDateTime from) {
+        return submit(() -> countCreatedAfter(from));
+    }
+
+    @Override
+    public long countCompletedAfter(LocalDateTime from) {
+        return countLong("SELECT COUNT(*) FROM tasks WHERE status = ? AND completed_at > ?", COMPLETED, from);
+    }
+
+    @Override
+    public CompletableFuture<Long> countCompletedAfterAsync(LocalDateTime from) {
+        return submit(() -> countCompletedAfter(from));
+    }
+
+    @Override
+    public List<Task> getTasksNewestFirst(int limit) {
+        return jdbc.query(SELECT + " ORDER BY created_at DESC, id DESC LIMIT ?", TASK_ROW, limit);
+    }
+
+    @Override
+    public List<Task> getRecentlyCompleted(int limit) {
+        return jdbc.query(SELECT + " WHERE status = ? AND completed_at IS NOT NULL"
+            + " ORDER BY completed_at DESC, id DESC LIMIT ?", TASK_ROW, COMPLETED, limit);
+    }
+
+    @Override
+    public List<Task> getOverdueTasks(LocalDateTime now, int limit) {
+        return jdbc.query(SELECT + " WHERE status IN " + OPEN_STATUSES + " AND due_date < ?"
+            + " ORDER BY due_date, id LIMIT ?", TASK_ROW, now, limit);
+    }
+
+    @Override
+    public long countOverdue(LocalDateTime now) {
+        return countLong("SELECT COUNT(*) FROM tasks WHERE status IN " + OPEN_STATUSES + " AND due_date < ?", now);
+    }
+
+    @Override
+    public CompletableFuture<Long> countOverdueAsync(LocalDateTime now) {
+        return submit(() -> countOverdue(now));
+    }
+
+    @Override
+    public Map<Task.TaskPriority, Long> countOverdueByPriority(LocalDateTime now) {
+        Map<Task.TaskPriority, Long> result = new EnumMap<>(Task.TaskPriority.class);
+        for (Task.TaskPriority priority : Task.TaskPriority.values()) {
+            result.put(priority, 0L);
+        }
+        reportTimer.record(() -> jdbc.query("SELECT priority, COUNT(*) FROM tasks WHERE status IN " + OPEN_STATUSES
+                + " AND due_date < ? GROUP BY priority", rs -> {
+            Task.TaskPriority priority = enumAt(Task.TaskPriority.values(), rs, 1);
+            if (priority != null) {
+                result.put(priority, rs.getLong(2));
+            }
+        }, now));
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Map<Task.TaskPriority, Long>> countOverdueByPriorityAsync(LocalDateTime now) {
+        return submit(() -> countOverdueByPriority(now));
+    }
+
+    // Weeks are counted in whole days from the first one's midnight
+    @Override
+    public List<WeeklyCompletion> getWeeklyCompletion(LocalDate firstWeek, int weeks) {
+        LocalDateTime from = firstWeek.atStartOfDay();
+        LocalDateTime to = firstWeek.plusWeeks(weeks).atStartOfDay();
+        long[] counts = new long[3 * weeks];
+        reportTimer.record(() -> {
+            jdbc.query("SELECT week, COUNT(*), SUM(CASE WHEN status = ? THEN 1 ELSE 0 END) FROM ("
+                    + "SELECT DATEDIFF(DAY, CAST(? AS TIMESTAMP), created_at) / 7 AS week, status FROM tasks"
+                    + " WHERE created_at >= ? AND created_at < ?) GROUP BY week", rs -> {
+                int week = rs.getInt(1);
+                counts[3 * week] = rs.getLong(2);
+                counts[3 * week + 2] = rs.getLong(3);
+            }, COMPLETED, from, from, to);
+            jdbc.query("SELECT week, COUNT(*) FROM ("
+                    + "SELECT DATEDIFF(DAY, CAST(? AS TIMESTAMP), completed_at) / 7 AS week FROM tasks"
+                    + " WHERE status = ? AND completed_at >= ? AND completed_at < ?) GROUP BY week", rs -> {
+                counts[3 * rs.getInt(1) + 1] = rs.getLong(2);
+            }, from, COMPLETED, from, to);
+        });
+        List<WeeklyCompletion> result = new ArrayList<>(weeks);
+        for (int week = 0; week < weeks; week++) {
+            result.add(new WeeklyCompletion(firstWeek.plusWeeks(week),
+                counts[3 * week], counts[3 * week + 1], counts[3 * week + 2]));
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<List<WeeklyCompletion>> getWeeklyCompletionAsync(LocalDate firstWeek, int weeks) {
+        return submit(() -> getWeeklyCompletion(firstWeek, weeks));
+    }
+
+    @Override
+    public List<Task> getOpenTasksWithDueDate() {
+        return jdbc.query(SELECT + " WHERE status IN " + OPEN_STATUSES + " AND due_date IS NOT NULL"
+            + " ORDER BY due_date, id", TASK_ROW);
+    }
+
+    @Override
+    public Task saveTask(Task task) {
+        return saveTimer.record(() -> writing(() -> store(task)));
+    }
+
+    @Override
+    public CompletableFuture<Task> saveTaskAsync(Task task) {
+        return submit(() -> saveTask(task));
+    }
+
+    private <T> T writing(Supplier<T> write) {
+        truncationLock.readLock().lock();
+        try {
+            return write.get();
+        } finally {
+            truncationLock.readLock().unlock();
+        }
+    }
+
+    private Task store(Task task) {
+        if (task.getId() == null) {
+            task.setId(currentId.incrementAndGet());
+        } else {
+            currentId.accumulateAndGet(task.getId(), Math::max);
+        }
+        Optional<Before> replaced = transactions.execute(tx -> {
+            Optional<Before> before = lockBefore(List.of(task.getId())).values().stream().findFirst();
+            long currentVersion = before.map(Before::version).orElse(0L);
+            if (task.getVersion() != null && task.getVersion() != currentVersion) {
+                throw new StaleTaskException(task.getId(), task.getVersion(), currentVersion);
+            }
+            task.setVersion(currentVersion + 1);
+            jdbc.update(UPSERT, ps -> bind(ps, task));
+            return before;
+        });
+        applied(replaced.map(List::of).orElse(List.of()), List.of(task));
+        return task;
+    }
+
+    @Override
+    public List<Task> saveAll(List<Task> batch) {
+        return saveAllTimer.record(() -> writing(() -> storeAll(batch)));
+    }
+
+    @Override
+    public CompletableFuture<List<Task>> saveAllAsync(List<Task> batch) {
+        return submit(() -> saveAll(batch));
+    }
+
+    private List<Task> storeAll(List<Task> batch) {
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        List<Long> existingIds = new ArrayList<>();
+        long unassigned = 0;
+        for (Task task : batch) {
+            if (task.getId() == null) {
+                unassigned++;
+            } else {
+                currentId.accumulateAndGet(task.getId(), Math::max);
+                existingIds.add(task.getId());
+            }
+        }
+        long nextId = currentId.getAndAdd(unassigned) + 1;
+        for (Task task : batch) {
+            if (task.getId() == null) {
+                task.setId(nextId++);
+            }
+        }
+        // A batch may list an id more than once; the last copy is what ends up stored
+        Map<Long, Task> written = new LinkedHashMap<>();
+        Collection<Before> replaced = transactions.execute(tx -> {
+            Map<Long, Before> before = lockBefore(existingIds);
+            for (Task task : batch) {
+                Task earlier = written.put(task.getId(), task);
+                Before current = before.get(task.getId());
+                long version = earlier != null ? earlier.getVersion() : current != null ? current.version() : 0;
+                task.setVersion(version + 1);
+            }
+            jdbc.batchUpdate(UPSERT, batch, BATCH_SIZE, JdbcTaskRepository::bind);
+            return before.values();
+        });
+        applied(replaced, written.values());
+        return batch;
+    }
+
+    @Override
+    public void deleteTask(Long id) {
+        deleteTimer.record(() -> writing(() -> removeAll(List.of(id))));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteTaskAsync(Long id) {
+        return submit(() -> {
+            deleteTask(id);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Task> updateAll(Collection<Long> ids, Consumer<Task> mutation) {
+        return updateAllTimer.record(() -> writing(() -> updateEach(ids, mutation)));
+    }
+
+    private List<Task> updateEach(Collection<Long> ids, Consumer<Task> mutation) {
+        List<Before> replaced = new ArrayList<>();
+        List<Task> updated = transactions.execute(tx -> {
+            Map<Long, Task> current = new HashMap<>();
+            for (List<Long> chunk : chunks(ids)) {
+                jdbc.query(SELECT + " WHERE id IN " + placeholders(chunk.size()) + " FOR UPDATE", TASK_ROW, chunk.toArray())
+                    .forEach(task -> current.put(task.getId(), task));
+            }
+            List<Task> result = new ArrayList<>();
+            for (Long id : ids) {
+                Task task = current.remove(id);
+                if (task == null) {
+                    continue;
+                }
+                long version = task.getVersion();
+                replaced.add(new Before(version, task.getStatus(), task.getPriority()));
+                mutation.accept(task);
+                task.setId(id);
+                task.setVersion(version + 1);
+                result.add(task);
+            }
+            jdbc.batchUpdate(UPSERT, result, BATCH_SIZE, JdbcTaskRepository::bind);
+            return result;
+        });
+        if (!updated.isEmpty()) {
+            applied(replaced, updated);
+        }
+        return updated;
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        return deleteByIdsTimer.record(() -> writing(() -> removeAll(ids)));
+    }
+
+    private int removeAll(Collection<Long> ids) {
+        List<Before> removed = transactions.execute(tx -> {
+            List<Before> rows = new ArrayList<>();
+            // The delete hands back the rows it removed, so the counts need no separate read
+            for (List<Long> chunk : chunks(ids)) {
+                rows.addAll(jdbc.query("SELECT id, version, status, priority FROM OLD TABLE (DELETE FROM tasks WHERE id IN "
+                    + placeholders(chunk.size()) + ")", BEFORE_ROW, chunk.toArray()));
+            }
+            return rows;
+        });
+        if (!removed.isEmpty()) {
+            applied(removed, List.of());
+        }
+        return removed.size();
+    }
+
+    @Override
+    public void truncate() {
+        truncateTimer.record(() -> {
+            // TRUNCATE TABLE would commit on its own; a DELETE stays inside the transaction
+            truncationLock.writeLock().lock();
+            try {
+                transactions.executeWithoutResult(tx -> jdbc.update("DELETE FROM tasks"));
+                synchronized (this) {
+                    totalCount = 0;
+                    Arrays.fill(statusCounts, 0);
+                    Arrays.fill(priorityCounts, 0);
+                }
+                markModified();
+            } finally {
+                truncationLock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    @Override
+    public long getDataEpoch() {
+        return dataEpoch;
+    }
+
+    @Override
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Partitions are separate H2 files in their directory, pooled like the
+     * configured store, even when that one points at another URL.
+     */
+    @Override
+    public TaskRepository openPartition(Path dataDir) {
+        HikariConfig config = new HikariConfig();
+        if (dataSource instanceof HikariDataSource configured) {
+            configured.copyStateTo(config);
+        } else {
+            config.setUsername("sa");
+        }
+        config.setJdbcUrl("jdbc:h2:file:" + dataDir.toAbsolutePath().resolve("tasks"));
+        config.setPoolName("task-store-" + dataDir.getFileName());
+        HikariDataSource partition = new HikariDataSource(config);
+        try {
+            return new JdbcTaskRepository(partition, true, fetchSize, meterRegistry, storageExecutor);
+        } catch (RuntimeException e) {
+            partition.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ownsDataSource && dataSource instanceof HikariDataSource pool) {
+            pool.close();
+        }
+    }
+
+    // Locks the listed rows for the rest of the transaction and returns what they hold now
+    private Map<Long, Before> lockBefore(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Before> before = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            jdbc.query("SELECT id, version, status, priority FROM tasks WHERE id IN " + placeholders(chunk.size())
+                + " FOR UPDATE", rs -> {
+                    before.put(rs.getLong(1), BEFORE_ROW.mapRow(rs, 0));
+                }, chunk.toArray());
+        }
+        return before;
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = ids instanceof List<Long> list ? list : new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += BATCH_SIZE) {
+            chunks.add(all.subList(from, Math.min(all.size(), from + BATCH_SIZE)));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return Stream.generate(() -> "?").limit(count).collect(Collectors.joining(", ", "(", ")"));
+    }
+
+    private static void bind(PreparedStatement ps, Task task) throws SQLException {
+        ps.setString(1, task.getTitle());
+        ps.setString(2, task.getDescription());
+        setOrdinal(ps, 3, task.getStatus());
+        setOrdinal(ps, 4, task.getPriority());
+        ps.setObject(5, task.getCreatedAt());
+        ps.setObject(6, task.getUpdatedAt());
+        ps.setObject(7, task.getDueDate());
+        ps.setObject(8, task.getCompletedAt());
+        ps.setLong(9, task.getVersion());
+        ps.setLong(10, task.getId());
+    }
+
+    private static void setOrdinal(PreparedStatement ps, int index, Enum<?> value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value.ordinal());
+        } else {
+            ps.setNull(index, Types.TINYINT);
+        }
+    }
+
+    private static <E> E enumAt(E[] values, ResultSet rs, int column) throws SQLException {
+        int ordinal = rs.getInt(column);
+        return rs.wasNull() ? null : values[ordinal];
+    }
+}
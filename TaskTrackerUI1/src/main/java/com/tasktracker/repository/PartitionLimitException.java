@@ -0,0 +1,14 @@
+package com.tasktracker.repository;
+
+public class PartitionLimitException extends RuntimeException {
+    private final int maxOpen;
+
+    public PartitionLimitException(int maxOpen) {
+        super("All " + maxOpen + " task partitions are in use");
+        this.maxOpen = maxOpen;
+    }
+
+    public int getMaxOpen() {
+        return maxOpen;
+    }
+}
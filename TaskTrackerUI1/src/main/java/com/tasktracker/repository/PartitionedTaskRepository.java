@@ -0,0 +1,543 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+import com.tasktracker.model.TaskStatistics;
+import com.tasktracker.model.WeeklyCompletion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Routes every call to the current {@link TaskOwner}'s partition. Each
+ * partition is a complete store of the configured backend with its own
+ * files, indexes and locks, so a request only ever touches its owner's
+ * tasks and writes by different owners do not contend.
+ *
+ * <p>A partition is opened by the first write of an owner, or by any call
+ * once its directory exists; reads of an owner that has never written see
+ * an empty view and open nothing. At most
+ * {@code tasktracker.storage.max-open-partitions} are open at once: opening
+ * another closes the least recently used one that no call is using, and
+ * partitions unused for {@code tasktracker.storage.partition-idle-ms} are
+ * closed in the background. The default owner's partition stays open.
+ * Services that keep state per partition hear of each one as it opens
+ * through {@link #onOpen}, rather than opening every partition themselves.
+ */
+@Repository
+@Primary
+public class PartitionedTaskRepository implements TaskRepository {
+    /** Qualifies the backend store bean, which holds the default owner's partition. */
+    public static final String PARTITION = "taskPartition";
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionedTaskRepository.class);
+
+    private final Path dataDir;
+    private final TaskRepository defaultPartition;
+    private final int maxOpen;
+    private final long idleNanos;
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    // Owners with a partition directory, open or not
+    private final Set<String> stored = ConcurrentHashMap.newKeySet();
+    // Held while opening or closing, so a partition is never open twice over the same files
+    private final Object openLock = new Object();
+    private final List<BiConsumer<String, TaskRepository>> openListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService closer;
+
+    /**
+     * An open partition and the calls using it. Closing swaps the user count
+     * for {@link #CLOSED} while it is zero, so no call can start on a store
+     * that is being closed.
+     */
+    private static final class Partition {
+        private static final int CLOSED = -1;
+
+        private final String owner;
+        private final TaskRepository store;
+        private final AtomicInteger users = new AtomicInteger();
+        private volatile long lastUsed = System.nanoTime();
+
+        private Partition(String owner, TaskRepository store) {
+            this.owner = owner;
+            this.store = store;
+        }
+
+        private boolean tryAcquire() {
+            while (true) {
+                int current = users.get();
+                if (current == CLOSED) {
+                    return false;
+                }
+                if (users.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            lastUsed = System.nanoTime();
+            users.decrementAndGet();
+        }
+
+        private boolean tryClose() {
+            return users.compareAndSet(0, CLOSED);
+        }
+    }
+
+    public PartitionedTaskRepository(@Qualifier(PARTITION) TaskRepository defaultPartition,
+                                     @Value("${tasktracker.storage.data-dir:data}") String dataDir,
+                                     @Value("${tasktracker.storage.max-open-partitions:64}") int maxOpen,
+                                     @Value("${tasktracker.storage.partition-idle-ms:600000}") long idleMs,
+                                     MeterRegistry meterRegistry) {
+        this.dataDir = Paths.get(dataDir);
+        this.defaultPartition = defaultPartition;
+        this.maxOpen = Math.max(1, maxOpen);
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, idleMs));
+        partitions.put(TaskOwner.DEFAULT, new Partition(TaskOwner.DEFAULT, defaultPartition));
+        stored.add(TaskOwner.DEFAULT);
+        findExisting();
+
+        for (Task.TaskStatus status : Task.TaskStatus.values()) {
+            Gauge.builder("tasktracker.tasks", this, repository -> repository.countOpen(status))
+                .tag("status", status.name())
+                .description("Number of tasks by status in open partitions")
+                .register(meterRegistry);
+        }
+        Gauge.builder("tasktracker.storage.partitions", partitions, Map::size)
+            .description("Open task partitions")
+            .register(meterRegistry);
+
+        this.closer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-partition-closer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMs = Math.min(Math.max(1, idleMs), TimeUnit.MINUTES.toMillis(1));
+        closer.scheduleWithFixedDelay(this::closeIdle, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void findExisting() {
+        Path root = TaskOwner.partitionsDirectory(dataDir);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> dirs = Files.list(root)) {
+            dirs.filter(Files::isDirectory)
+                .map(dir -> dir.getFileName().toString())
+                .filter(name -> name.equals(TaskOwner.normalize(name)) && !name.equals(TaskOwner.DEFAULT))
+                .forEach(stored::add);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not list task partitions", e);
+        }
+        log.info("Found {} task partitions", stored.size());
+    }
+
+    /**
+     * Calls {@code listener} with the owner and store of every partition
+     * open now and of each one opened later, before any call can use it.
+     * The listener runs under the open lock and must not use this repository.
+     */
+    public void onOpen(BiConsumer<String, TaskRepository> listener) {
+        synchronized (openLock) {
+            openListeners.add(listener);
+            partitions.values().forEach(partition -> listener.accept(partition.owner, partition.store));
+        }
+    }
+
+    /**
+     * The current owner's partition in use by the caller, who releases it;
+     * null when the owner has none and {@code create} is false.
+     */
+    private Partition acquire(boolean create) {
+        String owner = TaskOwner.current();
+        while (true) {
+            Partition partition = partitions.get(owner);
+            if (partition == null) {
+                if (!create && !stored.contains(owner)) {
+                    return null;
+                }
+                partition = open(owner);
+            }
+            if (partition.tryAcquire()) {
+                return partition;
+            }
+            // Closed meanwhile; the next round opens it again
+        }
+    }
+
+    private Partition open(String owner) {
+        synchronized (openLock) {
+            Partition partition = partitions.get(owner);
+            if (partition != null) {
+                return partition;
+            }
+            if (partitions.size() >= maxOpen && !closeLeastRecentlyUsed()) {
+                throw new PartitionLimitException(maxOpen);
+            }
+            partition = new Partition(owner, defaultPartition.openPartition(TaskOwner.directory(dataDir, owner)));
+            for (BiConsumer<String, TaskRepository> listener : openListeners) {
+                try {
+                    listener.accept(owner, partition.store);
+                } catch (RuntimeException e) {
+                    log.warn("Open listener failed for the task partition of {}", owner, e);
+                }
+            }
+            stored.add(owner);
+            partitions.put(owner, partition);
+            return partition;
+        }
+    }
+
+    private boolean closeLeastRecentlyUsed() {
+        return partitions.values().stream()
+            .filter(partition -> partition.store != defaultPartition)
+            .sorted(Comparator.comparingLong(partition -> partition.lastUsed))
+            .anyMatch(this::tryClose);
+    }
+
+    private void closeIdle() {
+        long now = System.nanoTime();
+        synchronized (openLock) {
+            for (Partition partition : partitions.values()) {
+                if (partition.store != defaultPartition && now - partition.lastUsed > idleNanos) {
+                    tryClose(partition);
+                }
+            }
+        }
+    }
+
+    // Called under the open lock
+    private boolean tryClose(Partition partition) {
+        if (!partition.tryClose()) {
+            return false;
+        }
+        partitions.remove(partition.owner, partition);
+        try {
+            partition.store.close();
+        } catch (RuntimeException e) {
+            log.warn("Could not close the task partition of {}", partition.owner, e);
+        }
+        log.debug("Closed the task partition of {}", partition.owner);
+        return true;
+    }
+
+    private <T> T read(Function<TaskRepository, T> call) {
+        return call(false, call);
+    }
+
+    private <T> T write(Function<TaskRepository, T> call) {
+        return call(true, call);
+    }
+
+    private <T> T call(boolean create, Function<TaskRepository, T> call) {
+        Partition partition = acquire(create);
+        if (partition == null) {
+            return call.apply(EmptyTaskRepository.INSTANCE);
+        }
+        try {
+            return call.apply(partition.store);
+        } finally {
+            partition.release();
+        }
+    }
+
+    private <T> CompletableFuture<T> readAsync(Function<TaskRepository, CompletableFuture<T>> call) {
+        return callAsync(false, call);
+    }
+
+    private <T> CompletableFuture<T> writeAsync(Function<TaskRepository, CompletableFuture<T>> call) {
+        return callAsync(true, call);
+    }
+
+    // The partition stays in use until the operation completes
+    private <T> CompletableFuture<T> callAsync(boolean create, Function<TaskRepository, CompletableFuture<T>> call) {
+        Partition partition = acquire(create);
+        if (partition == null) {
+            return call.apply(EmptyTaskRepository.INSTANCE);
+        }
+        CompletableFuture<T> result;
+        try {
+            result = call.apply(partition.store);
+        } catch (RuntimeException e) {
+            partition.release();
+            throw e;
+        }
+        return result.whenComplete((value, error) -> partition.release());
+    }
+
+    private long countOpen(Task.TaskStatus status) {
+        long count = 0;
+        for (Partition partition : partitions.values()) {
+            if (partition.tryAcquire()) {
+                try {
+                    count += partition.store.countByStatus(status);
+                } finally {
+                    // Not a use: scrapes must not keep idle partitions open
+                    partition.users.decrementAndGet();
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return read(TaskRepository::getAllTasks);
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        Partition partition = acquire(false);
+        if (partition == null) {
+            return EmptyTaskRepository.INSTANCE.streamTasks();
+        }
+        // The partition stays in use until the stream is closed
+        try {
+            return partition.store.streamTasks().onClose(partition::release);
+        } catch (RuntimeException e) {
+            partition.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<Task> getTaskById(Long id) {
+        return read(partition -> partition.getTaskById(id));
+    }
+
+    @Override
+    public long count() {
+        return read(TaskRepository::count);
+    }
+
+    @Override
+    public long countByStatus(Task.TaskStatus status) {
+        return read(partition -> partition.countByStatus(status));
+    }
+
+    @Override
+    public long countByPriority(Task.TaskPriority priority) {
+        return read(partition -> partition.countByPriority(priority));
+    }
+
+    @Override
+    public TaskStatistics getStatistics() {
+        return read(TaskRepository::getStatistics);
+    }
+
+    @Override
+    public CompletableFuture<TaskStatistics> getStatisticsAsync() {
+        return readAsync(TaskRepository::getStatisticsAsync);
+    }
+
+    @Override
+    public TaskPage findTasks(TaskQuery query) {
+        return read(partition -> partition.findTasks(query));
+    }
+
+    @Override
+    public CompletableFuture<TaskPage> findTasksAsync(TaskQuery query) {
+        return readAsync(partition -> partition.findTasksAsync(query));
+    }
+
+    @Override
+    public TaskPage search(String text, TaskQuery query) {
+        return read(partition -> partition.search(text, query));
+    }
+
+    @Override
+    public CompletableFuture<TaskPage> searchAsync(String text, TaskQuery query) {
+        return readAsync(partition -> partition.searchAsync(text, query));
+    }
+
+    @Override
+    public long countCreatedAfter(LocalDateTime from) {
+        return read(partition -> partition.countCreatedAfter(from));
+    }
+
+    @Override
+    public CompletableFuture<Long> countCreatedAfterAsync(LocalDateTime from) {
+        return readAsync(partition -> partition.countCreatedAfterAsync(from));
+    }
+
+    @Override
+    public long countCompletedAfter(LocalDateTime from) {
+        return read(partition -> partition.countCompletedAfter(from));
+    }
+
+    @Override
+    public CompletableFuture<Long> countCompletedAfterAsync(LocalDateTime from) {
+        return readAsync(partition -> partition.countCompletedAfterAsync(from));
+    }
+
+    @Override
+    public List<Task> getTasksNewestFirst(int limit) {
+        return read(partition -> partition.getTasksNewestFirst(limit));
+    }
+
+    @Override
+    public List<Task> getRecentlyCompleted(int limit) {
+        return read(partition -> partition.getRecentlyCompleted(limit));
+    }
+
+    @Override
+    public List<Task> getOverdueTasks(LocalDateTime now, int limit) {
+        return read(partition -> partition.getOverdueTasks(now, limit));
+    }
+
+    @Override
+    public long countOverdue(LocalDateTime now) {
+        return read(partition -> partition.countOverdue(now));
+    }
+
+    @Override
+    public CompletableFuture<Long> countOverdueAsync(LocalDateTime now) {
+        return readAsync(partition -> partition.countOverdueAsync(now));
+    }
+
+    @Override
+    public Map<Task.TaskPriority, Long> countOverdueByPriority(LocalDateTime now) {
+        return read(partition -> partition.countOverdueByPriority(now));
+    }
+
+    @Override
+    public CompletableFuture<Map<Task.TaskPriority, Long>> countOverdueByPriorityAsync(LocalDateTime now) {
+        return readAsync(partition -> partition.countOverdueByPriorityAsync(now));
+    }
+
+    @Override
+    public List<WeeklyCompletion> getWeeklyCompletion(LocalDate firstWeek, int weeks) {
+        return read(partition -> partition.getWeeklyCompletion(firstWeek, weeks));
+    }
+
+    @Override
+    public CompletableFuture<List<WeeklyCompletion>> getWeeklyCompletionAsync(LocalDate firstWeek, int weeks) {
+        return readAsync(partition -> partition.getWeeklyCompletionAsync(firstWeek, weeks));
+    }
+
+    @Override
+    public List<Task> getOpenTasksWithDueDate() {
+        return read(TaskRepository::getOpenTasksWithDueDate);
+    }
+
+    @Override
+    public Task saveTask(Task task) {
+        return write(partition -> partition.saveTask(task));
+    }
+
+    @Override
+    public CompletableFuture<Task> saveTaskAsync(Task task) {
+        return writeAsync(partition -> partition.saveTaskAsync(task));
+    }
+
+    @Override
+    public List<Task> saveAll(List<Task> batch) {
+        return write(partition -> partition.saveAll(batch));
+    }
+
+    @Override
+    public CompletableFuture<List<Task>> saveAllAsync(List<Task> batch) {
+        return writeAsync(partition -> partition.saveAllAsync(batch));
+    }
+
+    @Override
+    public void deleteTask(Long id) {
+        read(partition -> {
+            partition.deleteTask(id);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteTaskAsync(Long id) {
+        return readAsync(partition -> partition.deleteTaskAsync(id));
+    }
+
+    @Override
+    public List<Task> updateAll(Collection<Long> ids, Consumer<Task> mutation) {
+        return read(partition -> partition.updateAll(ids, mutation));
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        return read(partition -> partition.deleteByIds(ids));
+    }
+
+    @Override
+    public void truncate() {
+        read(partition -> {
+            partition.truncate();
+            return null;
+        });
+    }
+
+    @Override
+    public long getDataVersion() {
+        return read(TaskRepository::getDataVersion);
+    }
+
+    @Override
+    public long getDataEpoch() {
+        return read(TaskRepository::getDataEpoch);
+    }
+
+    @Override
+    public long getLastModified() {
+        return read(TaskRepository::getLastModified);
+    }
+
+    @Override
+    public TaskRepository openPartition(Path dataDir) {
+        return defaultPartition.openPartition(dataDir);
+    }
+
+    // The default partition is a bean of its own and is closed with the context
+    @Override
+    @PreDestroy
+    public void close() {
+        closer.shutdownNow();
+        synchronized (openLock) {
+            partitions.values().forEach(partition -> {
+                if (partition.store != defaultPartition) {
+                    try {
+                        partition.store.close();
+                    } catch (RuntimeException e) {
+                        log.warn("Could not close the task partition of {}", partition.owner, e);
+                    }
+                }
+            });
+            partitions.clear();
+        }
+    }
+}
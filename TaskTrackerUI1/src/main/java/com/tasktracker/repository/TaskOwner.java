@@ -0,0 +1,74 @@
+package com.tasktracker.repository;
+
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+/**
+ * The owner whose task partition the current thread works on. Requests get
+ * theirs from the owner filter; code running outside a request is in the
+ * {@link #DEFAULT} owner's partition unless it opens a scope itself.
+ */
+public final class TaskOwner {
+    public static final String DEFAULT = "default";
+    private static final String PARTITIONS_DIR = "owners";
+    private static final Pattern VALID = Pattern.compile("[a-z0-9][a-z0-9_-]{0,63}");
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    /** Restores the previous owner when closed. */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private TaskOwner() {
+    }
+
+    public static String current() {
+        String owner = CURRENT.get();
+        return owner != null ? owner : DEFAULT;
+    }
+
+    public static Scope use(String owner) {
+        String previous = CURRENT.get();
+        CURRENT.set(owner);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    // Runs the task in the owner of the thread that submitted it
+    public static Runnable propagate(Runnable task) {
+        String owner = current();
+        return () -> {
+            try (Scope ignored = use(owner)) {
+                task.run();
+            }
+        };
+    }
+
+    // Lower-cased owner name, or null if it cannot name a partition
+    public static String normalize(String owner) {
+        if (owner == null) {
+            return null;
+        }
+        String normalized = owner.trim().toLowerCase();
+        return VALID.matcher(normalized).matches() ? normalized : null;
+    }
+
+    /**
+     * Where an owner's partition keeps its files. The default owner uses the
+     * data directory itself, so a store from before partitioning is its
+     * partition.
+     */
+    public static Path directory(Path dataDir, String owner) {
+        return owner.equals(DEFAULT) ? dataDir : dataDir.resolve(PARTITIONS_DIR).resolve(owner);
+    }
+
+    static Path partitionsDirectory(Path dataDir) {
+        return dataDir.resolve(PARTITIONS_DIR);
+    }
+}
@@ -0,0 +1,138 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+import com.tasktracker.model.TaskStatistics;
+import com.tasktracker.model.WeeklyCompletion;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Persistent task storage. {@code tasktracker.storage.backend} selects the
+ * implementation: {@code file} (the default) is the in-memory store with a
+ * journal and snapshot in the data directory, {@code jdbc} an embedded H2
+ * database that answers queries and aggregates in SQL.
+ *
+ * <p>Tasks handed out are copies. Writes assign ids to tasks without one and
+ * increment {@code version}; a non-null version on a saved task is checked
+ * against the stored one (0 when absent) and a mismatch raises
+ * {@link com.tasktracker.service.StaleTaskException}.
+ *
+ * <p>Each store holds one owner's partition; {@link PartitionedTaskRepository}
+ * routes calls to the current {@link TaskOwner}'s.
+ */
+public interface TaskRepository extends AutoCloseable {
+
+    List<Task> getAllTasks();
+
+    // Must be closed; the JDBC store holds a connection until it is
+    Stream<Task> streamTasks();
+
+    Optional<Task> getTaskById(Long id);
+
+    long count();
+
+    long countByStatus(Task.TaskStatus status);
+
+    long countByPriority(Task.TaskPriority priority);
+
+    TaskStatistics getStatistics();
+
+    CompletableFuture<TaskStatistics> getStatisticsAsync();
+
+    TaskPage findTasks(TaskQuery query);
+
+    CompletableFuture<TaskPage> findTasksAsync(TaskQuery query);
+
+    /**
+     * Full-text search ranked by relevance. The query's status and priority
+     * filters and page/size apply; its sort order and cursor do not.
+     */
+    TaskPage search(String text, TaskQuery query);
+
+    CompletableFuture<TaskPage> searchAsync(String text, TaskQuery query);
+
+    long countCreatedAfter(LocalDateTime from);
+
+    CompletableFuture<Long> countCreatedAfterAsync(LocalDateTime from);
+
+    long countCompletedAfter(LocalDateTime from);
+
+    CompletableFuture<Long> countCompletedAfterAsync(LocalDateTime from);
+
+    List<Task> getTasksNewestFirst(int limit);
+
+    List<Task> getRecentlyCompleted(int limit);
+
+    // Open tasks due before now, most overdue first
+    List<Task> getOverdueTasks(LocalDateTime now, int limit);
+
+    long countOverdue(LocalDateTime now);
+
+    CompletableFuture<Long> countOverdueAsync(LocalDateTime now);
+
+    // Overdue tasks by priority, all priorities present
+    Map<Task.TaskPriority, Long> countOverdueByPriority(LocalDateTime now);
+
+    CompletableFuture<Map<Task.TaskPriority, Long>> countOverdueByPriorityAsync(LocalDateTime now);
+
+    /**
+     * One entry per week for {@code weeks} weeks starting at midnight on
+     * {@code firstWeek}, oldest first.
+     */
+    List<WeeklyCompletion> getWeeklyCompletion(LocalDate firstWeek, int weeks);
+
+    CompletableFuture<List<WeeklyCompletion>> getWeeklyCompletionAsync(LocalDate firstWeek, int weeks);
+
+    List<Task> getOpenTasksWithDueDate();
+
+    Task saveTask(Task task);
+
+    CompletableFuture<Task> saveTaskAsync(Task task);
+
+    // Stores a whole batch at once; stored versions are not checked
+    List<Task> saveAll(List<Task> batch);
+
+    CompletableFuture<List<Task>> saveAllAsync(List<Task> batch);
+
+    void deleteTask(Long id);
+
+    CompletableFuture<Void> deleteTaskAsync(Long id);
+
+    /**
+     * Applies {@code mutation} to a copy of every listed task that exists and
+     * stores the results as one batch. Returns the updated tasks.
+     */
+    List<Task> updateAll(Collection<Long> ids, Consumer<Task> mutation);
+
+    int deleteByIds(Collection<Long> ids);
+
+    void truncate();
+
+    /**
+     * Bumped by every mutation. Versions restart with the process, so they
+     * are only comparable within one epoch (the start time).
+     */
+    long getDataVersion();
+
+    long getDataEpoch();
+
+    // Wall-clock time of the last mutation, in epoch milliseconds
+    long getLastModified();
+
+    // Another store of the same kind and settings over dataDir; the caller closes it
+    TaskRepository openPartition(Path dataDir);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,222 @@
+package com.tasktracker.service;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.tasktracker.model.ActivityEvent;
+import com.tasktracker.model.Task;
+import com.tasktracker.repository.TaskOwner;
+import com.tasktracker.repository.TaskRepository;
+import com.tasktracker.storage.TaskGson;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The most recent task events of each owner, newest first, in fixed-size
+ * ring buffers. Recording and reading the last K events never touch the
+ * task store. Each owner's buffer is written behind to activity.json in
+ * its partition directory on the store's flush interval, and dropped from
+ * memory once saved and unused for the partition idle time.
+ */
+@Service
+public class ActivityFeed {
+    private static final Logger log = LoggerFactory.getLogger(ActivityFeed.class);
+    private static final String ACTIVITY_FILE = "activity.json";
+    private static final String ACTIVITY_TMP_FILE = "activity.json.tmp";
+
+    private final Path dataDir;
+    private final int capacity;
+    private final long idleMs;
+    private final TaskRepository storageService;
+    private final Gson gson;
+    private final Map<String, OwnerFeed> feeds = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer;
+
+    public ActivityFeed(@Value("${tasktracker.storage.data-dir:data}") String dataDir,
+                        @Value("${tasktracker.storage.flush-interval-ms:1000}") long flushIntervalMs,
+                        @Value("${tasktracker.activity.capacity:100}") int capacity,
+                        @Value("${tasktracker.storage.partition-idle-ms:600000}") long idleMs,
+                        TaskRepository storageService) {
+        this.dataDir = Paths.get(dataDir);
+        this.capacity = Math.max(1, capacity);
+        this.idleMs = idleMs;
+        this.storageService = storageService;
+        this.gson = TaskGson.builder().create();
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "activity-feed-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::saveIfDirty, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Loaded on first use, in the owner's scope so a missing file is seeded from the right partition
+    private OwnerFeed load(String owner, OwnerFeed feed) {
+        OwnerFeed loaded = feed != null ? feed : new OwnerFeed(TaskOwner.directory(dataDir, owner));
+        loaded.lastUsed = System.currentTimeMillis();
+        return loaded;
+    }
+
+    // Recording runs inside compute, so a feed cannot be dropped between lookup and record
+    public void record(ActivityEvent event) {
+        feeds.compute(TaskOwner.current(), (owner, feed) -> {
+            OwnerFeed loaded = load(owner, feed);
+            loaded.record(event);
+            return loaded;
+        });
+    }
+
+    public void recordAll(List<ActivityEvent> events) {
+        feeds.compute(TaskOwner.current(), (owner, feed) -> {
+            OwnerFeed loaded = load(owner, feed);
+            loaded.recordAll(events);
+            return loaded;
+        });
+    }
+
+    public List<ActivityEvent> recent(int limit) {
+        String owner = TaskOwner.current();
+        // An owner with neither a saved feed nor tasks has nothing to show or seed
+        if (!feeds.containsKey(owner) && storageService.count() == 0
+                && !Files.exists(TaskOwner.directory(dataDir, owner).resolve(ACTIVITY_FILE))) {
+            return new ArrayList<>();
+        }
+        return feeds.compute(owner, this::load).recent(limit);
+    }
+
+    private void saveIfDirty() {
+        feeds.values().forEach(OwnerFeed::saveIfDirty);
+        long idleSince = System.currentTimeMillis() - idleMs;
+        for (String owner : feeds.keySet()) {
+            feeds.computeIfPresent(owner, (o, feed) -> feed.lastUsed < idleSince && feed.isClean() ? null : feed);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        writer.shutdown();
+        saveIfDirty();
+    }
+
+    private final class OwnerFeed {
+        private final Path dir;
+        private final Path activityPath;
+        private final ActivityEvent[] ring = new ActivityEvent[capacity];
+        private final Object saveLock = new Object();
+        private int head;
+        private int size;
+        private boolean dirty;
+        private volatile long lastUsed;
+
+        private OwnerFeed(Path dir) {
+            this.dir = dir;
+            this.activityPath = dir.resolve(ACTIVITY_FILE);
+            if (Files.exists(activityPath)) {
+                load().forEach(this::record);
+                dirty = false;
+            } else {
+                seed();
+            }
+        }
+
+        // Stores that predate the feed get their creations and completions back-filled once;
+        // a completion imported without a date leaves nothing to place in the feed
+        private void seed() {
+            List<ActivityEvent> events = new ArrayList<>();
+            for (Task task : storageService.getTasksNewestFirst(ring.length)) {
+                if (task.getCreatedAt() != null) {
+                    events.add(ActivityEvent.created(task, task.getCreatedAt()));
+                }
+            }
+            for (Task task : storageService.getRecentlyCompleted(ring.length)) {
+                if (task.getCompletedAt() != null) {
+                    events.add(ActivityEvent.transition(task, null, task.getCompletedAt()));
+                }
+            }
+            events.sort(Comparator.comparing(ActivityEvent::getDate));
+            events.forEach(this::record);
+        }
+
+        private synchronized void record(ActivityEvent event) {
+            ring[head] = event;
+            head = (head + 1) % ring.length;
+            if (size < ring.length) {
+                size++;
+            }
+            dirty = true;
+        }
+
+        private synchronized void recordAll(List<ActivityEvent> events) {
+            events.forEach(this::record);
+        }
+
+        private synchronized boolean isClean() {
+            return !dirty;
+        }
+
+        private synchronized List<ActivityEvent> recent(int limit) {
+            int count = Math.min(limit, size);
+            List<ActivityEvent> result = new ArrayList<>(count);
+            for (int i = 1; i <= count; i++) {
+                result.add(ring[Math.floorMod(head - i, ring.length)]);
+            }
+            return result;
+        }
+
+        private List<ActivityEvent> load() {
+            try (Reader reader = Files.newBufferedReader(activityPath, StandardCharsets.UTF_8)) {
+                Type listType = new TypeToken<List<ActivityEvent>>(){}.getType();
+                List<ActivityEvent> loaded = gson.fromJson(reader, listType);
+                return loaded != null ? loaded : new ArrayList<>();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not read activity feed", e);
+            }
+        }
+
+        private void saveIfDirty() {
+            synchronized (saveLock) {
+                List<ActivityEvent> snapshot;
+                synchronized (this) {
+                    if (!dirty) {
+                        return;
+                    }
+                    snapshot = recent(size);
+                    dirty = false;
+                }
+                Collections.reverse(snapshot);
+                try {
+                    Files.createDirectories(dir);
+                    Path tmpPath = dir.resolve(ACTIVITY_TMP_FILE);
+                    Files.writeString(tmpPath, gson.toJson(snapshot));
+                    Files.move(tmpPath, activityPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    synchronized (this) {
+                        dirty = true;
+                    }
+                    log.error("Could not save activity feed to {}, will retry", activityPath, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskChange;
+import com.tasktracker.repository.TaskOwner;
+import com.tasktracker.repository.TaskRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Sequenced stream of task mutations for live views. {@link TaskService}
+ * publishes every change into a fixed-size ring buffer; each subscriber is
+ * drained from the buffer on the feed's own sender threads, so a slow client
+ * never holds up a writer or the storage executor, and a reconnecting one
+ * resumes from its last position.
+ * A subscriber that fell out of the buffer, or whose position is from
+ * before a restart, is told to reset and reload instead. Positions are
+ * shared by all owners; a subscriber only receives its own owner's changes.
+ */
+@Service
+public class ChangeFeed {
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+    private static final int MAX_BATCH = 100;
+
+    /** Receives changes for one client, always from a single thread at a time. */
+    public interface Subscriber {
+        void send(List<TaskChange> changes) throws IOException;
+
+        // The client's view cannot be brought up to date from the feed and has to be reloaded
+        void reset(String position) throws IOException;
+
+        void heartbeat() throws IOException;
+    }
+
+    private final TaskRepository storageService;
+    private final ExecutorService senders;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private record Published(String owner, TaskChange change) {}
+
+    private final Published[] ring;
+    private long lastSeq;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService heartbeats;
+    private final Counter published;
+
+    public ChangeFeed(TaskRepository storageService,
+                      @Value("${tasktracker.changes.sender-threads:4}") int senderThreads,
+                      @Value("${tasktracker.changes.capacity:1000}") int capacity,
+                      @Value("${tasktracker.changes.heartbeat-ms:15000}") long heartbeatMs,
+                      MeterRegistry meterRegistry) {
+        this.storageService = storageService;
+        // Sends block on the client's socket, so slow clients only hold up each other
+        AtomicInteger senderCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, senderThreads), runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-sender-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ring = new Published[Math.max(1, capacity)];
+        this.published = Counter.builder("tasktracker.changes.published")
+            .description("Task changes published to the change feed")
+            .register(meterRegistry);
+        Gauge.builder("tasktracker.changes.subscribers", subscriptions, Set::size)
+            .description("Open change feed subscriptions")
+            .register(meterRegistry);
+
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void created(Task task) {
+        publish(TaskChange.Type.CREATED, List.of(task), t -> null);
+    }
+
+    public void createdAll(Collection<Task> tasks) {
+        publish(TaskChange.Type.CREATED, tasks, t -> null);
+    }
+
+    public void updated(Task task, Task.TaskStatus previousStatus) {
+        publish(TaskChange.Type.UPDATED, List.of(task), t -> previousStatus);
+    }
+
+    public void updatedAll(Collection<Task> tasks, Map<Long, Task.TaskStatus> previousStatus) {
+        publish(TaskChange.Type.UPDATED, tasks, t -> previousStatus.get(t.getId()));
+    }
+
+    public void deleted(Task task) {
+        deletedAll(List.of(task));
+    }
+
+    public void deletedAll(Collection<Task> tasks) {
+        publish(TaskChange.Type.DELETED, tasks, Task::getStatus);
+    }
+
+    public void cleared() {
+        publish(TaskChange.Type.CLEARED, Collections.singletonList(null), t -> null);
+    }
+
+    private void publish(TaskChange.Type type, Collection<Task> tasks, Function<Task, Task.TaskStatus> previousStatus) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String owner = TaskOwner.current();
+        synchronized (this) {
+            // Read under the lock so counts never go backwards in sequence order
+            Map<Task.TaskStatus, Long> statusCounts = new EnumMap<>(Task.TaskStatus.class);
+            for (Task.TaskStatus status : Task.TaskStatus.values()) {
+                statusCounts.put(status, storageService.countByStatus(status));
+            }
+            Map<Task.TaskPriority, Long> priorityCounts = new EnumMap<>(Task.TaskPriority.class);
+            for (Task.TaskPriority priority : Task.TaskPriority.values()) {
+                priorityCounts.put(priority, storageService.countByPriority(priority));
+            }
+            // Of a batch larger than the buffer only the tail could ever be delivered
+            long skip = Math.max(0, tasks.size() - ring.length);
+            for (Task task : tasks) {
+                long seq = ++lastSeq;
+                if (skip-- > 0) {
+                    continue;
+                }
+                ring[(int) (seq % ring.length)] = new Published(owner, new TaskChange(seq, type, task,
+                    task != null ? previousStatus.apply(task) : null, now, statusCounts, priorityCounts));
+            }
+        }
+        published.increment(tasks.size());
+        subscriptions.forEach(Subscription::signal);
+    }
+
+    /** The feed's current position, for a view to resume from. */
+    public synchronized String position() {
+        return position(lastSeq);
+    }
+
+    public String position(long seq) {
+        return epoch + "." + seq;
+    }
+
+    /**
+     * Starts delivering changes after {@code position} (as returned by
+     * {@link #position()} or carried by a delivered change), or only new
+     * changes when it is null. The subscriber gets the current owner's changes.
+     */
+    public Subscription subscribe(String position, Subscriber subscriber) {
+        String owner = TaskOwner.current();
+        Subscription subscription;
+        synchronized (this) {
+            long after = parse(position);
+            subscription = after >= 0
+                ? new Subscription(owner, subscriber, after, false)
+                : new Subscription(owner, subscriber, lastSeq, true);
+        }
+        subscriptions.add(subscription);
+        subscription.signal();
+        return subscription;
+    }
+
+    // -1 when the position cannot be resumed from
+    private long parse(String position) {
+        if (position == null || position.isBlank()) {
+            return lastSeq;
+        }
+        int dot = position.indexOf('.');
+        if (dot < 0 || !position.substring(0, dot).equals(epoch)) {
+            return -1;
+        }
+        try {
+            long seq = Long.parseLong(position.substring(dot + 1));
+            return seq <= lastSeq && seq >= oldestResumable() ? seq : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private long oldestResumable() {
+        return Math.max(0, lastSeq - ring.length);
+    }
+
+    // Changes after seq, or null if some of them have already been overwritten
+    private synchronized List<Published> after(long seq) {
+        if (seq < oldestResumable()) {
+            return null;
+        }
+        long to = Math.min(lastSeq, seq + MAX_BATCH);
+        List<Published> changes = new ArrayList<>((int) (to - seq));
+        for (long s = seq + 1; s <= to; s++) {
+            changes.add(ring[(int) (s % ring.length)]);
+        }
+        return changes;
+    }
+
+    private synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    private void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            subscription.heartbeatDue = true;
+            subscription.signal();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        subscriptions.forEach(Subscription::close);
+        senders.shutdownNow();
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private final String owner;
+        private final Subscriber subscriber;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long sentSeq;
+        private volatile boolean resetPending;
+        private volatile boolean heartbeatDue;
+        private volatile boolean closed;
+
+        private Subscription(String owner, Subscriber subscriber, long sentSeq, boolean resetPending) {
+            this.owner = owner;
+            this.subscriber = subscriber;
+            this.sentSeq = sentSeq;
+            this.resetPending = resetPending;
+        }
+
+        private void signal() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false);
+                    log.warn("Could not schedule change feed delivery", e);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                boolean sent = false;
+                while (!closed) {
+                    if (resetPending) {
+                        resetPending = false;
+                        sentSeq = lastSeq();
+                        subscriber.reset(position(sentSeq));
+                        sent = true;
+                        continue;
+                    }
+                    List<Published> published = after(sentSeq);
+                    if (published == null) {
+                        resetPending = true;
+                        continue;
+                    }
+                    if (published.isEmpty()) {
+                        break;
+                    }
+                    List<TaskChange> changes = new ArrayList<>(published.size());
+                    for (Published entry : published) {
+                        if (entry.owner().equals(owner)) {
+                            changes.add(entry.change());
+                        }
+                    }
+                    if (!changes.isEmpty()) {
+                        subscriber.send(changes);
+                        sent = true;
+                    }
+                    sentSeq = published.get(published.size() - 1).change().getSeq();
+                }
+                if (heartbeatDue && !closed) {
+                    heartbeatDue = false;
+                    if (!sent) {
+                        subscriber.heartbeat();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Closing change feed subscription: {}", e.toString());
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // Changes published while the flag was still set would otherwise wait for the next one
+            if (!closed && (resetPending || sentSeq < lastSeq())) {
+                signal();
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+    }
+}
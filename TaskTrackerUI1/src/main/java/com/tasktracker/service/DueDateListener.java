@@ -0,0 +1,13 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.DueDateEvent;
+
+/**
+ * Receives reminder and overdue events from the {@link DueDateScheduler}.
+ * Every bean implementing this interface is registered; listeners are
+ * called on the scheduler thread and should not block.
+ */
+public interface DueDateListener {
+
+    void onDueDate(DueDateEvent event);
+}
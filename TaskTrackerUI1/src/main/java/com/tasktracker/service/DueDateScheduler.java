@@ -0,0 +1,256 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.DueDateEvent;
+import com.tasktracker.model.Task;
+import com.tasktracker.repository.PartitionedTaskRepository;
+import com.tasktracker.repository.TaskOwner;
+import com.tasktracker.repository.TaskRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fires a reminder shortly before and an overdue event at the due date of
+ * every open task. Pending events sit in a delay queue ordered by firing
+ * time, so each tick only looks at the head; a partition's open due-date
+ * index is loaded into the queue when the partition opens, and the queue is
+ * kept current by {@link TaskService}. Owners whose partition has not been
+ * opened since startup get no events until it is, and due dates that had
+ * already passed when a partition opened are not re-announced. Events are
+ * delivered in the task owner's scope.
+ */
+@Service
+public class DueDateScheduler {
+    private static final Logger log = LoggerFactory.getLogger(DueDateScheduler.class);
+
+    private record Key(String owner, long taskId) {}
+
+    private record Entry(LocalDateTime at, Key key, DueDateEvent.Type type, LocalDateTime dueDate) {}
+
+    private record Scheduled(LocalDateTime dueDate, long version) {}
+
+    private static final Comparator<Entry> FIRING_ORDER = Comparator.comparing(Entry::at)
+        .thenComparing(entry -> entry.key().owner())
+        .thenComparingLong(entry -> entry.key().taskId())
+        .thenComparing(Entry::type);
+
+    private final PartitionedTaskRepository storageService;
+    private final List<DueDateListener> listeners;
+    private final Duration reminderLead;
+    private final NavigableSet<Entry> queue = new TreeSet<>(FIRING_ORDER);
+    // The due date and task version each open task is scheduled for, including ones that already fired
+    private final Map<Key, Scheduled> scheduled = new HashMap<>();
+    private final Map<DueDateEvent.Type, Counter> fired = new EnumMap<>(DueDateEvent.Type.class);
+    private final ScheduledExecutorService timer;
+    // Firing moves a task into the overdue lists without any mutation, so views showing them track this too
+    private final AtomicLong firedCount = new AtomicLong();
+    private volatile long lastFiredAt = System.currentTimeMillis();
+
+    public DueDateScheduler(PartitionedTaskRepository storageService,
+                            List<DueDateListener> listeners,
+                            @Value("${tasktracker.reminders.lead-minutes:60}") long reminderLeadMinutes,
+                            @Value("${tasktracker.reminders.tick-ms:1000}") long tickMs,
+                            MeterRegistry meterRegistry) {
+        this.storageService = storageService;
+        this.listeners = listeners;
+        this.reminderLead = Duration.ofMinutes(Math.max(0, reminderLeadMinutes));
+        for (DueDateEvent.Type type : DueDateEvent.Type.values()) {
+            fired.put(type, Counter.builder("tasktracker.reminders.fired")
+                .tag("type", type.name())
+                .description("Due date events delivered to listeners")
+                .register(meterRegistry));
+        }
+        Gauge.builder("tasktracker.reminders.scheduled", this, DueDateScheduler::pendingCount)
+            .description("Due date events waiting to fire")
+            .register(meterRegistry);
+
+        storageService.onOpen(this::load);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "due-date-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    // A partition reopened after an idle close keeps the events it already had, fired or not
+    private synchronized void load(String owner, TaskRepository partition) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Task task : partition.getOpenTasksWithDueDate()) {
+            Key key = new Key(owner, task.getId());
+            Scheduled current = scheduled.get(key);
+            if (current != null && (isOutdated(task, current) || task.getDueDate().equals(current.dueDate()))) {
+                continue;
+            }
+            unschedule(key);
+            scheduled.put(key, new Scheduled(task.getDueDate(), versionOf(task)));
+            if (task.getDueDate().isAfter(now)) {
+                enqueue(key, task.getDueDate(), now);
+            }
+        }
+    }
+
+    /**
+     * Brings a task's pending events in line with its current due date and
+     * status. Unrelated edits leave already-fired events alone, and so does
+     * a save that arrives after a newer one of the same task. Tasks are
+     * those of the current owner, here and in the other scheduling calls.
+     */
+    public synchronized void schedule(Task task) {
+        schedule(new Key(TaskOwner.current(), task.getId()), task);
+    }
+
+    private void schedule(Key key, Task task) {
+        Scheduled current = scheduled.get(key);
+        // Saves run outside this lock, so two of them can report in either order
+        if (current != null && isOutdated(task, current)) {
+            return;
+        }
+        LocalDateTime dueDate = task.getStatus() != Task.TaskStatus.COMPLETED ? task.getDueDate() : null;
+        if (current != null && Objects.equals(current.dueDate(), dueDate)) {
+            scheduled.put(key, new Scheduled(dueDate, versionOf(task)));
+            return;
+        }
+        unschedule(key);
+        if (dueDate != null) {
+            scheduled.put(key, new Scheduled(dueDate, versionOf(task)));
+            enqueue(key, dueDate, LocalDateTime.now());
+        }
+    }
+
+    // Tasks without a version, as from a store that does not keep them, always count as current
+    private static long versionOf(Task task) {
+        return task.getVersion() != null ? task.getVersion() : 0;
+    }
+
+    private static boolean isOutdated(Task task, Scheduled current) {
+        return task.getVersion() != null && task.getVersion() < current.version();
+    }
+
+    public synchronized void scheduleAll(Collection<Task> tasks) {
+        tasks.forEach(this::schedule);
+    }
+
+    public synchronized void unschedule(Long id) {
+        unschedule(new Key(TaskOwner.current(), id));
+    }
+
+    private void unschedule(Key key) {
+        Scheduled removed = scheduled.remove(key);
+        if (removed != null) {
+            LocalDateTime dueDate = removed.dueDate();
+            queue.remove(new Entry(dueDate.minus(reminderLead), key, DueDateEvent.Type.REMINDER, dueDate));
+            queue.remove(new Entry(dueDate, key, DueDateEvent.Type.OVERDUE, dueDate));
+        }
+    }
+
+    public synchronized void unscheduleAll(Collection<Long> ids) {
+        ids.forEach(this::unschedule);
+    }
+
+    public synchronized void clear() {
+        String owner = TaskOwner.current();
+        queue.removeIf(entry -> entry.key().owner().equals(owner));
+        scheduled.keySet().removeIf(key -> key.owner().equals(owner));
+    }
+
+    private void enqueue(Key key, LocalDateTime dueDate, LocalDateTime now) {
+        // A task that is already late only gets the overdue event
+        if (!reminderLead.isZero() && dueDate.isAfter(now)) {
+            queue.add(new Entry(dueDate.minus(reminderLead), key, DueDateEvent.Type.REMINDER, dueDate));
+        }
+        queue.add(new Entry(dueDate, key, DueDateEvent.Type.OVERDUE, dueDate));
+    }
+
+    private synchronized int pendingCount() {
+        return queue.size();
+    }
+
+    private void tick() {
+        try {
+            fireDue(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.error("Due date tick failed", e);
+        }
+    }
+
+    // Package-private so tests can fire at a chosen time instead of waiting for the tick
+    void fireDue(LocalDateTime now) {
+        List<Entry> due = new ArrayList<>();
+        synchronized (this) {
+            while (!queue.isEmpty() && !queue.first().at().isAfter(now)) {
+                due.add(queue.pollFirst());
+            }
+        }
+        for (Entry entry : due) {
+            try (TaskOwner.Scope ignored = TaskOwner.use(entry.key().owner())) {
+                Optional<Task> task = storageService.getTaskById(entry.key().taskId());
+                if (task.isEmpty() || task.get().getStatus() == Task.TaskStatus.COMPLETED
+                        || !entry.dueDate().equals(task.get().getDueDate())) {
+                    // The task changed after this entry was queued; line its events up with what is stored
+                    reconcile(entry.key(), task.orElse(null));
+                    continue;
+                }
+                publish(new DueDateEvent(entry.type(), entry.key().owner(), entry.key().taskId(),
+                    task.get().getTitle(), entry.dueDate(), now));
+            }
+        }
+    }
+
+    private synchronized void reconcile(Key key, Task stored) {
+        if (stored == null) {
+            unschedule(key);
+        } else {
+            schedule(key, stored);
+        }
+    }
+
+    private void publish(DueDateEvent event) {
+        fired.get(event.getType()).increment();
+        firedCount.incrementAndGet();
+        lastFiredAt = System.currentTimeMillis();
+        for (DueDateListener listener : listeners) {
+            try {
+                listener.onDueDate(event);
+            } catch (RuntimeException e) {
+                log.error("Due date listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    public long getFiredCount() {
+        return firedCount.get();
+    }
+
+    public long getLastFiredAt() {
+        return lastFiredAt;
+    }
+
+    @PreDestroy
+    public void close() {
+        timer.shutdown();
+    }
+}
@@ -1,82 +1,155 @@
 package com.tasktracker.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.opencsv.CSVReader;
 import com.opencsv.CSVWriter;
 import com.tasktracker.model.Task;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ExportImportService {
     
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
     
-    public ExportImportService() {
+    public ExportImportService(MeterRegistry meterRegistry,
+                               @Value("${tasktracker.import.batch-size:1000}") int batchSize) {
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
+        this.meterRegistry = meterRegistry;
+        this.batchSize = Math.max(1, batchSize);
     }
     
-    public String exportToJson(List<Task> tasks) {
-        try {
-            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(tasks);
-        } catch (Exception e) {
-            throw new RuntimeException("Error exporting to JSON: " + e.getMessage());
+    private void record(String direction, String format, Timer.Sample sample, long rows) {
+        sample.stop(Timer.builder("tasktracker." + direction)
+            .tag("format", format)
+            .description("Time spent on a whole " + direction)
+            .register(meterRegistry));
+        Counter.builder("tasktracker." + direction + ".rows")
+            .tag("format", format)
+            .description("Tasks processed by " + direction + "s")
+            .register(meterRegistry)
+            .increment(rows);
+    }
+    
+    public long writeJson(Stream<Task> tasks, OutputStream out) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long rows = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartArray();
+            Iterator<Task> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                // Unlike objectMapper.writeValue, this does not flush the stream after every task
+                generator.writeObject(iterator.next());
+                rows++;
+            }
+            generator.writeEndArray();
+        } finally {
+            record("export", "json", sample, rows);
         }
+        return rows;
     }
     
-    public String exportToCsv(List<Task> tasks) {
-        try {
-            StringWriter sw = new StringWriter();
-            CSVWriter csvWriter = new CSVWriter(sw);
-            
+    public long writeCsv(Stream<Task> tasks, OutputStream out) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long rows = 0;
+        try (CSVWriter csvWriter = new CSVWriter(
+                new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)))) {
             String[] header = {"ID", "Title", "Description", "Status", "Priority", "Created At", "Due Date"};
             csvWriter.writeNext(header);
             
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
             
-            for (Task task : tasks) {
+            Iterator<Task> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                Task task = iterator.next();
                 String[] row = {
                     task.getId() != null ? task.getId().toString() : "",
                     task.getTitle(),
                     task.getDescription() != null ? task.getDescription() : "",
                     task.getStatus().toString(),
                     task.getPriority().toString(),
-                    task.getCreatedAt().format(formatter),
+                    task.getCreatedAt() != null ? task.getCreatedAt().format(formatter) : "",
                     task.getDueDate() != null ? task.getDueDate().format(formatter) : ""
                 };
                 csvWriter.writeNext(row);
+                rows++;
             }
-            
-            csvWriter.close();
-            return sw.toString();
-        } catch (Exception e) {
-            throw new RuntimeException("Error exporting to CSV: " + e.getMessage());
+        } finally {
+            record("export", "csv", sample, rows);
         }
+        return rows;
     }
     
-    public List<Task> importFromJson(MultipartFile file) {
-        try {
-            String content = new String(file.getBytes());
-            return objectMapper.readValue(content, 
-                objectMapper.getTypeFactory().constructCollectionType(List.class, Task.class));
-        } catch (Exception e) {
+    public long importFromJson(MultipartFile file, Consumer<List<Task>> sink) {
+        try (InputStream in = file.getInputStream()) {
+            return importFromJson(in, sink);
+        } catch (IOException e) {
             throw new RuntimeException("Error importing from JSON: " + e.getMessage());
         }
     }
     
-    public List<Task> importFromCsv(MultipartFile file) {
-        List<Task> tasks = new ArrayList<>();
-        try {
-            com.opencsv.CSVReader csvReader = new com.opencsv.CSVReader(
-                new InputStreamReader(file.getInputStream())
-            );
+    /**
+     * Parses and validates tasks one at a time and hands them to {@code sink}
+     * in batches of {@code tasktracker.import.batch-size}, so neither memory
+     * nor a batch's journal entry grows with the file. A bad row stops the
+     * import; the batches before it stay saved. Returns the tasks saved.
+     */
+    public long importFromJson(InputStream in, Consumer<List<Task>> sink) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Batches batches = new Batches(sink);
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("expected a JSON array of tasks");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                Task task = objectMapper.readValue(parser, Task.class);
+                validate(task, batches.rows + 1);
+                batches.add(task);
+            }
+            batches.flush();
+        } catch (Exception e) {
+            throw new RuntimeException("Error importing from JSON: " + e.getMessage() + batches.savedBefore());
+        } finally {
+            record("import", "json", sample, batches.rows);
+        }
+        return batches.saved;
+    }
+    
+    public long importFromCsv(MultipartFile file, Consumer<List<Task>> sink) {
+        try (InputStream in = file.getInputStream()) {
+            return importFromCsv(in, sink);
+        } catch (IOException e) {
+            throw new RuntimeException("Error importing from CSV: " + e.getMessage());
+        }
+    }
+    
+    public long importFromCsv(InputStream in, Consumer<List<Task>> sink) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Batches batches = new Batches(sink);
+        try (CSVReader csvReader = new CSVReader(
+                new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))) {
             
             String[] header = csvReader.readNext();
             String[] line;
@@ -99,13 +172,66 @@ public class ExportImportService {
                     if (line.length > 6 && !line[6].isEmpty()) {
                         task.setDueDate(LocalDateTime.parse(line[6], formatter));
                     }
-                    tasks.add(task);
+                    validate(task, batches.rows + 1);
+                    batches.add(task);
                 }
             }
-            csvReader.close();
+            batches.flush();
         } catch (Exception e) {
-            throw new RuntimeException("Error importing from CSV: " + e.getMessage());
+            throw new RuntimeException("Error importing from CSV: " + e.getMessage() + batches.savedBefore());
+        } finally {
+            record("import", "csv", sample, batches.rows);
+        }
+        return batches.saved;
+    }
+    
+    // Rows read so far and the full batches already handed to the sink
+    private final class Batches {
+        private final Consumer<List<Task>> sink;
+        private List<Task> pending = new ArrayList<>();
+        private int rows;
+        private long saved;
+        
+        private Batches(Consumer<List<Task>> sink) {
+            this.sink = sink;
+        }
+        
+        private void add(Task task) {
+            pending.add(task);
+            rows++;
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+        
+        private void flush() {
+            if (!pending.isEmpty()) {
+                sink.accept(pending);
+                saved += pending.size();
+                pending = new ArrayList<>();
+            }
+        }
+        
+        private String savedBefore() {
+            return saved > 0 ? " (" + saved + " tasks were imported before the error)" : "";
+        }
+    }
+    
+    private void validate(Task task, int row) {
+        if (task.getTitle() == null || task.getTitle().isBlank()) {
+            throw new IllegalArgumentException("row " + row + ": title is required");
+        }
+        if (task.getStatus() == null) {
+            task.setStatus(Task.TaskStatus.PENDING);
+        }
+        if (task.getPriority() == null) {
+            task.setPriority(Task.TaskPriority.MEDIUM);
+        }
+        if (task.getCreatedAt() == null) {
+            task.setCreatedAt(LocalDateTime.now());
+        }
+        if (task.getUpdatedAt() == null) {
+            task.setUpdatedAt(task.getCreatedAt());
         }
-        return tasks;
     }
 }
@@ -1,137 +1,943 @@
 package com.tasktracker.service;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.TypeAdapter;
-import com.google.gson.reflect.TypeToken;
-import com.google.gson.stream.JsonReader;
-import com.google.gson.stream.JsonWriter;
 import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+import com.tasktracker.model.TaskStatistics;
+import com.tasktracker.model.WeeklyCompletion;
+import com.tasktracker.repository.PartitionedTaskRepository;
+import com.tasktracker.repository.TaskRepository;
+import com.tasktracker.storage.DateIndex;
+import com.tasktracker.storage.IncrementalSnapshotStore;
+import com.tasktracker.storage.JournalEntry;
+import com.tasktracker.storage.SearchIndex;
+import com.tasktracker.storage.StringPool;
+import com.tasktracker.storage.TaskAggregates;
+import com.tasktracker.storage.TaskColumns;
+import com.tasktracker.storage.TaskGson;
+import com.tasktracker.storage.TaskIndex;
+import com.tasktracker.storage.TaskJournal;
+import com.tasktracker.storage.TaskPager;
+import com.tasktracker.storage.TaskRecord;
+import com.tasktracker.storage.TaskSnapshotStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
-import java.lang.reflect.Type;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class LocalStorageService {
-    private static final String DATA_DIR = "data";
-    private static final String TASKS_FILE = "tasks.json";
-    private final Path dataPath;
-    private final Gson gson;
-    private AtomicLong currentId;
-
-    public LocalStorageService() {
-        this.gson = new GsonBuilder()
-            .setPrettyPrinting()
-            .registerTypeAdapter(LocalDateTime.class, new TypeAdapter<LocalDateTime>() {
-                @Override
-                public void write(JsonWriter out, LocalDateTime value) throws IOException {
-                    out.value(value != null ? value.toString() : null);
-                }
+@Qualifier(PartitionedTaskRepository.PARTITION)
+@ConditionalOnProperty(name = "tasktracker.storage.backend", havingValue = "file", matchIfMissing = true)
+public class LocalStorageService implements TaskRepository {
+    private static final Logger log = LoggerFactory.getLogger(LocalStorageService.class);
+    private static final String MIGRATED_SUFFIX = ".migrated";
+    private static final int LOCK_STRIPES = 64;
+    private static final int STRING_POOL_SIZE = 8192;
 
-                @Override
-                public LocalDateTime read(JsonReader in) throws IOException {
-                    String value = in.nextString();
-                    return value != null ? LocalDateTime.parse(value) : null;
-                }
-            })
-            .create();
-        this.dataPath = Paths.get(DATA_DIR, TASKS_FILE);
+    public enum Durability {
+        // Mutations return once journaled; the committer fsyncs them on its next tick
+        ASYNC,
+        // Mutations return only after their journal entry has been fsynced
+        SYNC
+    }
+
+    private final Path dataDir;
+    private final TaskSnapshotStore snapshotStore;
+    // The same store when it updates in place, otherwise null
+    private final IncrementalSnapshotStore incrementalStore;
+    // Ids changed since the last compaction, for snapshot stores that update in place
+    private final Set<Long> pendingChanges = ConcurrentHashMap.newKeySet();
+    private volatile boolean rewritePending;
+    private final AtomicLong currentId;
+    private final ConcurrentSkipListMap<Long, TaskRecord> tasks = new ConcurrentSkipListMap<>();
+    private final StringPool strings = new StringPool(STRING_POOL_SIZE);
+    private final TaskIndex index = new TaskIndex();
+    private final TaskAggregates aggregates = new TaskAggregates();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final TaskColumns columns = new TaskColumns();
+    private final TaskPager pager = new TaskPager(tasks, index);
+    // Bumped by every applied mutation. Versions restart with the process, so they
+    // are only comparable within one epoch (the start time).
+    private final long dataEpoch = System.currentTimeMillis();
+    private final AtomicLong dataVersion = new AtomicLong();
+    private volatile long lastModified = dataEpoch;
+    // Single-task writes share the structure lock and serialize per id on a stripe;
+    // batches, truncation and compaction take it exclusively. Reads take no lock.
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    private final Durability durability;
+    private final long compactionThresholdBytes;
+    private final TaskJournal journal;
+    private final ScheduledExecutorService compactor;
+    private final Executor storageExecutor;
+    private final long flushIntervalMs;
+    private final String format;
+    private final MeterRegistry meterRegistry;
+    private final Timer snapshotLoadTimer;
+    private final Timer snapshotSaveTimer;
+    private final DistributionSummary snapshotBytesRead;
+    private final DistributionSummary snapshotBytesWritten;
+    private final Timer saveTimer;
+    private final Timer saveAllTimer;
+    private final Timer deleteTimer;
+    private final Timer updateAllTimer;
+    private final Timer deleteByIdsTimer;
+    private final Timer truncateTimer;
+    private final Timer compactTimer;
+    private final Timer findTimer;
+    private final Timer searchTimer;
+    private final Timer getAllTimer;
+    private final Timer reportTimer;
+
+    @Autowired
+    public LocalStorageService(@Value("${tasktracker.storage.data-dir:data}") String dataDir,
+                               @Value("${tasktracker.storage.flush-interval-ms:1000}") long flushIntervalMs,
+                               @Value("${tasktracker.storage.durability:async}") String durability,
+                               @Value("${tasktracker.storage.compaction-threshold-bytes:1048576}") long compactionThresholdBytes,
+                               @Value("${tasktracker.storage.format:binary}") String format,
+                               MeterRegistry meterRegistry,
+                               @Qualifier("storageExecutor") Executor storageExecutor) {
+        this.dataDir = Paths.get(dataDir);
+        try {
+            Files.createDirectories(this.dataDir);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize storage", e);
+        }
+        this.snapshotStore = TaskSnapshotStore.forFormat(format, this.dataDir);
+        this.incrementalStore = snapshotStore instanceof IncrementalSnapshotStore store ? store : null;
         this.currentId = new AtomicLong(0);
+        this.durability = Durability.valueOf(durability.trim().toUpperCase());
+        this.compactionThresholdBytes = compactionThresholdBytes;
+        this.storageExecutor = storageExecutor;
+        this.flushIntervalMs = flushIntervalMs;
+        this.format = format;
+        this.meterRegistry = meterRegistry;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.snapshotLoadTimer = Timer.builder("tasktracker.storage.snapshot.load")
+            .description("Time spent reading and decoding the task snapshot")
+            .register(meterRegistry);
+        this.snapshotSaveTimer = Timer.builder("tasktracker.storage.snapshot.save")
+            .description("Time spent encoding, fsyncing and renaming the task snapshot")
+            .register(meterRegistry);
+        this.snapshotBytesRead = snapshotBytes(meterRegistry, "read");
+        this.snapshotBytesWritten = snapshotBytes(meterRegistry, "write");
+        this.saveTimer = operationTimer(meterRegistry, "save");
+        this.saveAllTimer = operationTimer(meterRegistry, "save_all");
+        this.deleteTimer = operationTimer(meterRegistry, "delete");
+        this.updateAllTimer = operationTimer(meterRegistry, "update_all");
+        this.deleteByIdsTimer = operationTimer(meterRegistry, "delete_by_ids");
+        this.truncateTimer = operationTimer(meterRegistry, "truncate");
+        this.compactTimer = operationTimer(meterRegistry, "compact");
+        this.findTimer = operationTimer(meterRegistry, "find");
+        this.searchTimer = operationTimer(meterRegistry, "search");
+        this.getAllTimer = operationTimer(meterRegistry, "get_all");
+        this.reportTimer = operationTimer(meterRegistry, "report");
+        Gauge.builder("tasktracker.storage.snapshot.size", this, LocalStorageService::snapshotSize)
+            .baseUnit("bytes")
+            .description("Size of the task snapshot on disk")
+            .register(meterRegistry);
+
         initializeStorage();
+        this.journal = new TaskJournal(this.dataDir, TaskGson.builder().create(), flushIntervalMs, meterRegistry);
+        journal.replay(this::apply);
+        // Initialize currentId based on existing tasks
+        if (!tasks.isEmpty()) {
+            currentId.set(tasks.lastKey());
+        }
+        if (journal.hasSealedSegments()) {
+            compact();
+        }
+
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-store-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static Timer operationTimer(MeterRegistry meterRegistry, String op) {
+        return Timer.builder("tasktracker.storage.operation")
+            .tag("op", op)
+            .description("Latency of task store operations")
+            .register(meterRegistry);
+    }
+
+    private static DistributionSummary snapshotBytes(MeterRegistry meterRegistry, String io) {
+        return DistributionSummary.builder("tasktracker.storage.snapshot.bytes")
+            .tag("io", io)
+            .baseUnit("bytes")
+            .description("Bytes transferred per task snapshot read or write")
+            .register(meterRegistry);
+    }
+
+    private double snapshotSize() {
+        return snapshotStore.sizeOnDisk();
     }
 
     private void initializeStorage() {
         try {
-            Files.createDirectories(Paths.get(DATA_DIR));
-            if (!Files.exists(dataPath)) {
-                Files.createFile(dataPath);
-                saveTasksToFile(new ArrayList<>());
-            }
-            
-            // Initialize currentId based on existing tasks
-            List<Task> tasks = loadTasksFromFile();
-            if (!tasks.isEmpty()) {
-                long maxId = tasks.stream()
-                    .mapToLong(Task::getId)
-                    .max()
-                    .orElse(0);
-                currentId.set(maxId);
-            }
+            List<Task> loaded = isCurrent(snapshotStore) ? loadSnapshot(snapshotStore) : migrateSnapshot();
+            loaded.forEach(task -> applyPut(restore(task)));
+            pendingChanges.clear();
         } catch (IOException e) {
             throw new RuntimeException("Could not initialize storage", e);
         }
     }
 
-    private List<Task> loadTasksFromFile() {
-        try {
-            String content = Files.readString(dataPath);
-            if (content.isEmpty()) {
-                return new ArrayList<>();
+    // Converts a snapshot left in another format. The original stays where it is
+    // (data/tasks.json is checked in) and a <file>.migrated marker beside it
+    // records that it is stale, so switching back to its format converts again.
+    private List<Task> migrateSnapshot() throws IOException {
+        for (String format : TaskSnapshotStore.FORMATS) {
+            try (TaskSnapshotStore legacy = TaskSnapshotStore.forFormat(format, dataDir)) {
+                if (legacy.describe().equals(snapshotStore.describe()) || !isCurrent(legacy)) {
+                    continue;
+                }
+                List<Task> loaded = loadSnapshot(legacy);
+                saveSnapshot(loaded);
+                Files.deleteIfExists(migratedMarker(snapshotStore));
+                Files.write(migratedMarker(legacy), new byte[0]);
+                log.info("Migrated {} tasks from {} to {}", loaded.size(), legacy.describe(), snapshotStore.describe());
+                return loaded;
             }
-            Type listType = new TypeToken<List<Task>>(){}.getType();
-            return gson.fromJson(content, listType);
+        }
+        List<Task> loaded = snapshotStore.exists() ? loadSnapshot(snapshotStore) : new ArrayList<>();
+        saveSnapshot(loaded);
+        Files.deleteIfExists(migratedMarker(snapshotStore));
+        return loaded;
+    }
+
+    private static boolean isCurrent(TaskSnapshotStore store) {
+        return store.exists() && !Files.exists(migratedMarker(store));
+    }
+
+    private static Path migratedMarker(TaskSnapshotStore store) {
+        return Paths.get(store.describe() + MIGRATED_SUFFIX);
+    }
+
+    private void apply(JournalEntry entry) {
+        switch (entry.getOp()) {
+            case PUT -> applyPut(restore(entry.getTask()));
+            case DELETE -> applyDelete(entry.getId());
+            case PUT_ALL -> entry.getTasks().forEach(task -> applyPut(restore(task)));
+            case DELETE_ALL -> entry.getIds().forEach(this::applyDelete);
+            case TRUNCATE -> applyTruncate();
+        }
+    }
+
+    private void markModified() {
+        dataVersion.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+
+    private void applyPut(TaskRecord stored) {
+        markModified();
+        Long id = stored.getId();
+        TaskRecord previous = tasks.put(id, stored);
+        index.update(id, previous, stored);
+        aggregates.update(previous, stored);
+        searchIndex.update(id, previous, stored);
+        columns.update(previous, stored);
+        if (incrementalStore != null) {
+            pendingChanges.add(id);
+        }
+    }
+
+    private boolean applyDelete(Long id) {
+        TaskRecord removed = tasks.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        markModified();
+        index.update(id, removed, null);
+        aggregates.update(removed, null);
+        searchIndex.update(id, removed, null);
+        columns.update(removed, null);
+        if (incrementalStore != null) {
+            pendingChanges.add(id);
+        }
+        return true;
+    }
+
+    private void applyTruncate() {
+        markModified();
+        tasks.clear();
+        index.clear();
+        aggregates.clear();
+        searchIndex.clear();
+        columns.clear();
+        pendingChanges.clear();
+        rewritePending = true;
+    }
+
+    private List<Task> loadSnapshot(TaskSnapshotStore store) {
+        Timer.Sample sample = Timer.start();
+        try {
+            List<Task> loaded = store.load();
+            snapshotBytesRead.record(store.sizeOnDisk());
+            return loaded;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read tasks from " + store.describe(), e);
+        } finally {
+            sample.stop(snapshotLoadTimer);
+        }
+    }
+
+    private void saveSnapshot(List<Task> tasks) {
+        Timer.Sample sample = Timer.start();
+        try {
+            snapshotBytesWritten.record(snapshotStore.write(tasks));
         } catch (IOException e) {
-            throw new RuntimeException("Could not read tasks from file", e);
+            throw new RuntimeException("Could not save tasks to " + snapshotStore.describe(), e);
+        } finally {
+            sample.stop(snapshotSaveTimer);
         }
     }
 
-    private void saveTasksToFile(List<Task> tasks) {
+    private void updateSnapshot(Map<Long, Task> changes) {
+        Timer.Sample sample = Timer.start();
         try {
-            String json = gson.toJson(tasks);
-            Files.writeString(dataPath, json);
+            snapshotBytesWritten.record(incrementalStore.update(changes));
         } catch (IOException e) {
-            throw new RuntimeException("Could not save tasks to file", e);
+            throw new RuntimeException("Could not update tasks in " + snapshotStore.describe(), e);
+        } finally {
+            sample.stop(snapshotSaveTimer);
+        }
+    }
+
+    public void flush() {
+        journal.sync();
+    }
+
+    /**
+     * Folds all sealed journal segments into the snapshot.
+     * Writers are only held up while the active segment is sealed and the
+     * map (or, for in-place stores, the set of changed tasks) is copied;
+     * the snapshot itself is written outside the lock.
+     */
+    public synchronized void compact() {
+        compactTimer.record(this::writeSnapshot);
+    }
+
+    private void writeSnapshot() {
+        List<Task> snapshot = null;
+        Map<Long, Task> changes = null;
+        long generation;
+        structureLock.writeLock().lock();
+        try {
+            generation = journal.rollover();
+            if (incrementalStore != null && !rewritePending && !incrementalStore.needsRewrite()) {
+                changes = new HashMap<>(pendingChanges.size());
+                for (Long id : pendingChanges) {
+                    TaskRecord task = tasks.get(id);
+                    changes.put(id, task != null ? task.toTask() : null);
+                }
+            } else {
+                snapshot = copyAllTasks();
+                rewritePending = false;
+            }
+            pendingChanges.clear();
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+        try {
+            if (changes != null) {
+                updateSnapshot(changes);
+            } else {
+                saveSnapshot(snapshot);
+            }
+        } catch (RuntimeException e) {
+            // Carry the work over to the next attempt without overwriting anything newer
+            if (changes != null) {
+                pendingChanges.addAll(changes.keySet());
+            } else {
+                rewritePending = true;
+            }
+            throw e;
+        }
+        journal.deleteSegmentsBefore(generation);
+    }
+
+    private void compactIfNeeded() {
+        try {
+            if (journal.getSegmentBytes() >= compactionThresholdBytes) {
+                compact();
+            }
+        } catch (RuntimeException e) {
+            log.error("Compaction of {} failed, will retry", snapshotStore.describe(), e);
+        }
+    }
+
+    private void commit(long seq) {
+        if (durability == Durability.SYNC) {
+            journal.awaitDurable(seq);
+        }
+    }
+
+    // Like commit, but without holding a thread while the fsync is pending
+    private CompletableFuture<Void> durable(long seq) {
+        return durability == Durability.SYNC ? journal.whenDurable(seq) : CompletableFuture.completedFuture(null);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, storageExecutor);
+    }
+
+    /**
+     * Runs a journaled write on the storage executor and completes with
+     * {@code result} once it is as durable as the configured mode requires.
+     */
+    private <T> CompletableFuture<T> submitWrite(Timer timer, Supplier<Long> write, Supplier<T> result) {
+        Timer.Sample sample = Timer.start();
+        return submit(write)
+            .thenCompose(this::durable)
+            .thenApplyAsync(ignored -> result.get(), storageExecutor)
+            .whenComplete((value, error) -> sample.stop(timer));
+    }
+
+    @Override
+    public TaskRepository openPartition(Path dataDir) {
+        return new LocalStorageService(dataDir.toString(), flushIntervalMs, durability.name(),
+            compactionThresholdBytes, format, meterRegistry, storageExecutor);
+    }
+
+    @Override
+    @PreDestroy
+    public void close() {
+        compactor.shutdown();
+        try {
+            compact();
+        } finally {
+            journal.close();
+            try {
+                snapshotStore.close();
+            } catch (IOException e) {
+                log.warn("Could not close {}", snapshotStore.describe(), e);
+            }
         }
     }
 
+    @Override
     public List<Task> getAllTasks() {
-        return loadTasksFromFile();
+        return getAllTimer.record(this::copyAllTasks);
+    }
+
+    private List<Task> copyAllTasks() {
+        List<Task> result = new ArrayList<>(tasks.size());
+        for (TaskRecord task : tasks.values()) {
+            result.add(task.toTask());
+        }
+        return result;
     }
 
+    @Override
+    public Stream<Task> streamTasks() {
+        return tasks.values().stream().map(TaskRecord::toTask);
+    }
+
+    @Override
     public Optional<Task> getTaskById(Long id) {
-        return loadTasksFromFile().stream()
-            .filter(task -> task.getId().equals(id))
-            .findFirst();
+        TaskRecord task = tasks.get(id);
+        return task != null ? Optional.of(task.toTask()) : Optional.empty();
+    }
+
+    @Override
+    public long count() {
+        return tasks.size();
+    }
+
+    @Override
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    @Override
+    public long getDataEpoch() {
+        return dataEpoch;
+    }
+
+    // Wall-clock time of the last mutation, in epoch milliseconds
+    @Override
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public long countByStatus(Task.TaskStatus status) {
+        return index.countByStatus(status);
+    }
+
+    @Override
+    public long countByPriority(Task.TaskPriority priority) {
+        return index.countByPriority(priority);
+    }
+
+    @Override
+    public TaskStatistics getStatistics() {
+        return aggregates.snapshot(YearMonth.now());
+    }
+
+    @Override
+    public TaskPage findTasks(TaskQuery query) {
+        return findTimer.record(() -> pager.find(query));
+    }
+
+    @Override
+    public CompletableFuture<TaskPage> findTasksAsync(TaskQuery query) {
+        return submit(() -> findTasks(query));
+    }
+
+    @Override
+    public CompletableFuture<TaskStatistics> getStatisticsAsync() {
+        return submit(this::getStatistics);
+    }
+
+    /**
+     * Full-text search ranked by relevance. The query's status and priority
+     * filters and page/size apply; its sort order and cursor do not.
+     */
+    @Override
+    public TaskPage search(String text, TaskQuery query) {
+        // Far-out pages skip past every hit instead of overflowing the offset
+        long from = (long) (query.getPage() - 1) * query.getSize();
+        int limit = (int) Math.min(Integer.MAX_VALUE, from + query.getSize());
+        SearchIndex.Result result = searchTimer.record(() -> searchIndex.search(text, id -> {
+            TaskRecord task = tasks.get(id);
+            return task != null && task.matches(query);
+        }, limit));
+        List<SearchIndex.Hit> hits = result.hits();
+        List<Task> page = new ArrayList<>(query.getSize());
+        for (SearchIndex.Hit hit : hits.subList((int) Math.min(from, hits.size()), hits.size())) {
+            TaskRecord task = tasks.get(hit.id());
+            if (task != null) {
+                page.add(task.toTask());
+            }
+        }
+        return new TaskPage(page, query.getPage(), query.getSize(), result.total(), null);
+    }
+
+    @Override
+    public CompletableFuture<TaskPage> searchAsync(String text, TaskQuery query) {
+        return submit(() -> search(text, query));
+    }
+
+    @Override
+    public long countCreatedAfter(LocalDateTime from) {
+        return index.createdAt().range(TaskRecord.millis(from), TaskRecord.NONE).size();
+    }
+
+    @Override
+    public CompletableFuture<Long> countCreatedAfterAsync(LocalDateTime from) {
+        return submit(() -> countCreatedAfter(from));
+    }
+
+    @Override
+    public long countCompletedAfter(LocalDateTime from) {
+        Set<Long> completed = index.idsWithStatus(Task.TaskStatus.COMPLETED);
+        long count = 0;
+        for (DateIndex.Key key : index.completedAt().range(TaskRecord.millis(from), TaskRecord.NONE)) {
+            if (completed.contains(key.id())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public CompletableFuture<Long> countCompletedAfterAsync(LocalDateTime from) {
+        return submit(() -> countCompletedAfter(from));
+    }
+
+    public List<Task> getTasksByStatus(Task.TaskStatus status) {
+        return resolve(index.idsWithStatus(status), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getTasksNewestFirst(int limit) {
+        return resolveKeys(index.createdAt().newestFirst(), limit, null);
+    }
+
+    @Override
+    public List<Task> getRecentlyCompleted(int limit) {
+        return resolveKeys(index.completedAt().newestFirst(), limit, Task.TaskStatus.COMPLETED);
+    }
+
+    public List<Task> getTasksDueBetween(LocalDateTime from, LocalDateTime to) {
+        return resolveKeys(index.dueDate().range(TaskRecord.millis(from), TaskRecord.millis(to)).iterator(),
+            Integer.MAX_VALUE, null);
+    }
+
+    // Open tasks due before now, most overdue first
+    @Override
+    public List<Task> getOverdueTasks(LocalDateTime now, int limit) {
+        return resolveKeys(index.openDueDate().range(TaskRecord.NONE, TaskRecord.millis(now)).iterator(), limit, null);
+    }
+
+    @Override
+    public long countOverdue(LocalDateTime now) {
+        return index.openDueDate().range(TaskRecord.NONE, TaskRecord.millis(now)).size();
+    }
+
+    @Override
+    public CompletableFuture<Long> countOverdueAsync(LocalDateTime now) {
+        return submit(() -> countOverdue(now));
+    }
+
+    @Override
+    public Map<Task.TaskPriority, Long> countOverdueByPriority(LocalDateTime now) {
+        long[] counts = reportTimer.record(() -> columns.overdueByPriority(TaskRecord.millis(now)));
+        Map<Task.TaskPriority, Long> result = new EnumMap<>(Task.TaskPriority.class);
+        for (Task.TaskPriority priority : Task.TaskPriority.values()) {
+            result.put(priority, counts[priority.ordinal()]);
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Map<Task.TaskPriority, Long>> countOverdueByPriorityAsync(LocalDateTime now) {
+        return submit(() -> countOverdueByPriority(now));
+    }
+
+    @Override
+    public List<WeeklyCompletion> getWeeklyCompletion(LocalDate firstWeek, int weeks) {
+        long[] counts = reportTimer.record(() ->
+            columns.weekly(TaskRecord.millis(firstWeek.atStartOfDay()), weeks));
+        List<WeeklyCompletion> result = new ArrayList<>(weeks);
+        for (int week = 0; week < weeks; week++) {
+            result.add(new WeeklyCompletion(firstWeek.plusWeeks(week),
+                counts[3 * week], counts[3 * week + 1], counts[3 * week + 2]));
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<List<WeeklyCompletion>> getWeeklyCompletionAsync(LocalDate firstWeek, int weeks) {
+        return submit(() -> getWeeklyCompletion(firstWeek, weeks));
+    }
+
+    @Override
+    public List<Task> getOpenTasksWithDueDate() {
+        return resolveKeys(index.openDueDate().oldestFirst(), Integer.MAX_VALUE, null);
+    }
+
+    private List<Task> resolve(Iterable<Long> ids, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (Long id : ids) {
+            if (result.size() >= limit) {
+                break;
+            }
+            TaskRecord task = tasks.get(id);
+            if (task != null) {
+                result.add(task.toTask());
+            }
+        }
+        return result;
+    }
+
+    private List<Task> resolveKeys(Iterator<DateIndex.Key> keys, int limit, Task.TaskStatus status) {
+        List<Task> result = new ArrayList<>();
+        while (keys.hasNext() && result.size() < limit) {
+            TaskRecord task = tasks.get(keys.next().id());
+            if (task != null && (status == null || task.getStatus() == status)) {
+                result.add(task.toTask());
+            }
+        }
+        return result;
+    }
+
+    private ReentrantLock stripeFor(Long id) {
+        return stripes[Math.floorMod(Long.hashCode(id), stripes.length)];
+    }
+
+    private static long versionOf(TaskRecord task) {
+        return task != null ? task.getVersion() : 0;
     }
 
+    // Listings walk the creation-time index, so a task stored without a creation
+    // time would never be listed; older snapshots and journals may hold such tasks.
+    // They are dated by their last update, or else by when this store was opened.
+    private TaskRecord restore(Task task) {
+        if (task.getCreatedAt() == null) {
+            task.setCreatedAt(task.getUpdatedAt() != null ? task.getUpdatedAt() : TaskRecord.time(dataEpoch));
+        }
+        return TaskRecord.of(task, strings);
+    }
+
+    // The caller's task ends up with the stored timestamps, which are whole milliseconds,
+    // and with a creation and update time if it had none
+    private TaskRecord compact(Task task) {
+        if (task.getCreatedAt() == null) {
+            task.setCreatedAt(LocalDateTime.now());
+        }
+        if (task.getUpdatedAt() == null) {
+            task.setUpdatedAt(task.getCreatedAt());
+        }
+        task.setCreatedAt(TaskRecord.truncate(task.getCreatedAt()));
+        task.setUpdatedAt(TaskRecord.truncate(task.getUpdatedAt()));
+        task.setDueDate(TaskRecord.truncate(task.getDueDate()));
+        task.setCompletedAt(TaskRecord.truncate(task.getCompletedAt()));
+        return TaskRecord.of(task, strings);
+    }
+
+    /**
+     * Inserts or replaces a task. A non-null {@code version} on the incoming
+     * task is an optimistic check against the stored version (0 when absent);
+     * on success the stored version is incremented and written back.
+     */
+    @Override
     public Task saveTask(Task task) {
-        List<Task> tasks = loadTasksFromFile();
+        return saveTimer.record(() -> {
+            commit(store(task));
+            return task;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Task> saveTaskAsync(Task task) {
+        return submitWrite(saveTimer, () -> store(task), () -> task);
+    }
+
+    // Journals and then applies the task, returning the journal sequence number to commit
+    private long store(Task task) {
         if (task.getId() == null) {
             task.setId(currentId.incrementAndGet());
-            tasks.add(task);
         } else {
-            int index = findTaskIndex(tasks, task.getId());
-            if (index != -1) {
-                tasks.set(index, task);
-            } else {
-                tasks.add(task);
+            currentId.accumulateAndGet(task.getId(), Math::max);
+        }
+        long seq;
+        ReentrantLock stripe = stripeFor(task.getId());
+        structureLock.readLock().lock();
+        stripe.lock();
+        try {
+            long currentVersion = versionOf(tasks.get(task.getId()));
+            if (task.getVersion() != null && task.getVersion() != currentVersion) {
+                throw new StaleTaskException(task.getId(), task.getVersion(), currentVersion);
             }
+            task.setVersion(currentVersion + 1);
+            TaskRecord stored = compact(task);
+            seq = journal.append(JournalEntry.put(task));
+            applyPut(stored);
+        } finally {
+            stripe.unlock();
+            structureLock.readLock().unlock();
         }
-        saveTasksToFile(tasks);
-        return task;
+        return seq;
     }
 
+    /**
+     * Stores a whole batch under one lock acquisition and one journal entry.
+     * Tasks without an id get consecutive ids reserved in a single step.
+     * Incoming versions are not checked: imports carry the versions of the
+     * store they were exported from, so the last writer wins and every task
+     * gets the stored version plus one.
+     */
+    @Override
+    public List<Task> saveAll(List<Task> batch) {
+        return saveAllTimer.record(() -> {
+            commit(storeAll(batch));
+            return batch;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Task>> saveAllAsync(List<Task> batch) {
+        return submitWrite(saveAllTimer, () -> storeAll(batch), () -> batch);
+    }
+
+    private long storeAll(List<Task> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long seq;
+        structureLock.writeLock().lock();
+        try {
+            long unassigned = 0;
+            for (Task task : batch) {
+                if (task.getId() == null) {
+                    unassigned++;
+                } else {
+                    currentId.accumulateAndGet(task.getId(), Math::max);
+                }
+            }
+            long nextId = currentId.getAndAdd(unassigned) + 1;
+            // A batch may list an id more than once; each copy bumps the version again
+            Map<Long, Long> versions = new HashMap<>();
+            List<TaskRecord> stored = new ArrayList<>(batch.size());
+            for (Task task : batch) {
+                if (task.getId() == null) {
+                    task.setId(nextId++);
+                }
+                long version = versions.computeIfAbsent(task.getId(), id -> versionOf(tasks.get(id))) + 1;
+                versions.put(task.getId(), version);
+                task.setVersion(version);
+                stored.add(compact(task));
+            }
+            seq = journal.append(JournalEntry.putAll(batch));
+            stored.forEach(this::applyPut);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+        return seq;
+    }
+
+    @Override
     public void deleteTask(Long id) {
-        List<Task> tasks = loadTasksFromFile();
-        tasks.removeIf(task -> task.getId().equals(id));
-        saveTasksToFile(tasks);
+        deleteTimer.record(() -> commit(remove(id)));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteTaskAsync(Long id) {
+        return submitWrite(deleteTimer, () -> remove(id), () -> null);
+    }
+
+    private long remove(Long id) {
+        long seq;
+        ReentrantLock stripe = stripeFor(id);
+        structureLock.readLock().lock();
+        stripe.lock();
+        try {
+            if (!tasks.containsKey(id)) {
+                return 0;
+            }
+            seq = journal.append(JournalEntry.delete(id));
+            applyDelete(id);
+        } finally {
+            stripe.unlock();
+            structureLock.readLock().unlock();
+        }
+        return seq;
+    }
+
+    /**
+     * Applies {@code mutation} to a copy of every listed task that exists and
+     * stores the results as one batch. Returns the updated tasks.
+     */
+    @Override
+    public List<Task> updateAll(Collection<Long> ids, Consumer<Task> mutation) {
+        return updateAllTimer.record(() -> updateEach(ids, mutation));
+    }
+
+    private List<Task> updateEach(Collection<Long> ids, Consumer<Task> mutation) {
+        List<Task> updated = new ArrayList<>();
+        Map<Long, TaskRecord> staged = new LinkedHashMap<>();
+        long seq;
+        structureLock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                TaskRecord current = staged.containsKey(id) ? staged.get(id) : tasks.get(id);
+                if (current == null) {
+                    continue;
+                }
+                Task copy = current.toTask();
+                mutation.accept(copy);
+                copy.setId(id);
+                copy.setVersion(current.getVersion() + 1);
+                staged.put(id, compact(copy));
+                updated.add(copy);
+            }
+            if (updated.isEmpty()) {
+                return updated;
+            }
+            seq = journal.append(JournalEntry.putAll(updated));
+            staged.values().forEach(this::applyPut);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+        commit(seq);
+        return updated;
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        return deleteByIdsTimer.record(() -> removeAll(ids));
     }
 
-    private int findTaskIndex(List<Task> tasks, Long id) {
-        for (int i = 0; i < tasks.size(); i++) {
-            if (tasks.get(i).getId().equals(id)) {
-                return i;
+    private int removeAll(Collection<Long> ids) {
+        Set<Long> deleted = new LinkedHashSet<>();
+        long seq;
+        structureLock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                if (tasks.containsKey(id)) {
+                    deleted.add(id);
+                }
+            }
+            if (deleted.isEmpty()) {
+                return 0;
             }
+            seq = journal.append(JournalEntry.deleteAll(new ArrayList<>(deleted)));
+            deleted.forEach(this::applyDelete);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+        commit(seq);
+        return deleted.size();
+    }
+
+    public int deleteAll(Collection<Task> batch) {
+        return deleteByIds(batch.stream().map(Task::getId).filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    // Journals a single marker rather than one delete per task
+    @Override
+    public void truncate() {
+        truncateTimer.record(this::removeEverything);
+    }
+
+    private void removeEverything() {
+        long seq;
+        structureLock.writeLock().lock();
+        try {
+            seq = journal.append(JournalEntry.truncate());
+            applyTruncate();
+        } finally {
+            structureLock.writeLock().unlock();
         }
-        return -1;
+        commit(seq);
     }
-}
\ No newline at end of file
+}
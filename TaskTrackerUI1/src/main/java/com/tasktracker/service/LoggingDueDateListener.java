@@ -0,0 +1,17 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.DueDateEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class LoggingDueDateListener implements DueDateListener {
+    private static final Logger log = LoggerFactory.getLogger(LoggingDueDateListener.class);
+
+    @Override
+    public void onDueDate(DueDateEvent event) {
+        log.info("{} (task {} of {}, due {})", event.getDescription(), event.getTaskId(), event.getOwner(),
+            event.getDueDate());
+    }
+}
@@ -0,0 +1,97 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.DueDateEvent;
+import com.tasktracker.repository.TaskOwner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-app notifications shown on the dashboard until dismissed, kept per
+ * task owner. Only the newest {@code capacity} are kept, and nothing is
+ * queued while due date reminders are turned off in the settings. Reads
+ * and dismissals apply to the current owner's notifications.
+ */
+@Service
+public class NotificationQueue implements DueDateListener {
+    private final SettingsService settingsService;
+    private final int capacity;
+    // Only owners that were sent a notification have an inbox
+    private final Map<String, Inbox> inboxes = new HashMap<>();
+
+    private static final class Inbox {
+        private final Deque<DueDateEvent> pending = new ArrayDeque<>();
+        private long version;
+        private long lastModified = System.currentTimeMillis();
+
+        private void changed() {
+            version++;
+            lastModified = System.currentTimeMillis();
+        }
+    }
+
+    private static final Inbox EMPTY = new Inbox();
+
+    public NotificationQueue(SettingsService settingsService,
+                             @Value("${tasktracker.notifications.capacity:50}") int capacity) {
+        this.settingsService = settingsService;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @Override
+    public synchronized void onDueDate(DueDateEvent event) {
+        if (!settingsService.getSettings().isDueDateReminders()) {
+            return;
+        }
+        Inbox inbox = inbox(event.getOwner());
+        inbox.pending.addFirst(event);
+        if (inbox.pending.size() > capacity) {
+            inbox.pending.removeLast();
+        }
+        inbox.changed();
+    }
+
+    public synchronized List<DueDateEvent> pending() {
+        return new ArrayList<>(current().pending);
+    }
+
+    public synchronized void clear() {
+        Inbox inbox = current();
+        if (!inbox.pending.isEmpty()) {
+            inbox.pending.clear();
+            inbox.changed();
+        }
+    }
+
+    // The settings are shared, so turning reminders off empties every owner's queue
+    public synchronized void clearAll() {
+        for (Inbox inbox : inboxes.values()) {
+            if (!inbox.pending.isEmpty()) {
+                inbox.pending.clear();
+                inbox.changed();
+            }
+        }
+    }
+
+    private Inbox inbox(String owner) {
+        return inboxes.computeIfAbsent(owner, o -> new Inbox());
+    }
+
+    private Inbox current() {
+        return inboxes.getOrDefault(TaskOwner.current(), EMPTY);
+    }
+
+    public synchronized long getVersion() {
+        return current().version;
+    }
+
+    public synchronized long getLastModified() {
+        return current().lastModified;
+    }
+}
@@ -0,0 +1,84 @@
+package com.tasktracker.service;
+
+import com.google.gson.Gson;
+import com.tasktracker.model.UserSettings;
+import com.tasktracker.storage.TaskGson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@Service
+public class SettingsService {
+    private static final String SETTINGS_FILE = "settings.json";
+
+    private final Path settingsPath;
+    private final Gson gson;
+    private volatile UserSettings settings;
+    private volatile long version;
+    private volatile long lastModified = System.currentTimeMillis();
+
+    public SettingsService(@Value("${tasktracker.storage.data-dir:data}") String dataDir) {
+        this.settingsPath = Paths.get(dataDir, SETTINGS_FILE);
+        this.gson = TaskGson.builder().setPrettyPrinting().create();
+        this.settings = load();
+    }
+
+    private UserSettings load() {
+        if (!Files.exists(settingsPath)) {
+            return new UserSettings();
+        }
+        try (Reader reader = Files.newBufferedReader(settingsPath, StandardCharsets.UTF_8)) {
+            UserSettings loaded = gson.fromJson(reader, UserSettings.class);
+            return loaded != null ? loaded : new UserSettings();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read settings", e);
+        }
+    }
+
+    public UserSettings getSettings() {
+        return settings;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public synchronized void updateDisplaySettings(String defaultView, int tasksPerPage, String sortBy) {
+        UserSettings updated = gson.fromJson(gson.toJson(settings), UserSettings.class);
+        updated.setDefaultView(defaultView);
+        updated.setTasksPerPage(tasksPerPage);
+        updated.setSortBy(sortBy);
+        save(updated);
+    }
+
+    public synchronized void updateNotificationSettings(boolean emailNotifications, boolean dueDateReminders,
+                                                        boolean statusUpdates) {
+        UserSettings updated = gson.fromJson(gson.toJson(settings), UserSettings.class);
+        updated.setEmailNotifications(emailNotifications);
+        updated.setDueDateReminders(dueDateReminders);
+        updated.setStatusUpdates(statusUpdates);
+        save(updated);
+    }
+
+    private void save(UserSettings updated) {
+        try {
+            Files.createDirectories(settingsPath.getParent());
+            Files.writeString(settingsPath, gson.toJson(updated));
+            settings = updated;
+            version++;
+            lastModified = System.currentTimeMillis();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not save settings", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.tasktracker.service;
+
+public class StaleTaskException extends RuntimeException {
+    private final Long taskId;
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    public StaleTaskException(Long taskId, long expectedVersion, long actualVersion) {
+        super("Task " + taskId + " was modified concurrently (expected version "
+            + expectedVersion + ", found " + actualVersion + ")");
+        this.taskId = taskId;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public long getActualVersion() {
+        return actualVersion;
+    }
+}
@@ -0,0 +1,39 @@
+package com.tasktracker.service;
+
+import com.tasktracker.repository.TaskOwner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Runs the asynchronous storage API. With spring.threads.virtual.enabled on
+ * Java 21 every operation gets its own virtual thread, as Tomcat's request
+ * threads do; otherwise a fixed pool of platform threads is used. Work runs
+ * in the task owner of the thread that submitted it.
+ */
+@Configuration
+public class StorageExecutorConfig {
+
+    @Bean
+    public AsyncTaskExecutor storageExecutor(Environment environment,
+                                             @Value("${tasktracker.storage.io-threads:16}") int ioThreads) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("storage-io-");
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(TaskOwner::propagate);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setTaskDecorator(TaskOwner::propagate);
+        executor.setThreadNamePrefix("storage-io-");
+        executor.setCorePoolSize(ioThreads);
+        executor.setMaxPoolSize(ioThreads);
+        executor.setDaemon(true);
+        return executor;
+    }
+}
@@ -1,28 +1,63 @@
 package com.tasktracker.service;
 
+import com.tasktracker.model.ActivityEvent;
 import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+import com.tasktracker.model.TaskStatistics;
+import com.tasktracker.model.WeeklyCompletion;
+import com.tasktracker.repository.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class TaskService {
+    private static final int STATUS_UPDATE_ATTEMPTS = 3;
+    private static final int RECENT_ACTIVITY_LIMIT = 10;
     
     @Autowired
-    private LocalStorageService storageService;
+    private TaskRepository storageService;
+    
+    @Autowired
+    private ActivityFeed activityFeed;
+    
+    @Autowired
+    private DueDateScheduler dueDateScheduler;
+    
+    @Autowired
+    private ChangeFeed changeFeed;
     
     public List<Task> getAllTasks() {
         return storageService.getAllTasks();
     }
     
+    public Stream<Task> streamTasks() {
+        return storageService.streamTasks();
+    }
+    
     public List<Task> getRecentTasks() {
-        return storageService.getAllTasks().stream()
-            .sorted(Comparator.comparing(Task::getCreatedAt).reversed())
-            .collect(Collectors.toList());
+        return storageService.getTasksNewestFirst(Integer.MAX_VALUE);
+    }
+    
+    public TaskPage findTasks(TaskQuery query) {
+        return storageService.findTasks(query);
+    }
+    
+    public CompletableFuture<TaskPage> findTasksAsync(TaskQuery query) {
+        return storageService.findTasksAsync(query);
+    }
+    
+    public TaskPage searchTasks(String text, TaskQuery query) {
+        return storageService.search(text, query);
     }
     
     public Optional<Task> getTaskById(Long id) {
@@ -32,12 +67,17 @@ public class TaskService {
     public Task createTask(Task task) {
         task.setCreatedAt(LocalDateTime.now());
         task.setUpdatedAt(LocalDateTime.now());
-        return storageService.saveTask(task);
+        Task saved = storageService.saveTask(task);
+        activityFeed.record(ActivityEvent.created(saved, saved.getCreatedAt()));
+        dueDateScheduler.schedule(saved);
+        changeFeed.created(saved);
+        return saved;
     }
     
     public Task updateTask(Long id, Task taskDetails) {
         Task task = storageService.getTaskById(id)
             .orElseThrow(() -> new RuntimeException("Task not found"));
+        Task.TaskStatus previousStatus = task.getStatus();
         
         task.setTitle(taskDetails.getTitle());
         task.setDescription(taskDetails.getDescription());
@@ -45,135 +85,216 @@ public class TaskService {
         task.setPriority(taskDetails.getPriority());
         task.setDueDate(taskDetails.getDueDate());
         task.setUpdatedAt(LocalDateTime.now());
+        // Check against the version the caller edited, not the one just loaded
+        if (taskDetails.getVersion() != null) {
+            task.setVersion(taskDetails.getVersion());
+        }
         
-        return storageService.saveTask(task);
+        Task saved = storageService.saveTask(task);
+        activityFeed.record(activityFor(saved, previousStatus, saved.getUpdatedAt()));
+        dueDateScheduler.schedule(saved);
+        changeFeed.updated(saved, previousStatus);
+        return saved;
     }
     
     public void deleteTask(Long id) {
-        storageService.deleteTask(id);
+        storageService.getTaskById(id).ifPresent(task -> {
+            storageService.deleteTask(id);
+            activityFeed.record(ActivityEvent.deleted(task, LocalDateTime.now()));
+            dueDateScheduler.unschedule(id);
+            changeFeed.deleted(task);
+        });
+    }
+
+    public long getDataVersion() {
+        return storageService.getDataVersion();
+    }
+
+    public long getDataEpoch() {
+        return storageService.getDataEpoch();
+    }
+
+    public long getLastModified() {
+        return storageService.getLastModified();
     }
 
     public long getTotalTasks() {
-        return storageService.getAllTasks().size();
+        return storageService.count();
     }
 
     public long countByStatus(Task.TaskStatus status) {
-        return storageService.getAllTasks().stream()
-            .filter(task -> task.getStatus() == status)
-            .count();
+        return storageService.countByStatus(status);
     }
     
     public void deleteAllTasks() {
-        storageService.getAllTasks().forEach(task -> 
-            storageService.deleteTask(task.getId()));
+        storageService.truncate();
+        activityFeed.record(ActivityEvent.cleared(LocalDateTime.now()));
+        dueDateScheduler.clear();
+        changeFeed.cleared();
     }
     
     public void saveAll(List<Task> tasks) {
-        tasks.forEach(task -> storageService.saveTask(task));
+        LocalDateTime now = LocalDateTime.now();
+        // Batches from the API may leave the timestamps out
+        for (Task task : tasks) {
+            if (task.getCreatedAt() == null) {
+                task.setCreatedAt(now);
+            }
+            if (task.getUpdatedAt() == null) {
+                task.setUpdatedAt(task.getCreatedAt());
+            }
+        }
+        storageService.saveAll(tasks);
+        activityFeed.recordAll(tasks.stream()
+            .map(task -> ActivityEvent.created(task, now))
+            .collect(Collectors.toList()));
+        dueDateScheduler.scheduleAll(tasks);
+        changeFeed.createdAll(tasks);
+    }
+    
+    public int deleteAll(List<Task> tasks) {
+        return deleteByIds(tasks.stream().map(Task::getId).filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+    
+    public int deleteByIds(List<Long> ids) {
+        List<Task> existing = new ArrayList<>();
+        for (Long id : ids) {
+            storageService.getTaskById(id).ifPresent(existing::add);
+        }
+        int deleted = storageService.deleteByIds(ids);
+        LocalDateTime now = LocalDateTime.now();
+        activityFeed.recordAll(existing.stream()
+            .map(task -> ActivityEvent.deleted(task, now))
+            .collect(Collectors.toList()));
+        dueDateScheduler.unscheduleAll(ids);
+        changeFeed.deletedAll(existing);
+        return deleted;
+    }
+    
+    public List<Task> updateStatusBulk(List<Long> ids, Task.TaskStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Task.TaskStatus> previous = new HashMap<>();
+        List<Task> updated = storageService.updateAll(ids, task -> {
+            previous.put(task.getId(), task.getStatus());
+            applyStatus(task, status, now);
+        });
+        activityFeed.recordAll(updated.stream()
+            .map(task -> activityFor(task, previous.get(task.getId()), now))
+            .collect(Collectors.toList()));
+        dueDateScheduler.scheduleAll(updated);
+        changeFeed.updatedAll(updated, previous);
+        return updated;
+    }
+
+    public TaskStatistics getStatistics() {
+        return storageService.getStatistics();
+    }
+
+    public CompletableFuture<TaskStatistics> getStatisticsAsync() {
+        return storageService.getStatisticsAsync();
+    }
+
+    public CompletableFuture<Long> countCreatedSinceAsync(LocalDateTime from) {
+        return storageService.countCreatedAfterAsync(from);
+    }
+
+    public CompletableFuture<Long> countCompletedSinceAsync(LocalDateTime from) {
+        return storageService.countCompletedAfterAsync(from);
     }
 
     public Map<String, Long> getTaskStatusDistribution() {
-        List<Task> tasks = getAllTasks();
-        return tasks.stream()
-            .collect(Collectors.groupingBy(
-                task -> task.getStatus().toString(),
-                Collectors.counting()
-            ));
+        return getStatistics().getStatusDistribution();
     }
 
     public Map<String, Long> getTaskPriorityDistribution() {
-        List<Task> tasks = getAllTasks();
-        return tasks.stream()
-            .collect(Collectors.groupingBy(
-                task -> task.getPriority().toString(),
-                Collectors.counting()
-            ));
+        return getStatistics().getPriorityDistribution();
     }
 
     public double getCompletionRate() {
-        List<Task> tasks = getAllTasks();
-        if (tasks.isEmpty()) return 0.0;
-        
-        long completed = tasks.stream()
-            .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED)
-            .count();
-        
-        return Math.round((double) completed / tasks.size() * 100);
+        return getStatistics().getCompletionRate();
     }
 
     public String getAverageCompletionTime() {
-        List<Task> completedTasks = getAllTasks().stream()
-            .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED && 
-                          task.getCompletedAt() != null)
-            .collect(Collectors.toList());
-        
-        if (completedTasks.isEmpty()) return "N/A";
-        
-        double avgDays = completedTasks.stream()
-            .mapToLong(task -> ChronoUnit.DAYS.between(task.getCreatedAt(), task.getCompletedAt()))
-            .average()
-            .orElse(0.0);
-        
-        return String.format("%.1f days", avgDays);
+        return getStatistics().getAverageCompletionTime();
     }
 
     public long getTasksCreatedThisMonth() {
-        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0);
-        return getAllTasks().stream()
-            .filter(task -> task.getCreatedAt().isAfter(startOfMonth))
-            .count();
+        return getStatistics().getCreatedThisMonth();
     }
 
     public long getTasksCompletedThisMonth() {
-        LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0);
-        return getAllTasks().stream()
-            .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED &&
-                          task.getCompletedAt() != null &&
-                          task.getCompletedAt().isAfter(startOfMonth))
-            .count();
+        return getStatistics().getCompletedThisMonth();
     }
 
-    public List<Map<String, String>> getRecentActivity() {
-        List<Task> tasks = getAllTasks();
-        List<Map<String, String>> activities = new ArrayList<>();
-        
-        // Add recent task creations
-        tasks.stream()
-            .sorted(Comparator.comparing(Task::getCreatedAt).reversed())
-            .limit(5)
-            .forEach(task -> {
-                Map<String, String> activity = new HashMap<>();
-                activity.put("description", "Created task: " + task.getTitle());
-                activity.put("date", task.getCreatedAt().toString());
-                activities.add(activity);
-            });
-        
-        // Add recent task completions
-        tasks.stream()
-            .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED && task.getCompletedAt() != null)
-            .sorted(Comparator.comparing(Task::getCompletedAt).reversed())
-            .limit(5)
-            .forEach(task -> {
-                Map<String, String> activity = new HashMap<>();
-                activity.put("description", "Completed task: " + task.getTitle());
-                activity.put("date", task.getCompletedAt().toString());
-                activities.add(activity);
-            });
-        
-        // Sort all activities by date
-        activities.sort((a1, a2) -> 
-            LocalDateTime.parse(a2.get("date")).compareTo(LocalDateTime.parse(a1.get("date"))));
-        
-        return activities.stream().limit(10).collect(Collectors.toList());
+    public List<Task> getOverdueTasks(int limit) {
+        return storageService.getOverdueTasks(LocalDateTime.now(), limit);
     }
+
+    public long countOverdue() {
+        return storageService.countOverdue(LocalDateTime.now());
+    }
+
+    public CompletableFuture<Long> countOverdueAsync() {
+        return storageService.countOverdueAsync(LocalDateTime.now());
+    }
+
+    public Map<Task.TaskPriority, Long> countOverdueByPriority() {
+        return storageService.countOverdueByPriority(LocalDateTime.now());
+    }
+
+    public CompletableFuture<Map<Task.TaskPriority, Long>> countOverdueByPriorityAsync() {
+        return storageService.countOverdueByPriorityAsync(LocalDateTime.now());
+    }
+
+    // The last n weeks, Monday to Sunday, ending with the current one
+    public List<WeeklyCompletion> getWeeklyCompletion(int weeks) {
+        return storageService.getWeeklyCompletion(firstWeek(weeks), weeks);
+    }
+
+    public CompletableFuture<List<WeeklyCompletion>> getWeeklyCompletionAsync(int weeks) {
+        return storageService.getWeeklyCompletionAsync(firstWeek(weeks), weeks);
+    }
+
+    private static LocalDate firstWeek(int weeks) {
+        return LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(weeks - 1);
+    }
+
+    public List<ActivityEvent> getRecentActivity() {
+        return activityFeed.recent(RECENT_ACTIVITY_LIMIT);
+    }
+    
     public Task updateTaskStatus(Long id, Task.TaskStatus status) {
-        Task task = getTaskById(id)
-            .orElseThrow(() -> new RuntimeException("Task not found"));
+        // A status change does not depend on the rest of the task, so reapply it on conflict
+        for (int attempt = 1; ; attempt++) {
+            Task task = getTaskById(id)
+                .orElseThrow(() -> new RuntimeException("Task not found"));
+            Task.TaskStatus previousStatus = task.getStatus();
+            applyStatus(task, status, LocalDateTime.now());
+            try {
+                Task saved = storageService.saveTask(task);
+                activityFeed.record(activityFor(saved, previousStatus, saved.getUpdatedAt()));
+                dueDateScheduler.schedule(saved);
+                changeFeed.updated(saved, previousStatus);
+                return saved;
+            } catch (StaleTaskException e) {
+                if (attempt >= STATUS_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    private ActivityEvent activityFor(Task task, Task.TaskStatus previousStatus, LocalDateTime now) {
+        return task.getStatus() != previousStatus
+            ? ActivityEvent.transition(task, previousStatus, now)
+            : ActivityEvent.updated(task, now);
+    }
+    
+    private void applyStatus(Task task, Task.TaskStatus status, LocalDateTime now) {
         task.setStatus(status);
-        task.setUpdatedAt(LocalDateTime.now());
+        task.setUpdatedAt(now);
         if (status == Task.TaskStatus.COMPLETED) {
-            task.setCompletedAt(LocalDateTime.now());
+            task.setCompletedAt(now);
         }
-        return storageService.saveTask(task);
     }
 }
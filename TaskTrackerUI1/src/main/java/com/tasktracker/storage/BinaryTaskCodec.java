@@ -0,0 +1,168 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compact snapshot format.
+ *
+ * <pre>
+ * header  : magic "TTSK" | format version (1 byte) | task count (varint)
+ * task    : id (varint) | version (varint) | status, priority (1 byte each, ordinal + 1, 0 = null)
+ *           | presence flags (1 byte) | title | description | createdAt | updatedAt | dueDate | completedAt
+ * </pre>
+ *
+ * Strings are a varint byte length followed by UTF-8; timestamps are zigzag
+ * varint epoch milliseconds, taking the stored local times as UTC. Fields
+ * whose flag is clear are omitted.
+ */
+public class BinaryTaskCodec implements TaskCodec {
+    private static final int MAGIC = 0x5454534B;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HAS_TITLE = 1;
+    private static final int HAS_DESCRIPTION = 1 << 1;
+    private static final int HAS_CREATED_AT = 1 << 2;
+    private static final int HAS_UPDATED_AT = 1 << 3;
+    private static final int HAS_DUE_DATE = 1 << 4;
+    private static final int HAS_COMPLETED_AT = 1 << 5;
+
+    private static final Task.TaskStatus[] STATUSES = Task.TaskStatus.values();
+    private static final Task.TaskPriority[] PRIORITIES = Task.TaskPriority.values();
+
+    @Override
+    public String fileName() {
+        return "tasks.bin";
+    }
+
+    @Override
+    public List<Task> read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a task snapshot: bad magic number");
+        }
+        int version = data.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported task snapshot version " + version);
+        }
+        int count = (int) readVarLong(data);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(readTask(data));
+        }
+        return tasks;
+    }
+
+    @Override
+    public void write(Collection<Task> tasks, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        data.writeInt(MAGIC);
+        data.writeByte(FORMAT_VERSION);
+        writeVarLong(data, tasks.size());
+        for (Task task : tasks) {
+            writeTask(data, task);
+        }
+        data.flush();
+    }
+
+    private Task readTask(DataInputStream in) throws IOException {
+        Task task = new Task();
+        task.setId(readVarLong(in));
+        task.setVersion(readVarLong(in));
+        int status = in.readUnsignedByte();
+        task.setStatus(status == 0 ? null : STATUSES[status - 1]);
+        int priority = in.readUnsignedByte();
+        task.setPriority(priority == 0 ? null : PRIORITIES[priority - 1]);
+        int flags = in.readUnsignedByte();
+        task.setTitle((flags & HAS_TITLE) != 0 ? readString(in) : null);
+        task.setDescription((flags & HAS_DESCRIPTION) != 0 ? readString(in) : null);
+        task.setCreatedAt((flags & HAS_CREATED_AT) != 0 ? readTime(in) : null);
+        task.setUpdatedAt((flags & HAS_UPDATED_AT) != 0 ? readTime(in) : null);
+        task.setDueDate((flags & HAS_DUE_DATE) != 0 ? readTime(in) : null);
+        task.setCompletedAt((flags & HAS_COMPLETED_AT) != 0 ? readTime(in) : null);
+        return task;
+    }
+
+    private void writeTask(DataOutputStream out, Task task) throws IOException {
+        writeVarLong(out, task.getId());
+        writeVarLong(out, task.getVersion() != null ? task.getVersion() : 0);
+        out.writeByte(task.getStatus() != null ? task.getStatus().ordinal() + 1 : 0);
+        out.writeByte(task.getPriority() != null ? task.getPriority().ordinal() + 1 : 0);
+        int flags = (task.getTitle() != null ? HAS_TITLE : 0)
+            | (task.getDescription() != null ? HAS_DESCRIPTION : 0)
+            | (task.getCreatedAt() != null ? HAS_CREATED_AT : 0)
+            | (task.getUpdatedAt() != null ? HAS_UPDATED_AT : 0)
+            | (task.getDueDate() != null ? HAS_DUE_DATE : 0)
+            | (task.getCompletedAt() != null ? HAS_COMPLETED_AT : 0);
+        out.writeByte(flags);
+        if (task.getTitle() != null) {
+            writeString(out, task.getTitle());
+        }
+        if (task.getDescription() != null) {
+            writeString(out, task.getDescription());
+        }
+        if (task.getCreatedAt() != null) {
+            writeTime(out, task.getCreatedAt());
+        }
+        if (task.getUpdatedAt() != null) {
+            writeTime(out, task.getUpdatedAt());
+        }
+        if (task.getDueDate() != null) {
+            writeTime(out, task.getDueDate());
+        }
+        if (task.getCompletedAt() != null) {
+            writeTime(out, task.getCompletedAt());
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        long zigzag = readVarLong(in);
+        long millis = (zigzag >>> 1) ^ -(zigzag & 1);
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        long millis = value.toInstant(ZoneOffset.UTC).toEpochMilli();
+        writeVarLong(out, (millis << 1) ^ (millis >> 63));
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint in task snapshot");
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,81 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A snapshot kept as one file in a {@link TaskCodec} format and replaced
+ * as a whole on every write.
+ */
+public class CodecSnapshotStore implements TaskSnapshotStore {
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path path;
+    private final Path tmpPath;
+    private final TaskCodec codec;
+
+    public CodecSnapshotStore(Path dataDir, TaskCodec codec) {
+        this.codec = codec;
+        this.path = dataDir.resolve(codec.fileName());
+        this.tmpPath = dataDir.resolve(codec.fileName() + TMP_SUFFIX);
+        try {
+            Files.deleteIfExists(tmpPath);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not remove stale snapshot " + tmpPath, e);
+        }
+    }
+
+    @Override
+    public String describe() {
+        return path.toString();
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.exists(path);
+    }
+
+    @Override
+    public List<Task> load() throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return codec.read(in);
+        }
+    }
+
+    // Writes a complete snapshot beside the live file and renames it into place,
+    // so a crash leaves either the old or the new snapshot, never a partial one.
+    // The rename is synced before returning, as the caller then deletes the
+    // journal segments the snapshot replaces.
+    @Override
+    public long write(Collection<Task> tasks) throws IOException {
+        long written;
+        try (FileChannel channel = FileChannel.open(tmpPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            codec.write(tasks, Channels.newOutputStream(channel));
+            channel.force(true);
+            written = channel.size();
+        }
+        Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Fsync.directory(path.toAbsolutePath().getParent());
+        return written;
+    }
+
+    @Override
+    public long sizeOnDisk() {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.tasktracker.storage;
+
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Ordered index of task ids by one timestamp field. Entries are keyed by
+ * (timestamp, id) so tasks sharing a timestamp still have a stable order.
+ * Timestamps are epoch milliseconds as held by {@link TaskRecord}, with
+ * {@link TaskRecord#NONE} for an unset field or an open bound.
+ */
+public class DateIndex {
+
+    public record Key(long time, long id) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int cmp = Long.compare(time, other.time);
+            return cmp != 0 ? cmp : Long.compare(id, other.id);
+        }
+    }
+
+    private final ConcurrentSkipListSet<Key> keys = new ConcurrentSkipListSet<>();
+
+    public void update(long id, long before, long after) {
+        if (before == after) {
+            return;
+        }
+        if (before != TaskRecord.NONE) {
+            keys.remove(new Key(before, id));
+        }
+        if (after != TaskRecord.NONE) {
+            keys.add(new Key(after, id));
+        }
+    }
+
+    public void clear() {
+        keys.clear();
+    }
+
+    /**
+     * Entries strictly after {@code from} and strictly before {@code to};
+     * either bound may be {@link TaskRecord#NONE} for an open range.
+     */
+    public NavigableSet<Key> range(long from, long to) {
+        NavigableSet<Key> view = keys;
+        if (from != TaskRecord.NONE) {
+            view = view.tailSet(new Key(from, Long.MAX_VALUE), false);
+        }
+        if (to != TaskRecord.NONE) {
+            view = view.headSet(new Key(to, Long.MIN_VALUE), false);
+        }
+        return view;
+    }
+
+    /**
+     * Iterates in the given direction, starting just past {@code after}
+     * when a continuation key is supplied.
+     */
+    public Iterator<Key> iterate(boolean descending, Key after) {
+        if (after == null) {
+            return descending ? keys.descendingIterator() : keys.iterator();
+        }
+        return descending
+            ? keys.headSet(after, false).descendingIterator()
+            : keys.tailSet(after, false).iterator();
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public Iterator<Key> newestFirst() {
+        return keys.descendingIterator();
+    }
+
+    public Iterator<Key> oldestFirst() {
+        return keys.iterator();
+    }
+}
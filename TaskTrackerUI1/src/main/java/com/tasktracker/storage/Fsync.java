@@ -0,0 +1,23 @@
+package com.tasktracker.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Forcing a file's channel makes its contents durable but not its name:
+ * a rename or a newly created file is only durable once the directory
+ * holding it has been synced as well.
+ */
+final class Fsync {
+
+    private Fsync() {
+    }
+
+    static void directory(Path dir) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A snapshot store that can apply just the tasks changed since its last
+ * write instead of rewriting everything on each compaction.
+ */
+public interface IncrementalSnapshotStore extends TaskSnapshotStore {
+
+    /**
+     * Applies tasks changed since the last write or update; a null value
+     * marks a deletion. Returns the number of bytes written.
+     */
+    long update(Map<Long, Task> changes) throws IOException;
+
+    // May ask for a full rewrite instead, e.g. to reclaim space
+    default boolean needsRewrite() {
+        return false;
+    }
+}
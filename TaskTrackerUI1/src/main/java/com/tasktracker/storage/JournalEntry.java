@@ -0,0 +1,71 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+
+import java.util.List;
+
+public class JournalEntry {
+
+    public enum Op {
+        PUT, DELETE, PUT_ALL, DELETE_ALL, TRUNCATE
+    }
+
+    private Op op;
+    private Task task;
+    private Long id;
+    private List<Task> tasks;
+    private List<Long> ids;
+
+    public JournalEntry() {}
+
+    private JournalEntry(Op op, Task task, Long id) {
+        this.op = op;
+        this.task = task;
+        this.id = id;
+    }
+
+    // A batch is a single log line, so replay applies all of it or, if the line was torn, none of it
+    public static JournalEntry putAll(List<Task> tasks) {
+        JournalEntry entry = new JournalEntry(Op.PUT_ALL, null, null);
+        entry.tasks = tasks;
+        return entry;
+    }
+
+    public static JournalEntry put(Task task) {
+        return new JournalEntry(Op.PUT, task, task.getId());
+    }
+
+    public static JournalEntry delete(Long id) {
+        return new JournalEntry(Op.DELETE, null, id);
+    }
+
+    public static JournalEntry deleteAll(List<Long> ids) {
+        JournalEntry entry = new JournalEntry(Op.DELETE_ALL, null, null);
+        entry.ids = ids;
+        return entry;
+    }
+
+    public static JournalEntry truncate() {
+        return new JournalEntry(Op.TRUNCATE, null, null);
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+}
@@ -0,0 +1,40 @@
+package com.tasktracker.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.tasktracker.model.Task;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The original pretty-printed tasks.json format.
+ */
+public class JsonTaskCodec implements TaskCodec {
+    private static final Type LIST_TYPE = new TypeToken<List<Task>>(){}.getType();
+
+    private final Gson gson = TaskGson.builder().setPrettyPrinting().create();
+
+    @Override
+    public String fileName() {
+        return "tasks.json";
+    }
+
+    @Override
+    public List<Task> read(InputStream in) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<Task> loaded = gson.fromJson(reader, LIST_TYPE);
+        return loaded != null ? loaded : new ArrayList<>();
+    }
+
+    @Override
+    public void write(Collection<Task> tasks, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        gson.toJson(tasks, LIST_TYPE, writer);
+        writer.flush();
+    }
+}
@@ -0,0 +1,204 @@
+package com.tasktracker.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Inverted index over task titles and descriptions. Terms are lowercased
+ * runs of letters and digits; each posting carries a weight where a title
+ * occurrence counts more than a description one. Every query term matches
+ * as a prefix, all terms must match, and results are ranked by summed weight
+ * with exact term matches counting double.
+ */
+public class SearchIndex {
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int EXACT_MATCH_BOOST = 2;
+
+    public record Hit(long id, int score) {}
+
+    public record Result(List<Hit> hits, long total) {}
+
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Applies one mutation: {@code before} is null for an insert and
+     * {@code after} is null for a delete.
+     */
+    public void update(Long id, TaskRecord before, TaskRecord after) {
+        if (before != null && after != null
+                && Objects.equals(before.getTitle(), after.getTitle())
+                && Objects.equals(before.getDescription(), after.getDescription())) {
+            return;
+        }
+        Map<String, Integer> oldTerms = before != null ? termWeights(before) : Map.of();
+        Map<String, Integer> newTerms = after != null ? termWeights(after) : Map.of();
+        lock.writeLock().lock();
+        try {
+            for (String term : oldTerms.keySet()) {
+                if (!newTerms.containsKey(term)) {
+                    Map<Long, Integer> ids = postings.get(term);
+                    if (ids != null) {
+                        ids.remove(id);
+                        if (ids.isEmpty()) {
+                            postings.remove(term);
+                        }
+                    }
+                }
+            }
+            for (Map.Entry<String, Integer> term : newTerms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), key -> new HashMap<>()).put(id, term.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the best {@code limit} matches that pass {@code filter}, best
+     * first, along with the total number of matches.
+     */
+    public Result search(String text, LongPredicate filter, int limit) {
+        List<String> terms = new ArrayList<>(tokenize(text));
+        if (terms.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            List<Map<String, Map<Long, Integer>>> expansions = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<String, Map<Long, Integer>> matches = postings.subMap(term, true, term + Character.MAX_VALUE, true);
+                if (matches.isEmpty()) {
+                    return new Result(List.of(), 0);
+                }
+                expansions.add(matches);
+            }
+            // Start from the most selective term and only probe the others
+            Integer[] order = new Integer[terms.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> postingCount(expansions.get(i))));
+
+            Map<Long, Integer> scores = new HashMap<>();
+            int first = order[0];
+            for (Map.Entry<String, Map<Long, Integer>> expansion : expansions.get(first).entrySet()) {
+                int boost = expansion.getKey().equals(terms.get(first)) ? EXACT_MATCH_BOOST : 1;
+                for (Map.Entry<Long, Integer> posting : expansion.getValue().entrySet()) {
+                    scores.merge(posting.getKey(), posting.getValue() * boost, Math::max);
+                }
+            }
+            for (int k = 1; k < order.length && !scores.isEmpty(); k++) {
+                int t = order[k];
+                Iterator<Map.Entry<Long, Integer>> candidates = scores.entrySet().iterator();
+                while (candidates.hasNext()) {
+                    Map.Entry<Long, Integer> candidate = candidates.next();
+                    int best = 0;
+                    for (Map.Entry<String, Map<Long, Integer>> expansion : expansions.get(t).entrySet()) {
+                        Integer weight = expansion.getValue().get(candidate.getKey());
+                        if (weight != null) {
+                            int boost = expansion.getKey().equals(terms.get(t)) ? EXACT_MATCH_BOOST : 1;
+                            best = Math.max(best, weight * boost);
+                        }
+                    }
+                    if (best == 0) {
+                        candidates.remove();
+                    } else {
+                        candidate.setValue(candidate.getValue() + best);
+                    }
+                }
+            }
+            return rank(scores, filter, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bounded heap of the best hits; ties go to the newer (higher) id
+    private static Result rank(Map<Long, Integer> scores, LongPredicate filter, int limit) {
+        Comparator<Hit> ranking = Comparator.comparingInt(Hit::score).thenComparingLong(Hit::id);
+        PriorityQueue<Hit> best = new PriorityQueue<>(ranking);
+        long total = 0;
+        for (Map.Entry<Long, Integer> score : scores.entrySet()) {
+            if (!filter.test(score.getKey())) {
+                continue;
+            }
+            total++;
+            Hit hit = new Hit(score.getKey(), score.getValue());
+            if (best.size() < limit) {
+                best.add(hit);
+            } else if (limit > 0 && ranking.compare(hit, best.peek()) > 0) {
+                best.poll();
+                best.add(hit);
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(ranking.reversed());
+        return new Result(hits, total);
+    }
+
+    private static long postingCount(Map<String, Map<Long, Integer>> expansion) {
+        long count = 0;
+        for (Map<Long, Integer> ids : expansion.values()) {
+            count += ids.size();
+        }
+        return count;
+    }
+
+    private static Map<String, Integer> termWeights(TaskRecord task) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String term : tokenize(task.getTitle())) {
+            weights.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(task.getDescription())) {
+            weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        return weights;
+    }
+
+    public static Collection<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= MIN_TERM_LENGTH) {
+                    terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
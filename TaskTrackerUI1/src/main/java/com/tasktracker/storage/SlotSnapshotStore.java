@@ -0,0 +1,495 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot kept as fixed-width task records in a memory-mapped slot file,
+ * with titles and descriptions in an append-only string heap beside it.
+ * Compaction only rewrites the slots of tasks that changed: a status or
+ * timestamp change touches one 80-byte record in place, and a changed string
+ * is appended to the heap. Once the heap is mostly garbage the store asks for
+ * a full rewrite, which starts a new heap generation.
+ *
+ * <pre>
+ * tasks.slots  : header (32 bytes) | slot * capacity (80 bytes each)
+ * header       : magic "TTSL" | format version | heap generation | slot high-water mark
+ * slot         : id | version | status, priority (ordinal + 1) | flags (bit 0 = in use)
+ *                | createdAt | updatedAt | dueDate | completedAt (epoch millis, UTC)
+ *                | title offset | title length | description length | description offset
+ * tasks.heap.N : UTF-8 string bytes referenced by (offset, length); length -1 is null
+ * </pre>
+ *
+ * An update appends and forces every new string before it writes the first
+ * slot, as mapped pages may reach the disk at any time. A crash part way
+ * through leaves a mix of old and new records; the journal segments being
+ * folded are only deleted afterwards, and replaying them over the slots
+ * restores every touched task. A record that still points outside the heap
+ * is dropped on load as torn, to be restored the same way.
+ */
+public class SlotSnapshotStore implements IncrementalSnapshotStore {
+    private static final String SLOTS_FILE = "tasks.slots";
+    private static final String HEAP_PREFIX = "tasks.heap.";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x5454534C;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 80;
+    private static final int MIN_CAPACITY = 1024;
+    private static final int WRITE_BATCH_SLOTS = 1024;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final long MIN_REWRITE_GARBAGE = 1 << 20;
+
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_HEAP_GENERATION = 8;
+    private static final int H_SLOT_COUNT = 16;
+
+    private static final int S_ID = 0;
+    private static final int S_VERSION = 8;
+    private static final int S_STATUS = 16;
+    private static final int S_PRIORITY = 17;
+    private static final int S_FLAGS = 18;
+    private static final int S_CREATED_AT = 24;
+    private static final int S_UPDATED_AT = 32;
+    private static final int S_DUE_DATE = 40;
+    private static final int S_COMPLETED_AT = 48;
+    private static final int S_TITLE_OFFSET = 56;
+    private static final int S_TITLE_LENGTH = 64;
+    private static final int S_DESCRIPTION_LENGTH = 68;
+    private static final int S_DESCRIPTION_OFFSET = 72;
+
+    private static final byte IN_USE = 1;
+
+    private static final Logger log = LoggerFactory.getLogger(SlotSnapshotStore.class);
+
+    private static final Task.TaskStatus[] STATUSES = Task.TaskStatus.values();
+    private static final Task.TaskPriority[] PRIORITIES = Task.TaskPriority.values();
+
+    // A string as stored in a slot: heap offset and byte length, -1 for null
+    private record StringRef(long offset, int length) {}
+
+    // A task to be written to its slot once the strings it points at are durable
+    private record SlotWrite(Task task, StringRef title, StringRef description) {}
+
+    private final Path dataDir;
+    private final Path slotsPath;
+    private final Path tmpPath;
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    private FileChannel slotsChannel;
+    private MappedByteBuffer slots;
+    private FileChannel heapChannel;
+    private long heapGeneration;
+    private long heapSize;
+    private int slotCount;
+    private int capacity;
+    private long liveBytes;
+
+    public SlotSnapshotStore(Path dataDir) {
+        this.dataDir = dataDir;
+        this.slotsPath = dataDir.resolve(SLOTS_FILE);
+        this.tmpPath = dataDir.resolve(SLOTS_FILE + TMP_SUFFIX);
+        try {
+            Files.deleteIfExists(tmpPath);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not remove stale snapshot " + tmpPath, e);
+        }
+    }
+
+    @Override
+    public String describe() {
+        return slotsPath.toString();
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.exists(slotsPath);
+    }
+
+    @Override
+    public boolean needsRewrite() {
+        long garbage = heapSize - liveBytes;
+        return garbage > MIN_REWRITE_GARBAGE && garbage > liveBytes;
+    }
+
+    @Override
+    public List<Task> load() throws IOException {
+        open();
+        deleteOtherHeaps();
+        slotById.clear();
+        freeSlots.clear();
+        liveBytes = 0;
+        if (heapSize > Integer.MAX_VALUE) {
+            throw new IOException("String heap of " + slotsPath + " is too large to map");
+        }
+        MappedByteBuffer heap = heapChannel.map(FileChannel.MapMode.READ_ONLY, 0, heapSize);
+        List<Task> tasks = new ArrayList<>(slotCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            int base = slotBase(slot);
+            if (slots.get(base + S_FLAGS) != IN_USE) {
+                freeSlots.add(slot);
+                continue;
+            }
+            if (isTorn(base)) {
+                log.warn("Dropping torn record of task {} in {}; the journal restores it", slots.getLong(base + S_ID), slotsPath);
+                slots.put(base + S_FLAGS, (byte) 0);
+                freeSlots.add(slot);
+                continue;
+            }
+            Task task = new Task();
+            task.setId(slots.getLong(base + S_ID));
+            task.setVersion(slots.getLong(base + S_VERSION));
+            int status = slots.get(base + S_STATUS);
+            task.setStatus(status == 0 ? null : STATUSES[status - 1]);
+            int priority = slots.get(base + S_PRIORITY);
+            task.setPriority(priority == 0 ? null : PRIORITIES[priority - 1]);
+            task.setCreatedAt(getTime(base + S_CREATED_AT));
+            task.setUpdatedAt(getTime(base + S_UPDATED_AT));
+            task.setDueDate(getTime(base + S_DUE_DATE));
+            task.setCompletedAt(getTime(base + S_COMPLETED_AT));
+            task.setTitle(getString(heap, slots.getLong(base + S_TITLE_OFFSET), slots.getInt(base + S_TITLE_LENGTH)));
+            task.setDescription(getString(heap, slots.getLong(base + S_DESCRIPTION_OFFSET), slots.getInt(base + S_DESCRIPTION_LENGTH)));
+            liveBytes += stringBytes(base);
+            slotById.put(task.getId(), slot);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Writes a fresh heap generation and slot file, then renames the slot file
+     * into place. Until the rename the old slot file still points at the old
+     * heap, so a crash leaves one consistent pair or the other.
+     */
+    @Override
+    public long write(Collection<Task> tasks) throws IOException {
+        long generation = heapGeneration + 1;
+        Path heapPath = heapPath(generation);
+        long heapOffset = 0;
+        Map<Long, Integer> written = new HashMap<>();
+        try (FileChannel heapOut = FileChannel.open(heapPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel slotsOut = FileChannel.open(tmpPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream heapStream = new BufferedOutputStream(Channels.newOutputStream(heapOut), 64 * 1024);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(H_MAGIC, MAGIC);
+            header.putInt(H_VERSION, FORMAT_VERSION);
+            header.putLong(H_HEAP_GENERATION, generation);
+            header.putInt(H_SLOT_COUNT, tasks.size());
+            writeFully(slotsOut, header);
+
+            ByteBuffer batch = ByteBuffer.allocate(WRITE_BATCH_SLOTS * SLOT_SIZE);
+            int slot = 0;
+            for (Task task : tasks) {
+                int base = batch.position();
+                byte[] title = encode(task.getTitle());
+                byte[] description = encode(task.getDescription());
+                putFields(batch, base, task);
+                batch.putLong(base + S_TITLE_OFFSET, heapOffset);
+                batch.putInt(base + S_TITLE_LENGTH, title != null ? title.length : -1);
+                if (title != null) {
+                    heapStream.write(title);
+                    heapOffset += title.length;
+                }
+                batch.putLong(base + S_DESCRIPTION_OFFSET, heapOffset);
+                batch.putInt(base + S_DESCRIPTION_LENGTH, description != null ? description.length : -1);
+                if (description != null) {
+                    heapStream.write(description);
+                    heapOffset += description.length;
+                }
+                batch.position(base + SLOT_SIZE);
+                if (!batch.hasRemaining()) {
+                    batch.flip();
+                    writeFully(slotsOut, batch);
+                    batch.clear();
+                }
+                written.put(task.getId(), slot++);
+            }
+            batch.flip();
+            writeFully(slotsOut, batch);
+            heapStream.flush();
+            heapOut.force(true);
+            slotsOut.force(true);
+        }
+
+        long previousGeneration = heapGeneration;
+        close();
+        Files.move(tmpPath, slotsPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // Makes the rename and the new heap's name durable before the old heap and the journal go
+        Fsync.directory(dataDir);
+        if (previousGeneration != 0) {
+            Files.deleteIfExists(heapPath(previousGeneration));
+        }
+        open();
+        slotById.clear();
+        slotById.putAll(written);
+        freeSlots.clear();
+        liveBytes = heapOffset;
+        return (long) HEADER_SIZE + (long) tasks.size() * SLOT_SIZE + heapOffset;
+    }
+
+    @Override
+    public long update(Map<Long, Task> changes) throws IOException {
+        long heapBefore = heapSize;
+        List<SlotWrite> writes = new ArrayList<>(changes.size());
+        for (Task task : changes.values()) {
+            if (task == null) {
+                continue;
+            }
+            Integer slot = slotById.get(task.getId());
+            int base = slot != null ? slotBase(slot) : -1;
+            writes.add(new SlotWrite(task,
+                storeString(base, S_TITLE_OFFSET, S_TITLE_LENGTH, task.getTitle()),
+                storeString(base, S_DESCRIPTION_OFFSET, S_DESCRIPTION_LENGTH, task.getDescription())));
+        }
+        // Strings must be durable before any slot that points at them is written
+        heapChannel.force(false);
+
+        long written = heapSize - heapBefore;
+        for (Map.Entry<Long, Task> change : changes.entrySet()) {
+            Integer slot = slotById.get(change.getKey());
+            if (change.getValue() == null && slot != null) {
+                release(change.getKey(), slot);
+                written += SLOT_SIZE;
+            }
+        }
+        for (SlotWrite write : writes) {
+            Integer slot = slotById.get(write.task().getId());
+            if (slot == null) {
+                slot = allocate();
+                slotById.put(write.task().getId(), slot);
+            } else {
+                liveBytes -= stringBytes(slotBase(slot));
+            }
+            int base = slotBase(slot);
+            putFields(slots, base, write.task());
+            putRef(base + S_TITLE_OFFSET, base + S_TITLE_LENGTH, write.title());
+            putRef(base + S_DESCRIPTION_OFFSET, base + S_DESCRIPTION_LENGTH, write.description());
+            liveBytes += stringBytes(base);
+            written += SLOT_SIZE;
+        }
+        slots.putInt(H_SLOT_COUNT, slotCount);
+        slots.force();
+        return written;
+    }
+
+    @Override
+    public long sizeOnDisk() {
+        try {
+            long size = Files.size(slotsPath);
+            Path heapPath = heapPath(heapGeneration);
+            return Files.exists(heapPath) ? size + Files.size(heapPath) : size;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (slots != null) {
+            slots.force();
+            slots = null;
+        }
+        if (slotsChannel != null) {
+            slotsChannel.close();
+            slotsChannel = null;
+        }
+        if (heapChannel != null) {
+            heapChannel.close();
+            heapChannel = null;
+        }
+    }
+
+    private void open() throws IOException {
+        slotsChannel = FileChannel.open(slotsPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        slotsChannel.read(header, 0);
+        if (header.getInt(H_MAGIC) != MAGIC) {
+            throw new IOException("Not a task slot file: " + slotsPath);
+        }
+        int version = header.getInt(H_VERSION);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported task slot file version " + version + " in " + slotsPath);
+        }
+        heapGeneration = header.getLong(H_HEAP_GENERATION);
+        slotCount = header.getInt(H_SLOT_COUNT);
+        long storedSlots = (slotsChannel.size() - HEADER_SIZE) / SLOT_SIZE;
+        map((int) Math.max(MIN_CAPACITY, Math.max(storedSlots, slotCount)));
+        heapChannel = FileChannel.open(heapPath(heapGeneration),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        heapSize = heapChannel.size();
+    }
+
+    private void map(int newCapacity) throws IOException {
+        if (slots != null) {
+            slots.force();
+        }
+        slots = slotsChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) newCapacity * SLOT_SIZE);
+        capacity = newCapacity;
+    }
+
+    private int allocate() throws IOException {
+        Integer free = freeSlots.poll();
+        if (free != null) {
+            return free;
+        }
+        if (slotCount == capacity) {
+            map(capacity * 2);
+        }
+        return slotCount++;
+    }
+
+    private void release(Long id, int slot) {
+        int base = slotBase(slot);
+        liveBytes -= stringBytes(base);
+        slots.put(base + S_FLAGS, (byte) 0);
+        slotById.remove(id);
+        freeSlots.add(slot);
+    }
+
+    // Keeps the slot's heap reference when the string is unchanged, otherwise appends it;
+    // base is -1 for a task without a slot yet
+    private StringRef storeString(int base, int offsetField, int lengthField, String value) throws IOException {
+        byte[] bytes = encode(value);
+        int length = bytes != null ? bytes.length : -1;
+        if (base >= 0) {
+            long oldOffset = slots.getLong(base + offsetField);
+            int oldLength = slots.getInt(base + lengthField);
+            if (oldLength == length && (bytes == null || Arrays.equals(bytes, readHeap(oldOffset, oldLength)))) {
+                return new StringRef(oldOffset, oldLength);
+            }
+        }
+        if (bytes == null) {
+            return new StringRef(heapSize, -1);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long offset = heapSize;
+        while (buffer.hasRemaining()) {
+            heapChannel.write(buffer, offset + buffer.position());
+        }
+        heapSize += bytes.length;
+        return new StringRef(offset, bytes.length);
+    }
+
+    private void putRef(int offsetAt, int lengthAt, StringRef ref) {
+        slots.putLong(offsetAt, ref.offset());
+        slots.putInt(lengthAt, ref.length());
+    }
+
+    // A record written back before the strings or fields it refers to
+    private boolean isTorn(int base) {
+        int status = slots.get(base + S_STATUS);
+        int priority = slots.get(base + S_PRIORITY);
+        return status < 0 || status > STATUSES.length || priority < 0 || priority > PRIORITIES.length
+            || !inHeap(slots.getLong(base + S_TITLE_OFFSET), slots.getInt(base + S_TITLE_LENGTH))
+            || !inHeap(slots.getLong(base + S_DESCRIPTION_OFFSET), slots.getInt(base + S_DESCRIPTION_LENGTH));
+    }
+
+    private boolean inHeap(long offset, int length) {
+        return length == -1 || (length >= 0 && offset >= 0 && offset + length <= heapSize);
+    }
+
+    private byte[] readHeap(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (heapChannel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("String heap of " + slotsPath + " is truncated");
+            }
+        }
+        return buffer.array();
+    }
+
+    private static void putFields(ByteBuffer buffer, int base, Task task) {
+        buffer.putLong(base + S_ID, task.getId());
+        buffer.putLong(base + S_VERSION, task.getVersion() != null ? task.getVersion() : 0);
+        buffer.put(base + S_STATUS, (byte) (task.getStatus() != null ? task.getStatus().ordinal() + 1 : 0));
+        buffer.put(base + S_PRIORITY, (byte) (task.getPriority() != null ? task.getPriority().ordinal() + 1 : 0));
+        buffer.put(base + S_FLAGS, IN_USE);
+        putTime(buffer, base + S_CREATED_AT, task.getCreatedAt());
+        putTime(buffer, base + S_UPDATED_AT, task.getUpdatedAt());
+        putTime(buffer, base + S_DUE_DATE, task.getDueDate());
+        putTime(buffer, base + S_COMPLETED_AT, task.getCompletedAt());
+    }
+
+    private static void putTime(ByteBuffer buffer, int at, LocalDateTime value) {
+        buffer.putLong(at, value != null ? value.toInstant(ZoneOffset.UTC).toEpochMilli() : NULL_TIME);
+    }
+
+    private LocalDateTime getTime(int at) {
+        long millis = slots.getLong(at);
+        return millis == NULL_TIME ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private static String getString(ByteBuffer heap, long offset, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        heap.get((int) offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private long stringBytes(int base) {
+        return Math.max(slots.getInt(base + S_TITLE_LENGTH), 0) + Math.max(slots.getInt(base + S_DESCRIPTION_LENGTH), 0);
+    }
+
+    private static int slotBase(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private Path heapPath(long generation) {
+        return dataDir.resolve(HEAP_PREFIX + generation);
+    }
+
+    // Heaps from an interrupted rewrite are never referenced by the slot file
+    private void deleteOtherHeaps() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dataDir, HEAP_PREFIX + "*")) {
+            for (Path path : stream) {
+                String suffix = path.getFileName().toString().substring(HEAP_PREFIX.length());
+                if (suffix.chars().allMatch(Character::isDigit) && !suffix.equals(Long.toString(heapGeneration))) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.tasktracker.storage;
+
+/**
+ * Lossy deduplication of task text. Equal titles and descriptions (imports,
+ * recurring chores, copies of a template) decode into separate strings; the
+ * pool hands back the instance it saw last in the same slot instead. A slot
+ * is simply overwritten on a miss, so the pool never holds more than its
+ * capacity and keeps nothing alive that the store has dropped for long.
+ */
+public class StringPool {
+    // Longer strings are rarely repeated verbatim and not worth comparing
+    private static final int MAX_LENGTH = 256;
+
+    private final String[] slots;
+    private final int mask;
+
+    public StringPool(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.slots = new String[size];
+        this.mask = size - 1;
+    }
+
+    public String intern(String value) {
+        if (value == null || value.length() > MAX_LENGTH) {
+            return value;
+        }
+        int slot = spread(value.hashCode()) & mask;
+        String pooled = slots[slot];
+        if (value.equals(pooled)) {
+            return pooled;
+        }
+        slots[slot] = value;
+        return value;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,92 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskStatistics;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running counters behind the analytics and profile pages. Every mutation
+ * subtracts the old task's contribution and adds the new one, so reading
+ * the figures never touches the tasks themselves.
+ */
+public class TaskAggregates {
+
+    private long total;
+    private final long[] statusCounts = new long[Task.TaskStatus.values().length];
+    private final long[] priorityCounts = new long[Task.TaskPriority.values().length];
+    private long timedCompletions;
+    private long completionDaysSum;
+    private final Map<YearMonth, Long> createdByMonth = new HashMap<>();
+    private final Map<YearMonth, Long> completedByMonth = new HashMap<>();
+
+    public synchronized void update(TaskRecord before, TaskRecord after) {
+        if (before != null) {
+            apply(before, -1);
+        }
+        if (after != null) {
+            apply(after, 1);
+        }
+    }
+
+    private void apply(TaskRecord task, int sign) {
+        total += sign;
+        if (task.getStatus() != null) {
+            statusCounts[task.getStatus().ordinal()] += sign;
+        }
+        if (task.getPriority() != null) {
+            priorityCounts[task.getPriority().ordinal()] += sign;
+        }
+        LocalDateTime createdAt = TaskRecord.time(task.getCreatedAt());
+        if (createdAt != null) {
+            bump(createdByMonth, YearMonth.from(createdAt), sign);
+        }
+        LocalDateTime completedAt = TaskRecord.time(task.getCompletedAt());
+        if (task.getStatus() == Task.TaskStatus.COMPLETED && completedAt != null) {
+            bump(completedByMonth, YearMonth.from(completedAt), sign);
+            if (createdAt != null) {
+                timedCompletions += sign;
+                completionDaysSum += sign * ChronoUnit.DAYS.between(createdAt, completedAt);
+            }
+        }
+    }
+
+    private static void bump(Map<YearMonth, Long> buckets, YearMonth month, int sign) {
+        long count = buckets.getOrDefault(month, 0L) + sign;
+        if (count == 0) {
+            buckets.remove(month);
+        } else {
+            buckets.put(month, count);
+        }
+    }
+
+    public synchronized void clear() {
+        total = 0;
+        Arrays.fill(statusCounts, 0);
+        Arrays.fill(priorityCounts, 0);
+        timedCompletions = 0;
+        completionDaysSum = 0;
+        createdByMonth.clear();
+        completedByMonth.clear();
+    }
+
+    public synchronized TaskStatistics snapshot(YearMonth currentMonth) {
+        Map<Task.TaskStatus, Long> statuses = new EnumMap<>(Task.TaskStatus.class);
+        for (Task.TaskStatus status : Task.TaskStatus.values()) {
+            statuses.put(status, statusCounts[status.ordinal()]);
+        }
+        Map<Task.TaskPriority, Long> priorities = new EnumMap<>(Task.TaskPriority.class);
+        for (Task.TaskPriority priority : Task.TaskPriority.values()) {
+            priorities.put(priority, priorityCounts[priority.ordinal()]);
+        }
+        return new TaskStatistics(total, statuses, priorities, timedCompletions, completionDaysSum,
+            createdByMonth.getOrDefault(currentMonth, 0L),
+            completedByMonth.getOrDefault(currentMonth, 0L));
+    }
+}
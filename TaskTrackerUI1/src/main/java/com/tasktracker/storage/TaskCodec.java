@@ -0,0 +1,31 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Serialized form of a full task snapshot. Each codec owns its own file name
+ * in the data directory, so the store can tell which format a snapshot on
+ * disk was written in and migrate it.
+ */
+public interface TaskCodec {
+
+    String fileName();
+
+    List<Task> read(InputStream in) throws IOException;
+
+    void write(Collection<Task> tasks, OutputStream out) throws IOException;
+
+    static TaskCodec forFormat(String format) {
+        return switch (format.trim().toLowerCase()) {
+            case "json" -> new JsonTaskCodec();
+            case "binary" -> new BinaryTaskCodec();
+            default -> throw new IllegalArgumentException("Unknown snapshot format: " + format);
+        };
+    }
+}
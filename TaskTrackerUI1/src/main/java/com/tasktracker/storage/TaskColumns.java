@@ -0,0 +1,193 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * The fields range reports filter and group on, as parallel primitive
+ * arrays with one row per task. Rows are kept up to date from the
+ * before/after image of every mutation like the other indexes; a deleted
+ * task's row is reused by the next insert. Reports are single passes over
+ * the arrays without touching a task object, split into chunks scanned on
+ * the common fork-join pool once the table is large enough to pay for it.
+ */
+public class TaskColumns {
+    private static final byte FREE = -2;
+    private static final byte COMPLETED = (byte) Task.TaskStatus.COMPLETED.ordinal();
+    private static final int PRIORITIES = Task.TaskPriority.values().length;
+    private static final int INITIAL_ROWS = 1024;
+    private static final int CHUNK_ROWS = 1 << 16;
+    // A constant, so the per-row division compiles to a multiplication
+    private static final long WEEK_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    @FunctionalInterface
+    private interface Scan {
+        void rows(int from, int to, long[] counts);
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private byte[] status = new byte[INITIAL_ROWS];
+    private byte[] priority = new byte[INITIAL_ROWS];
+    private long[] createdAt = new long[INITIAL_ROWS];
+    private long[] completedAt = new long[INITIAL_ROWS];
+    private long[] dueDate = new long[INITIAL_ROWS];
+    private int rows;
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    /**
+     * Applies one mutation: {@code before} is null for an insert and
+     * {@code after} is null for a delete.
+     */
+    public void update(TaskRecord before, TaskRecord after) {
+        lock.writeLock().lock();
+        try {
+            int row = before != null ? before.row : -1;
+            if (after == null) {
+                if (row >= 0) {
+                    release(row);
+                }
+                return;
+            }
+            if (row < 0) {
+                row = allocate();
+            }
+            after.row = row;
+            status[row] = after.statusOrdinal();
+            priority[row] = after.priorityOrdinal();
+            createdAt[row] = after.getCreatedAt();
+            completedAt[row] = after.getCompletedAt();
+            dueDate[row] = after.getDueDate();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rows == status.length) {
+            int capacity = rows * 2;
+            status = Arrays.copyOf(status, capacity);
+            priority = Arrays.copyOf(priority, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            completedAt = Arrays.copyOf(completedAt, capacity);
+            dueDate = Arrays.copyOf(dueDate, capacity);
+        }
+        return rows++;
+    }
+
+    private void release(int row) {
+        status[row] = FREE;
+        priority[row] = FREE;
+        createdAt[row] = TaskRecord.NONE;
+        completedAt[row] = TaskRecord.NONE;
+        dueDate[row] = TaskRecord.NONE;
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    /**
+     * Clears the rows. Records stored before keep their old row numbers, so
+     * callers drop them along with the columns.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            status = new byte[INITIAL_ROWS];
+            priority = new byte[INITIAL_ROWS];
+            createdAt = new long[INITIAL_ROWS];
+            completedAt = new long[INITIAL_ROWS];
+            dueDate = new long[INITIAL_ROWS];
+            rows = 0;
+            freeRows = new int[16];
+            freeCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Weekly buckets starting at {@code from}: for each week, at
+     * {@code [3 * week]} the tasks created in it, at {@code [3 * week + 1]}
+     * the tasks completed in it and at {@code [3 * week + 2]} the tasks
+     * created in it that are completed now.
+     */
+    public long[] weekly(long from, int weeks) {
+        long to = from + WEEK_MILLIS * weeks;
+        return scan(3 * weeks, (start, end, counts) -> {
+            byte[] statuses = status;
+            long[] createdAts = createdAt;
+            long[] completedAts = completedAt;
+            for (int row = start; row < end; row++) {
+                boolean completed = statuses[row] == COMPLETED;
+                long created = createdAts[row];
+                if (created >= from && created < to) {
+                    int week = (int) ((created - from) / WEEK_MILLIS);
+                    counts[3 * week]++;
+                    if (completed) {
+                        counts[3 * week + 2]++;
+                    }
+                }
+                long done = completedAts[row];
+                if (completed && done >= from && done < to) {
+                    counts[3 * (int) ((done - from) / WEEK_MILLIS) + 1]++;
+                }
+            }
+        });
+    }
+
+    // Open tasks due before now, counted by priority ordinal
+    public long[] overdueByPriority(long now) {
+        return scan(PRIORITIES, (start, end, counts) -> {
+            byte[] statuses = status;
+            byte[] priorities = priority;
+            long[] dueDates = dueDate;
+            for (int row = start; row < end; row++) {
+                long due = dueDates[row];
+                byte rank = priorities[row];
+                if (due != TaskRecord.NONE && due < now && statuses[row] != COMPLETED && rank >= 0) {
+                    counts[rank]++;
+                }
+            }
+        });
+    }
+
+    // Scans run under the read lock, so the arrays a chunk reads cannot be replaced meanwhile
+    private long[] scan(int width, Scan scan) {
+        lock.readLock().lock();
+        try {
+            int end = rows;
+            if (end <= CHUNK_ROWS) {
+                long[] counts = new long[width];
+                scan.rows(0, end, counts);
+                return counts;
+            }
+            int chunks = (end + CHUNK_ROWS - 1) / CHUNK_ROWS;
+            return IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> {
+                    long[] counts = new long[width];
+                    scan.rows(chunk * CHUNK_ROWS, Math.min(end, (chunk + 1) * CHUNK_ROWS), counts);
+                    return counts;
+                })
+                .reduce(TaskColumns::sum)
+                .orElseGet(() -> new long[width]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long[] sum(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] += b[i];
+        }
+        return a;
+    }
+}
@@ -0,0 +1,156 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Secondary indexes over the task store, kept up to date from the
+ * before/after image of every mutation rather than rebuilt per query.
+ */
+public class TaskIndex {
+
+    private final Map<Task.TaskStatus, Set<Long>> byStatus = new EnumMap<>(Task.TaskStatus.class);
+    private final Map<Task.TaskPriority, Set<Long>> byPriority = new EnumMap<>(Task.TaskPriority.class);
+    private final Map<Task.TaskStatus, DateIndex> createdAtByStatus = new EnumMap<>(Task.TaskStatus.class);
+    private final Map<Task.TaskPriority, DateIndex> createdAtByPriority = new EnumMap<>(Task.TaskPriority.class);
+    private final DateIndex createdAt = new DateIndex();
+    private final DateIndex completedAt = new DateIndex();
+    private final DateIndex dueDate = new DateIndex();
+    // Due dates of tasks that are not completed, so overdue lookups skip finished work
+    private final DateIndex openDueDate = new DateIndex();
+
+    public TaskIndex() {
+        for (Task.TaskStatus status : Task.TaskStatus.values()) {
+            byStatus.put(status, ConcurrentHashMap.newKeySet());
+            createdAtByStatus.put(status, new DateIndex());
+        }
+        for (Task.TaskPriority priority : Task.TaskPriority.values()) {
+            byPriority.put(priority, ConcurrentHashMap.newKeySet());
+            createdAtByPriority.put(priority, new DateIndex());
+        }
+    }
+
+    /**
+     * Applies one mutation: {@code before} is null for an insert and
+     * {@code after} is null for a delete. The store passes the boxed id it
+     * keys the task by, so every index shares that one instance.
+     */
+    public void update(Long id, TaskRecord before, TaskRecord after) {
+        Task.TaskStatus oldStatus = before != null ? before.getStatus() : null;
+        Task.TaskStatus newStatus = after != null ? after.getStatus() : null;
+        if (oldStatus != newStatus) {
+            if (oldStatus != null) {
+                byStatus.get(oldStatus).remove(id);
+            }
+            if (newStatus != null) {
+                byStatus.get(newStatus).add(id);
+            }
+        }
+        Task.TaskPriority oldPriority = before != null ? before.getPriority() : null;
+        Task.TaskPriority newPriority = after != null ? after.getPriority() : null;
+        if (oldPriority != newPriority) {
+            if (oldPriority != null) {
+                byPriority.get(oldPriority).remove(id);
+            }
+            if (newPriority != null) {
+                byPriority.get(newPriority).add(id);
+            }
+        }
+        long oldCreated = field(before, TaskRecord::getCreatedAt);
+        long newCreated = field(after, TaskRecord::getCreatedAt);
+        createdAt.update(id, oldCreated, newCreated);
+        if (oldStatus == newStatus) {
+            if (newStatus != null) {
+                createdAtByStatus.get(newStatus).update(id, oldCreated, newCreated);
+            }
+        } else {
+            if (oldStatus != null) {
+                createdAtByStatus.get(oldStatus).update(id, oldCreated, TaskRecord.NONE);
+            }
+            if (newStatus != null) {
+                createdAtByStatus.get(newStatus).update(id, TaskRecord.NONE, newCreated);
+            }
+        }
+        if (oldPriority == newPriority) {
+            if (newPriority != null) {
+                createdAtByPriority.get(newPriority).update(id, oldCreated, newCreated);
+            }
+        } else {
+            if (oldPriority != null) {
+                createdAtByPriority.get(oldPriority).update(id, oldCreated, TaskRecord.NONE);
+            }
+            if (newPriority != null) {
+                createdAtByPriority.get(newPriority).update(id, TaskRecord.NONE, newCreated);
+            }
+        }
+        completedAt.update(id, field(before, TaskRecord::getCompletedAt), field(after, TaskRecord::getCompletedAt));
+        dueDate.update(id, field(before, TaskRecord::getDueDate), field(after, TaskRecord::getDueDate));
+        openDueDate.update(id, openDueDate(before), openDueDate(after));
+    }
+
+    private static long openDueDate(TaskRecord task) {
+        return task != null && task.getStatus() != Task.TaskStatus.COMPLETED ? task.getDueDate() : TaskRecord.NONE;
+    }
+
+    private static long field(TaskRecord task, ToLongFunction<TaskRecord> getter) {
+        return task != null ? getter.applyAsLong(task) : TaskRecord.NONE;
+    }
+
+    public void clear() {
+        byStatus.values().forEach(Set::clear);
+        byPriority.values().forEach(Set::clear);
+        createdAtByStatus.values().forEach(DateIndex::clear);
+        createdAtByPriority.values().forEach(DateIndex::clear);
+        createdAt.clear();
+        completedAt.clear();
+        dueDate.clear();
+        openDueDate.clear();
+    }
+
+    public Set<Long> idsWithStatus(Task.TaskStatus status) {
+        return Collections.unmodifiableSet(byStatus.get(Objects.requireNonNull(status)));
+    }
+
+    public Set<Long> idsWithPriority(Task.TaskPriority priority) {
+        return Collections.unmodifiableSet(byPriority.get(Objects.requireNonNull(priority)));
+    }
+
+    public long countByStatus(Task.TaskStatus status) {
+        return byStatus.get(status).size();
+    }
+
+    public long countByPriority(Task.TaskPriority priority) {
+        return byPriority.get(priority).size();
+    }
+
+    public DateIndex createdAt(Task.TaskStatus status) {
+        return createdAtByStatus.get(status);
+    }
+
+    public DateIndex createdAt(Task.TaskPriority priority) {
+        return createdAtByPriority.get(priority);
+    }
+
+    public DateIndex createdAt() {
+        return createdAt;
+    }
+
+    public DateIndex completedAt() {
+        return completedAt;
+    }
+
+    public DateIndex dueDate() {
+        return dueDate;
+    }
+
+    public DateIndex openDueDate() {
+        return openDueDate;
+    }
+}
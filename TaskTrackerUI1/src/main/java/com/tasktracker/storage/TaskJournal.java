@@ -0,0 +1,446 @@
+package com.tasktracker.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of task mutations, one compact JSON entry per line.
+ * The log is split into numbered segments so a compactor can fold every
+ * segment older than the active one into a snapshot and delete them.
+ * A single committer thread fsyncs appended entries in batches. If a write
+ * or fsync fails the journal is fenced: waiters for entries not yet durable
+ * fail, and every later append is refused, since the segment's state on disk
+ * is no longer known.
+ */
+public class TaskJournal implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(TaskJournal.class);
+    private static final String SEGMENT_PREFIX = "tasks-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private record DurableWaiter(long seq, CompletableFuture<Void> future) {}
+
+    @FunctionalInterface
+    interface SegmentOpener {
+        FileChannel open(Path path) throws IOException;
+    }
+
+    private final Path dataDir;
+    private final Gson gson;
+    private final long commitIntervalMs;
+    private final SegmentOpener opener;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();
+    private final Condition urgent = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final Thread committer;
+    // Asynchronous durability waiters, earliest sequence number first
+    private final PriorityQueue<DurableWaiter> durableWaiters = new PriorityQueue<>(Comparator.comparingLong(DurableWaiter::seq));
+    private final Timer fsyncTimer;
+    private final Timer replayTimer;
+    private final Counter appendedBytes;
+    private final Counter appendedEntries;
+
+    private FileChannel channel;
+    private long generation;
+    private long segmentBytes;
+    private long appendedSeq;
+    private long syncedSeq;
+    private int waiters;
+    private boolean closed;
+    // The write or fsync that fenced the journal
+    private IOException failure;
+
+    public TaskJournal(Path dataDir, Gson gson, long commitIntervalMs, MeterRegistry meterRegistry) {
+        this(dataDir, gson, commitIntervalMs, meterRegistry, path -> FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    TaskJournal(Path dataDir, Gson gson, long commitIntervalMs, MeterRegistry meterRegistry, SegmentOpener opener) {
+        this.dataDir = dataDir;
+        this.gson = gson;
+        this.commitIntervalMs = commitIntervalMs;
+        this.opener = opener;
+        this.fsyncTimer = Timer.builder("tasktracker.storage.journal.fsync")
+            .description("Time spent forcing journal segments to disk")
+            .register(meterRegistry);
+        this.replayTimer = Timer.builder("tasktracker.storage.journal.replay")
+            .description("Time spent replaying journal segments at startup")
+            .register(meterRegistry);
+        this.appendedBytes = Counter.builder("tasktracker.storage.journal.written")
+            .baseUnit("bytes")
+            .description("Bytes appended to the journal")
+            .register(meterRegistry);
+        this.appendedEntries = Counter.builder("tasktracker.storage.journal.entries")
+            .description("Entries appended to the journal")
+            .register(meterRegistry);
+        Gauge.builder("tasktracker.storage.journal.segment.size", this, TaskJournal::getSegmentBytes)
+            .baseUnit("bytes")
+            .description("Size of the active journal segment")
+            .register(meterRegistry);
+        List<Long> generations = listGenerations();
+        this.generation = generations.isEmpty() ? 1 : generations.get(generations.size() - 1) + 1;
+        this.channel = openSegment(generation);
+        this.committer = new Thread(this::commitLoop, "task-journal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Replays every segment in order. A torn final line, left by a crash in the
+     * middle of an append, is skipped; corruption anywhere else is an error.
+     */
+    public void replay(Consumer<JournalEntry> consumer) {
+        replayTimer.record(() -> replaySegments(consumer));
+    }
+
+    private void replaySegments(Consumer<JournalEntry> consumer) {
+        for (long gen : listGenerations()) {
+            if (gen == generation) {
+                continue;
+            }
+            Path segment = segmentPath(gen);
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                String pendingLine = null;
+                while ((line = reader.readLine()) != null) {
+                    if (pendingLine != null) {
+                        consumer.accept(parse(pendingLine, segment));
+                    }
+                    pendingLine = line.isBlank() ? null : line;
+                }
+                if (pendingLine != null) {
+                    try {
+                        consumer.accept(gson.fromJson(pendingLine, JournalEntry.class));
+                    } catch (JsonParseException e) {
+                        log.warn("Ignoring torn entry at the end of {}", segment);
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Could not replay journal segment " + segment, e);
+            }
+        }
+    }
+
+    private JournalEntry parse(String line, Path segment) {
+        try {
+            return gson.fromJson(line, JournalEntry.class);
+        } catch (JsonParseException e) {
+            throw new RuntimeException("Corrupt journal entry in " + segment, e);
+        }
+    }
+
+    public long append(JournalEntry entry) {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(gson.toJson(entry) + "\n");
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            checkNotFailed();
+            int size = buffer.remaining();
+            try {
+                while (buffer.hasRemaining()) {
+                    segmentBytes += channel.write(buffer);
+                }
+            } catch (IOException e) {
+                // Part of the entry may have been written, so nothing may follow it
+                fail(e);
+                throw e;
+            }
+            appendedBytes.increment(size);
+            appendedEntries.increment();
+            appendedSeq++;
+            pending.signal();
+            return appendedSeq;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not append to journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the entry with the given sequence number has been fsynced.
+     * Concurrent callers share a single force() of the segment. Throws if the
+     * journal was fenced before the entry became durable.
+     */
+    public void awaitDurable(long seq) {
+        lock.lock();
+        try {
+            waiters++;
+            pending.signal();
+            urgent.signal();
+            while (syncedSeq < seq && !closed && failure == null) {
+                synced.await();
+            }
+            if (syncedSeq < seq) {
+                checkNotFailed();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for journal commit", e);
+        } finally {
+            waiters--;
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Completes once the entry with the given sequence number has been
+     * fsynced, without blocking the caller. The future is completed on the
+     * committer thread, so dependent work should use an async stage.
+     */
+    public CompletableFuture<Void> whenDurable(long seq) {
+        lock.lock();
+        try {
+            if (syncedSeq >= seq || closed) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (failure != null) {
+                return CompletableFuture.failedFuture(fenced());
+            }
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            durableWaiters.add(new DurableWaiter(seq, future));
+            pending.signal();
+            urgent.signal();
+            return future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void sync() {
+        long target;
+        lock.lock();
+        try {
+            target = appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(target);
+    }
+
+    public boolean hasSealedSegments() {
+        lock.lock();
+        try {
+            return listGenerations().stream().anyMatch(gen -> gen < generation);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSegmentBytes() {
+        lock.lock();
+        try {
+            return segmentBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Seals the active segment and starts a new one. Returns the generation of
+     * the new segment; every older segment may be deleted once a snapshot
+     * taken at this point is safely on disk.
+     */
+    public long rollover() {
+        lock.lock();
+        try {
+            checkNotFailed();
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                fail(e);
+                throw e;
+            }
+            markSynced(appendedSeq);
+            channel.close();
+            generation++;
+            channel = openSegment(generation);
+            segmentBytes = 0;
+            return generation;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not roll over journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void deleteSegmentsBefore(long gen) {
+        for (long old : listGenerations()) {
+            if (old < gen) {
+                try {
+                    Files.deleteIfExists(segmentPath(old));
+                } catch (IOException e) {
+                    log.warn("Could not delete compacted journal segment {}", segmentPath(old), e);
+                }
+            }
+        }
+    }
+
+    // Called with the lock held
+    private void markSynced(long seq) {
+        syncedSeq = seq;
+        synced.signalAll();
+        while (!durableWaiters.isEmpty() && durableWaiters.peek().seq() <= seq) {
+            durableWaiters.poll().future().complete(null);
+        }
+    }
+
+    // Called with the lock held
+    private void fail(IOException e) {
+        if (failure != null) {
+            return;
+        }
+        log.error("Journal segment {} failed, refusing further writes", segmentPath(generation), e);
+        failure = e;
+        pending.signalAll();
+        urgent.signalAll();
+        synced.signalAll();
+        RuntimeException fenced = fenced();
+        while (!durableWaiters.isEmpty()) {
+            durableWaiters.poll().future().completeExceptionally(fenced);
+        }
+    }
+
+    private RuntimeException fenced() {
+        return new RuntimeException("Journal write failed; entries after the last commit may be lost", failure);
+    }
+
+    // Called with the lock held
+    private void checkNotFailed() {
+        if (failure != null) {
+            throw fenced();
+        }
+    }
+
+    private void commitLoop() {
+        lock.lock();
+        try {
+            while (!closed && failure == null) {
+                while (appendedSeq == syncedSeq && !closed && failure == null) {
+                    pending.await();
+                }
+                // Without anyone blocked on durability, let entries accumulate for one interval
+                long nanos = TimeUnit.MILLISECONDS.toNanos(commitIntervalMs);
+                while (waiters == 0 && durableWaiters.isEmpty() && !closed && failure == null && nanos > 0) {
+                    nanos = urgent.awaitNanos(nanos);
+                }
+                if (failure != null) {
+                    break;
+                }
+                long target = appendedSeq;
+                FileChannel current = channel;
+                lock.unlock();
+                long start = System.nanoTime();
+                IOException error = null;
+                try {
+                    current.force(false);
+                    fsyncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                } catch (ClosedChannelException e) {
+                    // Rolled over or closed meanwhile, both of which force the segment themselves
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+                if (error != null) {
+                    fail(error);
+                } else if (current == channel && target > syncedSeq) {
+                    markSynced(target);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (failure == null) {
+                channel.force(false);
+                markSynced(appendedSeq);
+            }
+            closed = true;
+            pending.signalAll();
+            urgent.signalAll();
+            synced.signalAll();
+            channel.close();
+            if (segmentBytes == 0 && failure == null) {
+                Files.deleteIfExists(segmentPath(generation));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not close journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FileChannel openSegment(long gen) {
+        try {
+            FileChannel segment = opener.open(segmentPath(gen));
+            // Entries forced into the segment are only reachable once its name is durable
+            Fsync.directory(dataDir);
+            return segment;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open journal segment " + segmentPath(gen), e);
+        }
+    }
+
+    private Path segmentPath(long gen) {
+        return dataDir.resolve(SEGMENT_PREFIX + gen + SEGMENT_SUFFIX);
+    }
+
+    private List<Long> listGenerations() {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dataDir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                String number = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                try {
+                    generations.add(Long.parseLong(number));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring unrecognised file {}", path);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not list journal segments in " + dataDir, e);
+        }
+        generations.sort(null);
+        return generations;
+    }
+}
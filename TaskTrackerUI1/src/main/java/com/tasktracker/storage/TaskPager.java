@@ -0,0 +1,139 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Answers paged task queries by walking the ordered indexes. A sort order is
+ * a sequence of index segments (priority order walks one createdAt index per
+ * priority, due-date order falls back to creation order for undated tasks),
+ * and a continuation cursor records the segment and index key of the last
+ * row returned so the next page starts with a seek instead of a skip.
+ */
+public class TaskPager {
+
+    private record Segment(DateIndex index, boolean descending, Predicate<TaskRecord> filter) {}
+
+    private record Position(int segment, DateIndex.Key key) {}
+
+    private final Map<Long, TaskRecord> tasks;
+    private final TaskIndex index;
+
+    public TaskPager(Map<Long, TaskRecord> tasks, TaskIndex index) {
+        this.tasks = tasks;
+        this.index = index;
+    }
+
+    public TaskPage find(TaskQuery query) {
+        List<Segment> segments = plan(query);
+        Position start = decodeCursor(query.getCursor());
+        long skip = start == null ? (long) (query.getPage() - 1) * query.getSize() : 0;
+        List<Task> page = new ArrayList<>(query.getSize());
+        Position last = null;
+        boolean more = false;
+
+        scan:
+        for (int s = start != null ? start.segment() : 0; s < segments.size(); s++) {
+            Segment segment = segments.get(s);
+            DateIndex.Key after = start != null && s == start.segment() ? start.key() : null;
+            Iterator<DateIndex.Key> keys = segment.index().iterate(segment.descending(), after);
+            while (keys.hasNext()) {
+                DateIndex.Key key = keys.next();
+                TaskRecord task = tasks.get(key.id());
+                if (task == null || !task.matches(query) || !segment.filter().test(task)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                if (page.size() == query.getSize()) {
+                    more = true;
+                    break scan;
+                }
+                page.add(task.toTask());
+                last = new Position(s, key);
+            }
+        }
+
+        String nextCursor = more ? encodeCursor(last) : null;
+        return new TaskPage(page, query.getPage(), query.getSize(), count(query), nextCursor);
+    }
+
+    private List<Segment> plan(TaskQuery query) {
+        DateIndex created = query.getStatus() != null ? index.createdAt(query.getStatus())
+            : query.getPriority() != null ? index.createdAt(query.getPriority())
+            : index.createdAt();
+        List<Segment> segments = new ArrayList<>();
+        switch (query.getSort()) {
+            case NEWEST -> segments.add(new Segment(created, true, task -> true));
+            case OLDEST -> segments.add(new Segment(created, false, task -> true));
+            case DUE_DATE -> {
+                segments.add(new Segment(index.dueDate(), false, task -> true));
+                segments.add(new Segment(created, true, task -> task.getDueDate() == TaskRecord.NONE));
+            }
+            case PRIORITY -> {
+                Task.TaskPriority[] priorities = Task.TaskPriority.values();
+                for (int i = priorities.length - 1; i >= 0; i--) {
+                    if (query.getPriority() == null || query.getPriority() == priorities[i]) {
+                        segments.add(new Segment(index.createdAt(priorities[i]), true, task -> true));
+                    }
+                }
+            }
+        }
+        return segments;
+    }
+
+    private long count(TaskQuery query) {
+        if (query.getStatus() == null && query.getPriority() == null) {
+            return tasks.size();
+        }
+        if (query.getPriority() == null) {
+            return index.countByStatus(query.getStatus());
+        }
+        if (query.getStatus() == null) {
+            return index.countByPriority(query.getPriority());
+        }
+        Set<Long> byStatus = index.idsWithStatus(query.getStatus());
+        Set<Long> byPriority = index.idsWithPriority(query.getPriority());
+        Set<Long> smaller = byStatus.size() <= byPriority.size() ? byStatus : byPriority;
+        Set<Long> larger = smaller == byStatus ? byPriority : byStatus;
+        long count = 0;
+        for (Long id : smaller) {
+            if (larger.contains(id)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String encodeCursor(Position position) {
+        String raw = position.segment() + "|" + TaskRecord.time(position.key().time()) + "|" + position.key().id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decodeCursor(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            return new Position(Integer.parseInt(parts[0]),
+                new DateIndex.Key(TaskRecord.millis(LocalDateTime.parse(parts[1])), Long.parseLong(parts[2])));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskQuery;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * How the file store holds a task in memory: primitive id and version,
+ * timestamps as UTC epoch milliseconds ({@link #NONE} when unset), status
+ * and priority as ordinals and text shared through a {@link StringPool}.
+ * That is one object plus its strings per task instead of a {@link Task}
+ * with boxed numbers and four {@link LocalDateTime}s. Records are immutable
+ * apart from their {@link TaskColumns} row; callers get a {@link Task} built
+ * by {@link #toTask()}.
+ */
+public final class TaskRecord {
+    public static final long NONE = Long.MIN_VALUE;
+    private static final byte NO_ORDINAL = -1;
+    private static final Task.TaskStatus[] STATUSES = Task.TaskStatus.values();
+    private static final Task.TaskPriority[] PRIORITIES = Task.TaskPriority.values();
+
+    private final long id;
+    private final long version;
+    private final String title;
+    private final String description;
+    private final byte status;
+    private final byte priority;
+    private final long createdAt;
+    private final long updatedAt;
+    private final long dueDate;
+    private final long completedAt;
+    // Row in TaskColumns, handed from the replaced record to its successor under the columns' lock
+    int row = -1;
+
+    private TaskRecord(Task task, StringPool strings) {
+        this.id = task.getId();
+        // Snapshots written before versioning carry no version
+        this.version = task.getVersion() != null ? task.getVersion() : 0;
+        this.title = strings.intern(task.getTitle());
+        this.description = strings.intern(task.getDescription());
+        this.status = task.getStatus() != null ? (byte) task.getStatus().ordinal() : NO_ORDINAL;
+        this.priority = task.getPriority() != null ? (byte) task.getPriority().ordinal() : NO_ORDINAL;
+        this.createdAt = millis(task.getCreatedAt());
+        this.updatedAt = millis(task.getUpdatedAt());
+        this.dueDate = millis(task.getDueDate());
+        this.completedAt = millis(task.getCompletedAt());
+    }
+
+    /** Compacts a task, which must already have an id. */
+    public static TaskRecord of(Task task, StringPool strings) {
+        return new TaskRecord(task, strings);
+    }
+
+    public Task toTask() {
+        Task task = new Task(title, description);
+        task.setId(id);
+        task.setVersion(version);
+        task.setStatus(getStatus());
+        task.setPriority(getPriority());
+        task.setCreatedAt(time(createdAt));
+        task.setUpdatedAt(time(updatedAt));
+        task.setDueDate(time(dueDate));
+        task.setCompletedAt(time(completedAt));
+        return task;
+    }
+
+    public boolean matches(TaskQuery query) {
+        return (query.getStatus() == null || getStatus() == query.getStatus())
+            && (query.getPriority() == null || getPriority() == query.getPriority());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    byte statusOrdinal() {
+        return status;
+    }
+
+    byte priorityOrdinal() {
+        return priority;
+    }
+
+    public Task.TaskStatus getStatus() {
+        return status != NO_ORDINAL ? STATUSES[status] : null;
+    }
+
+    public Task.TaskPriority getPriority() {
+        return priority != NO_ORDINAL ? PRIORITIES[priority] : null;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public long getDueDate() {
+        return dueDate;
+    }
+
+    public long getCompletedAt() {
+        return completedAt;
+    }
+
+    // Same resolution as the snapshot formats, so a task reads back the same before and after a restart
+    public static long millis(LocalDateTime time) {
+        if (time == null) {
+            return NONE;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1000 + time.getNano() / 1_000_000;
+    }
+
+    public static LocalDateTime time(long millis) {
+        if (millis == NONE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+            Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime truncate(LocalDateTime time) {
+        return time == null || time.getNano() % 1_000_000 == 0 ? time : time.withNano(time.getNano() / 1_000_000 * 1_000_000);
+    }
+}
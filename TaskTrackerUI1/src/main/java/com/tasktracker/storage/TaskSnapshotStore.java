@@ -0,0 +1,43 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Durable copy of the whole task set that the journal is folded into.
+ * A store rewrites everything on each compaction unless it is an
+ * {@link IncrementalSnapshotStore}.
+ */
+public interface TaskSnapshotStore extends Closeable {
+
+    List<String> FORMATS = List.of("binary", "json", "slots");
+
+    static TaskSnapshotStore forFormat(String format, Path dataDir) {
+        return switch (format.trim().toLowerCase()) {
+            case "slots" -> new SlotSnapshotStore(dataDir);
+            default -> new CodecSnapshotStore(dataDir, TaskCodec.forFormat(format));
+        };
+    }
+
+    String describe();
+
+    boolean exists();
+
+    List<Task> load() throws IOException;
+
+    /**
+     * Replaces the snapshot with exactly {@code tasks}. Returns the number of bytes written.
+     */
+    long write(Collection<Task> tasks) throws IOException;
+
+    long sizeOnDisk();
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,23 @@
+-- Task table for tasktracker.storage.backend=jdbc.
+-- status and priority hold the enum ordinal, as in the binary snapshot formats,
+-- so priority order is plain numeric order.
+CREATE TABLE IF NOT EXISTS tasks (
+    id           BIGINT PRIMARY KEY,
+    title        VARCHAR,
+    description  VARCHAR,
+    status       TINYINT,
+    priority     TINYINT,
+    created_at   TIMESTAMP,
+    updated_at   TIMESTAMP,
+    due_date     TIMESTAMP,
+    completed_at TIMESTAMP,
+    version      BIGINT NOT NULL
+);
+
+-- Every listing order and filter walks one of these instead of sorting
+CREATE INDEX IF NOT EXISTS tasks_created ON tasks (created_at, id);
+CREATE INDEX IF NOT EXISTS tasks_status_created ON tasks (status, created_at, id);
+CREATE INDEX IF NOT EXISTS tasks_priority_created ON tasks (priority, created_at, id);
+CREATE INDEX IF NOT EXISTS tasks_due ON tasks (due_date, id);
+CREATE INDEX IF NOT EXISTS tasks_status_due ON tasks (status, due_date, id);
+CREATE INDEX IF NOT EXISTS tasks_status_completed ON tasks (status, completed_at, id);
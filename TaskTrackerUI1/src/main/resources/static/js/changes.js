@@ -0,0 +1,82 @@
+// Live updates from /api/changes. The page renders its feed position into
+// body[data-changes]; every change then updates the totals and any task row
+// on the page, and is re-dispatched as a "taskchange" event for page scripts.
+(function () {
+    const position = document.body.dataset.changes;
+    if (!position || !window.EventSource) {
+        return;
+    }
+
+    let created = 0;
+
+    function setText(element, text) {
+        if (element && element.textContent !== String(text)) {
+            element.textContent = text;
+        }
+    }
+
+    function updateTotals(change) {
+        let total = 0;
+        Object.entries(change.statusCounts).forEach(([status, count]) => {
+            total += count;
+            setText(document.querySelector('[data-stat="' + status + '"]'), count);
+        });
+        setText(document.querySelector('[data-stat="total"]'), total);
+    }
+
+    function setBadge(row, field, value) {
+        const badge = row.querySelector('[data-field="' + field + '"]');
+        if (badge && value) {
+            badge.classList.remove(...Array.from(badge.classList).filter(c => c.startsWith(field + '-')));
+            badge.classList.add(field + '-' + value.toLowerCase());
+            setText(badge, value);
+        }
+    }
+
+    function updateRows(change) {
+        document.querySelectorAll('.task-item[data-task-id="' + change.taskId + '"]').forEach(row => {
+            if (change.type === 'DELETED') {
+                row.classList.add('task-removed');
+                return;
+            }
+            // Rows already showing this version or a later one are left alone
+            if (Number(row.dataset.version) >= change.version) {
+                return;
+            }
+            row.dataset.version = change.version;
+            setText(row.querySelector('[data-field="title"]'), change.title);
+            setBadge(row, 'status', change.status);
+            setBadge(row, 'priority', change.priority);
+        });
+    }
+
+    function announce(text) {
+        const banner = document.getElementById('liveBanner');
+        if (banner) {
+            setText(banner.querySelector('span'), text);
+            banner.hidden = false;
+        }
+    }
+
+    const source = new EventSource('/api/changes?since=' + encodeURIComponent(position));
+
+    source.addEventListener('change', event => {
+        const change = JSON.parse(event.data);
+        updateTotals(change);
+        if (change.type === 'CLEARED') {
+            announce('All tasks were deleted.');
+        } else if (change.type === 'CREATED') {
+            created++;
+            announce(created === 1 ? '1 new task.' : created + ' new tasks.');
+        } else {
+            updateRows(change);
+        }
+        document.dispatchEvent(new CustomEvent('taskchange', { detail: change }));
+    });
+
+    // The feed could not catch this page up, so it is out of date as a whole
+    source.addEventListener('reset', () => {
+        source.close();
+        window.location.reload();
+    });
+})();
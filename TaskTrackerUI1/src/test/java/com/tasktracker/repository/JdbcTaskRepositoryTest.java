@@ -0,0 +1,226 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+import com.tasktracker.service.StaleTaskException;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JdbcTaskRepositoryTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 1, 9, 0);
+    private static final int TASKS = 95;
+    private static final int PAGE_SIZE = 10;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private JdbcTaskRepository repository;
+
+    @BeforeEach
+    void open() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        jdbc = new JdbcTemplate(dataSource);
+        repository = new JdbcTaskRepository(dataSource, 100, new SimpleMeterRegistry(), Runnable::run);
+    }
+
+    @AfterEach
+    void close() {
+        repository.close();
+        jdbc.execute("SHUTDOWN");
+        dataSource.close();
+    }
+
+    // Every fifth task leaves its creation time or due date out, and ties are ordered by id
+    private static Task task(int seed) {
+        Task task = new Task("Task " + seed, null);
+        task.setStatus(Task.TaskStatus.values()[seed % 3]);
+        task.setPriority(Task.TaskPriority.values()[seed / 3 % 3]);
+        task.setCreatedAt(seed % 5 == 0 ? null : BASE.plusHours(seed - seed % 3 / 2));
+        task.setDueDate(seed % 4 == 0 ? null : BASE.plusDays(seed % 7));
+        return task;
+    }
+
+    private void fill() {
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            batch.add(task(i));
+        }
+        repository.saveAll(batch);
+    }
+
+    private static TaskQuery query(TaskQuery.Sort sort, Consumer<TaskQuery> filter) {
+        TaskQuery query = new TaskQuery();
+        query.setSort(sort);
+        query.setSize(PAGE_SIZE);
+        filter.accept(query);
+        return query;
+    }
+
+    private static List<Long> ids(TaskPage page) {
+        return page.getTasks().stream().map(Task::getId).toList();
+    }
+
+    private List<Long> walk(TaskQuery query) {
+        List<Long> seen = new ArrayList<>();
+        TaskPage page = repository.findTasks(query);
+        seen.addAll(ids(page));
+        while (page.getNextCursor() != null) {
+            query.setCursor(page.getNextCursor());
+            page = repository.findTasks(query);
+            seen.addAll(ids(page));
+        }
+        return seen;
+    }
+
+    private List<Long> offsetPages(TaskQuery query) {
+        List<Long> seen = new ArrayList<>();
+        for (int page = 1; ; page++) {
+            query.setPage(page);
+            List<Long> ids = ids(repository.findTasks(query));
+            if (ids.isEmpty()) {
+                return seen;
+            }
+            seen.addAll(ids);
+        }
+    }
+
+    private long countRows(String where, Object... args) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM tasks" + where, Long.class, args);
+    }
+
+    private void assertCountsMatchTheTable() {
+        assertThat(repository.count()).isEqualTo(countRows(""));
+        for (Task.TaskStatus status : Task.TaskStatus.values()) {
+            assertThat(repository.countByStatus(status)).as(status.name())
+                .isEqualTo(countRows(" WHERE status = ?", status.ordinal()));
+        }
+        for (Task.TaskPriority priority : Task.TaskPriority.values()) {
+            assertThat(repository.countByPriority(priority)).as(priority.name())
+                .isEqualTo(countRows(" WHERE priority = ?", priority.ordinal()));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(TaskQuery.Sort.class)
+    void cursorsVisitTheSameTasksAsPageNumbers(TaskQuery.Sort sort) {
+        fill();
+        List<Long> expected = offsetPages(query(sort, q -> { }));
+
+        assertThat(walk(query(sort, q -> { }))).containsExactlyElementsOf(expected).hasSize(TASKS);
+    }
+
+    @ParameterizedTest
+    @EnumSource(TaskQuery.Sort.class)
+    void cursorsRespectFilters(TaskQuery.Sort sort) {
+        fill();
+        Consumer<TaskQuery> filter = q -> {
+            q.setStatus(Task.TaskStatus.IN_PROGRESS);
+            q.setPriority(Task.TaskPriority.HIGH);
+        };
+        List<Long> expected = offsetPages(query(sort, filter));
+
+        assertThat(walk(query(sort, filter))).containsExactlyElementsOf(expected).isNotEmpty();
+    }
+
+    @Test
+    void tasksWithoutACreationTimeAreListed() {
+        fill();
+
+        List<Long> listed = walk(query(TaskQuery.Sort.NEWEST, q -> { }));
+
+        assertThat(listed).contains(1L, 6L, 91L);
+        assertThat(repository.getTaskById(1L)).get().extracting(Task::getCreatedAt).isNull();
+    }
+
+    @Test
+    void repeatedIdsInABatchBumpTheVersionOncePerCopy() {
+        Task stored = repository.saveTask(task(1));
+        Task first = task(2);
+        first.setId(stored.getId());
+        Task second = task(3);
+        second.setId(stored.getId());
+        Task other = task(4);
+
+        repository.saveAll(List.of(first, other, second));
+
+        assertThat(List.of(first.getVersion(), second.getVersion(), other.getVersion())).containsExactly(2L, 3L, 1L);
+        assertThat(repository.getTaskById(stored.getId())).get()
+            .extracting(Task::getTitle, Task::getVersion).containsExactly("Task 3", 3L);
+        assertThat(repository.count()).isEqualTo(2);
+        assertCountsMatchTheTable();
+    }
+
+    @Test
+    void countsMatchTheTableAfterEveryKindOfWrite() {
+        fill();
+        assertCountsMatchTheTable();
+
+        repository.updateAll(List.of(1L, 2L, 3L, 4L, 5L, 500L), task -> {
+            task.setStatus(Task.TaskStatus.COMPLETED);
+            task.setPriority(Task.TaskPriority.LOW);
+        });
+        assertCountsMatchTheTable();
+
+        assertThat(repository.deleteByIds(List.of(6L, 7L, 8L, 600L))).isEqualTo(3);
+        repository.deleteTask(9L);
+        assertCountsMatchTheTable();
+
+        Task sparse = new Task("No status or priority", null);
+        sparse.setStatus(null);
+        sparse.setPriority(null);
+        repository.saveTask(sparse);
+        assertCountsMatchTheTable();
+
+        repository.truncate();
+        assertCountsMatchTheTable();
+        assertThat(repository.count()).isZero();
+
+        repository.saveTask(task(1));
+        assertCountsMatchTheTable();
+    }
+
+    @Test
+    void countsAreReloadedFromTheTableOnOpen() {
+        fill();
+        repository.updateAll(List.of(1L, 2L), task -> task.setStatus(Task.TaskStatus.COMPLETED));
+
+        repository = new JdbcTaskRepository(dataSource, 100, new SimpleMeterRegistry(), Runnable::run);
+
+        assertCountsMatchTheTable();
+        assertThat(repository.saveTask(task(0)).getId()).isEqualTo(TASKS + 1L);
+    }
+
+    @Test
+    void staleVersionIsRejectedAndNothingIsWritten() {
+        Task saved = repository.saveTask(task(1));
+        Task first = repository.getTaskById(saved.getId()).orElseThrow();
+        Task second = repository.getTaskById(saved.getId()).orElseThrow();
+        first.setTitle("first edit");
+        repository.saveTask(first);
+
+        second.setTitle("second edit");
+        second.setStatus(Task.TaskStatus.COMPLETED);
+        assertThatThrownBy(() -> repository.saveTask(second)).isInstanceOf(StaleTaskException.class);
+
+        assertThat(repository.getTaskById(saved.getId())).get()
+            .extracting(Task::getTitle, Task::getVersion).containsExactly("first edit", 2L);
+        assertCountsMatchTheTable();
+    }
+}
@@ -0,0 +1,166 @@
+package com.tasktracker.repository;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.service.LocalStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PartitionedTaskRepositoryTest {
+    private static final long FLUSH_MS = 3_600_000;
+
+    @TempDir
+    Path dataDir;
+
+    private final Set<Path> closed = ConcurrentHashMap.newKeySet();
+    private final List<AutoCloseable> resources = new ArrayList<>();
+
+    // Records which partition directories have been closed
+    private class TrackedStorage extends LocalStorageService {
+        private final Path dir;
+
+        TrackedStorage(Path dir) {
+            super(dir.toString(), FLUSH_MS, "sync", Long.MAX_VALUE, "binary", new SimpleMeterRegistry(), Runnable::run);
+            this.dir = dir;
+        }
+
+        @Override
+        public TaskRepository openPartition(Path dataDir) {
+            return new TrackedStorage(dataDir);
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            closed.add(dir);
+        }
+    }
+
+    @AfterEach
+    void closeResources() throws Exception {
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            resources.get(i).close();
+        }
+    }
+
+    private PartitionedTaskRepository open(int maxOpen, long idleMs) {
+        TrackedStorage defaultPartition = new TrackedStorage(dataDir);
+        resources.add(defaultPartition);
+        PartitionedTaskRepository repository = new PartitionedTaskRepository(defaultPartition, dataDir.toString(),
+            maxOpen, idleMs, new SimpleMeterRegistry());
+        resources.add(repository);
+        return repository;
+    }
+
+    private static void save(PartitionedTaskRepository repository, String owner) {
+        try (TaskOwner.Scope ignored = TaskOwner.use(owner)) {
+            repository.saveTask(new Task("Task of " + owner, null));
+        }
+    }
+
+    private static long count(PartitionedTaskRepository repository, String owner) {
+        try (TaskOwner.Scope ignored = TaskOwner.use(owner)) {
+            return repository.count();
+        }
+    }
+
+    private Path partition(String owner) {
+        return TaskOwner.directory(dataDir, owner);
+    }
+
+    @Test
+    void openingBeyondTheLimitClosesTheLeastRecentlyUsedPartition() {
+        PartitionedTaskRepository repository = open(3, FLUSH_MS);
+        save(repository, "alice");
+        save(repository, "bob");
+        // Alice was used after Bob, so Bob goes first
+        assertThat(count(repository, "alice")).isEqualTo(1);
+
+        save(repository, "carol");
+
+        assertThat(closed).containsExactly(partition("bob"));
+        assertThat(count(repository, "bob")).isEqualTo(1);
+        assertThat(closed).containsExactlyInAnyOrder(partition("bob"), partition("alice"));
+        assertThat(count(repository, "carol")).isEqualTo(1);
+    }
+
+    @Test
+    void theDefaultPartitionIsNeverEvicted() {
+        PartitionedTaskRepository repository = open(2, FLUSH_MS);
+        save(repository, TaskOwner.DEFAULT);
+        save(repository, "alice");
+        save(repository, "bob");
+
+        assertThat(closed).containsExactly(partition("alice"));
+        assertThat(count(repository, TaskOwner.DEFAULT)).isEqualTo(1);
+    }
+
+    @Test
+    void idlePartitionsAreClosedInTheBackground() throws InterruptedException {
+        PartitionedTaskRepository repository = open(8, 50);
+        save(repository, "alice");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!closed.contains(partition("alice")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(closed).containsExactly(partition("alice"));
+        assertThat(count(repository, "alice")).isEqualTo(1);
+    }
+
+    @Test
+    void partitionsInUseAreNotClosedAndTheLimitIsReported() {
+        PartitionedTaskRepository repository = open(2, FLUSH_MS);
+        save(repository, "alice");
+
+        // An open stream keeps Alice's partition in use
+        try (TaskOwner.Scope ignored = TaskOwner.use("alice"); Stream<Task> tasks = repository.streamTasks()) {
+            assertThatThrownBy(() -> save(repository, "bob")).isInstanceOf(PartitionLimitException.class)
+                .extracting(error -> ((PartitionLimitException) error).getMaxOpen()).isEqualTo(2);
+            assertThat(tasks.count()).isEqualTo(1);
+        }
+
+        assertThat(closed).isEmpty();
+        save(repository, "bob");
+        assertThat(closed).containsExactly(partition("alice"));
+    }
+
+    @Test
+    void readsOfAnUnknownOwnerOpenNothing() {
+        PartitionedTaskRepository repository = open(2, FLUSH_MS);
+        save(repository, "alice");
+
+        assertThat(count(repository, "nobody")).isZero();
+
+        assertThat(closed).isEmpty();
+        assertThat(partition("nobody")).doesNotExist();
+    }
+
+    @Test
+    void openListenersHearOfOpenPartitionsAndOfEachOneAsItOpens() {
+        PartitionedTaskRepository repository = open(2, FLUSH_MS);
+        save(repository, "alice");
+        List<String> opened = new ArrayList<>();
+
+        repository.onOpen((owner, store) -> opened.add(owner + ":" + store.count()));
+        assertThat(opened).containsExactlyInAnyOrder(TaskOwner.DEFAULT + ":0", "alice:1");
+
+        save(repository, "bob");
+        // Reopening after an eviction is announced again
+        count(repository, "alice");
+
+        assertThat(opened).containsExactlyInAnyOrder(TaskOwner.DEFAULT + ":0", "alice:1", "bob:0", "alice:1");
+    }
+}
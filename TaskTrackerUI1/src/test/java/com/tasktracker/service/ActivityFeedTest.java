@@ -0,0 +1,160 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.ActivityEvent;
+import com.tasktracker.model.Task;
+import com.tasktracker.repository.PartitionedTaskRepository;
+import com.tasktracker.repository.TaskOwner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityFeedTest {
+    // Long enough that nothing is written behind a test's back
+    private static final long IDLE_MS = 3_600_000;
+    private static final int CAPACITY = 5;
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    @TempDir
+    Path dataDir;
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private PartitionedTaskRepository repository;
+
+    @BeforeEach
+    void openStore() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LocalStorageService storage = new LocalStorageService(dataDir.toString(), IDLE_MS, "sync", Long.MAX_VALUE,
+            "binary", meterRegistry, Runnable::run);
+        resources.add(storage);
+        repository = new PartitionedTaskRepository(storage, dataDir.toString(), 8, IDLE_MS, meterRegistry);
+        resources.add(repository);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            resources.get(i).close();
+        }
+    }
+
+    private ActivityFeed openFeed() {
+        ActivityFeed feed = new ActivityFeed(dataDir.toString(), IDLE_MS, CAPACITY, IDLE_MS, repository);
+        resources.add(feed::close);
+        return feed;
+    }
+
+    private static Task task(long id, String title) {
+        Task task = new Task(title, null);
+        task.setId(id);
+        return task;
+    }
+
+    private static ActivityEvent created(long id) {
+        return ActivityEvent.created(task(id, "Task " + id), BASE.plusMinutes(id));
+    }
+
+    private static List<Long> ids(List<ActivityEvent> events) {
+        return events.stream().map(ActivityEvent::getTaskId).toList();
+    }
+
+    private List<Long> recent(ActivityFeed feed, String owner, int limit) {
+        try (TaskOwner.Scope ignored = TaskOwner.use(owner)) {
+            return ids(feed.recent(limit));
+        }
+    }
+
+    private void record(ActivityFeed feed, String owner, ActivityEvent event) {
+        try (TaskOwner.Scope ignored = TaskOwner.use(owner)) {
+            feed.record(event);
+        }
+    }
+
+    @Test
+    void recentEventsComeNewestFirstAndOnlyTheLastFewAreKept() {
+        ActivityFeed feed = openFeed();
+        for (long id = 1; id <= 8; id++) {
+            feed.record(created(id));
+        }
+
+        assertThat(recent(feed, TaskOwner.DEFAULT, 3)).containsExactly(8L, 7L, 6L);
+        assertThat(recent(feed, TaskOwner.DEFAULT, 100)).containsExactly(8L, 7L, 6L, 5L, 4L);
+    }
+
+    @Test
+    void batchesAreRecordedInOrder() {
+        ActivityFeed feed = openFeed();
+        feed.record(created(1));
+
+        feed.recordAll(List.of(created(2), created(3)));
+
+        assertThat(recent(feed, TaskOwner.DEFAULT, 10)).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void eachOwnerHasTheirOwnFeed() {
+        ActivityFeed feed = openFeed();
+        record(feed, "alice", created(1));
+        record(feed, "bob", created(2));
+        record(feed, "alice", created(3));
+
+        assertThat(recent(feed, "alice", 10)).containsExactly(3L, 1L);
+        assertThat(recent(feed, "bob", 10)).containsExactly(2L);
+    }
+
+    @Test
+    void anOwnerWithNeitherEventsNorTasksSeesNothingAndGetsNoFiles() {
+        ActivityFeed feed = openFeed();
+
+        assertThat(recent(feed, "carol", 10)).isEmpty();
+
+        feed.close();
+        assertThat(TaskOwner.directory(dataDir, "carol")).doesNotExist();
+    }
+
+    @Test
+    void feedsAreWrittenBehindAndReadBackOnTheNextStart() {
+        ActivityFeed feed = openFeed();
+        feed.record(created(1));
+        record(feed, "alice", created(2));
+        feed.record(ActivityEvent.cleared(BASE.plusHours(1)));
+        feed.close();
+
+        ActivityFeed reopened = openFeed();
+
+        List<ActivityEvent> events = reopened.recent(10);
+        assertThat(events).extracting(ActivityEvent::getType)
+            .containsExactly(ActivityEvent.Type.CLEARED, ActivityEvent.Type.CREATED);
+        assertThat(events.get(1).getTitle()).isEqualTo("Task 1");
+        assertThat(events.get(1).getDate()).isEqualTo(BASE.plusMinutes(1));
+        assertThat(recent(reopened, "alice", 10)).containsExactly(2L);
+        assertThat(TaskOwner.directory(dataDir, "alice").resolve("activity.json")).exists();
+    }
+
+    @Test
+    void aStoreWithoutAFeedIsSeededWithItsCreationsAndCompletions() {
+        Task open = task(1, "open");
+        open.setCreatedAt(BASE);
+        Task done = task(2, "done");
+        done.setCreatedAt(BASE.plusHours(1));
+        done.setStatus(Task.TaskStatus.COMPLETED);
+        done.setCompletedAt(BASE.plusHours(3));
+        Task undated = task(3, "undated");
+        undated.setCreatedAt(BASE.minusHours(1));
+        undated.setStatus(Task.TaskStatus.COMPLETED);
+        repository.saveAll(List.of(open, done, undated));
+
+        List<ActivityEvent> events = openFeed().recent(10);
+
+        assertThat(events).extracting(event -> event.getType() + " " + event.getTitle())
+            .containsExactly("COMPLETED done", "CREATED done", "CREATED open", "CREATED undated");
+    }
+}
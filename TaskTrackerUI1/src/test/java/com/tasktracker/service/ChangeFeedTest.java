@@ -0,0 +1,243 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskChange;
+import com.tasktracker.repository.TaskOwner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeFeedTest {
+    // Long enough that no heartbeat or flush runs behind a test's back
+    private static final long IDLE_MS = 3_600_000;
+    private static final int CAPACITY = 4;
+
+    @TempDir
+    Path dataDir;
+
+    private LocalStorageService storage;
+    private ChangeFeed feed;
+    private long nextId;
+
+    // Records what a client was sent, one line per change, reset or heartbeat
+    private static class Recorder implements ChangeFeed.Subscriber {
+        private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        private final List<TaskChange> changes = new ArrayList<>();
+
+        @Override
+        public synchronized void send(List<TaskChange> batch) {
+            for (TaskChange change : batch) {
+                changes.add(change);
+                received.add(change.getType() + " " + change.getTaskId());
+            }
+        }
+
+        @Override
+        public void reset(String position) {
+            received.add("reset");
+        }
+
+        @Override
+        public void heartbeat() {
+            received.add("heartbeat");
+        }
+
+        private List<String> take(int count) throws InterruptedException {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String line = received.poll(5, TimeUnit.SECONDS);
+                assertThat(line).as("line %d of %d, after %s", i + 1, count, lines).isNotNull();
+                lines.add(line);
+            }
+            return lines;
+        }
+
+        private void assertNothingMore() throws InterruptedException {
+            assertThat(received.poll(100, TimeUnit.MILLISECONDS)).isNull();
+        }
+    }
+
+    @BeforeEach
+    void open() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        storage = new LocalStorageService(dataDir.toString(), IDLE_MS, "sync", Long.MAX_VALUE, "binary",
+            meterRegistry, Runnable::run);
+        feed = new ChangeFeed(storage, 2, CAPACITY, IDLE_MS, meterRegistry);
+    }
+
+    @AfterEach
+    void close() {
+        feed.shutdown();
+        storage.close();
+    }
+
+    private Task create() {
+        Task task = storage.saveTask(new Task("Task " + ++nextId, null));
+        feed.created(task);
+        return task;
+    }
+
+    private void createAs(String owner) {
+        try (TaskOwner.Scope ignored = TaskOwner.use(owner)) {
+            create();
+        }
+    }
+
+    @Test
+    void subscribersGetTheChangesPublishedAfterTheySubscribe() throws InterruptedException {
+        create();
+        Recorder recorder = new Recorder();
+        feed.subscribe(null, recorder);
+
+        Task second = create();
+        second.setStatus(Task.TaskStatus.COMPLETED);
+        storage.saveTask(second);
+        feed.updated(second, Task.TaskStatus.PENDING);
+        storage.deleteTask(second.getId());
+        feed.deleted(second);
+
+        assertThat(recorder.take(3)).containsExactly("CREATED 2", "UPDATED 2", "DELETED 2");
+        recorder.assertNothingMore();
+        TaskChange updated = recorder.changes.get(1);
+        assertThat(updated.getPreviousStatus()).isEqualTo(Task.TaskStatus.PENDING);
+        assertThat(updated.getStatusCounts()).isEqualTo(Map.of(
+            Task.TaskStatus.PENDING, 1L, Task.TaskStatus.IN_PROGRESS, 0L, Task.TaskStatus.COMPLETED, 1L));
+    }
+
+    @Test
+    void aReconnectingSubscriberResumesFromItsPosition() throws InterruptedException {
+        create();
+        String position = feed.position();
+        create();
+        create();
+
+        Recorder recorder = new Recorder();
+        feed.subscribe(position, recorder);
+
+        assertThat(recorder.take(2)).containsExactly("CREATED 2", "CREATED 3");
+        recorder.assertNothingMore();
+    }
+
+    @Test
+    void aPositionThatFellOutOfTheBufferIsToldToReset() throws InterruptedException {
+        String position = feed.position();
+        for (int i = 0; i < CAPACITY + 2; i++) {
+            create();
+        }
+
+        Recorder recorder = new Recorder();
+        feed.subscribe(position, recorder);
+        assertThat(recorder.take(1)).containsExactly("reset");
+
+        // Delivery carries on from the position the reset handed out
+        create();
+        assertThat(recorder.take(1)).containsExactly("CREATED " + nextId);
+        recorder.assertNothingMore();
+    }
+
+    @Test
+    void aPositionFromBeforeARestartIsToldToReset() throws InterruptedException {
+        create();
+
+        Recorder recorder = new Recorder();
+        feed.subscribe("0.1", recorder);
+
+        assertThat(recorder.take(1)).containsExactly("reset");
+        recorder.assertNothingMore();
+    }
+
+    @Test
+    void aSubscriberOverrunWhileBusyIsToldToReset() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch sending = new CountDownLatch(1);
+        Recorder recorder = new Recorder() {
+            @Override
+            public void send(List<TaskChange> batch) {
+                super.send(batch);
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        feed.subscribe(null, recorder);
+        create();
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The buffer wraps while the client is still busy with the first change
+        for (int i = 0; i < CAPACITY + 2; i++) {
+            create();
+        }
+        release.countDown();
+
+        assertThat(recorder.take(2)).containsExactly("CREATED 1", "reset");
+        recorder.assertNothingMore();
+    }
+
+    @Test
+    void aBatchLargerThanTheBufferKeepsItsTail() throws InterruptedException {
+        String position = feed.position();
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < CAPACITY + 3; i++) {
+            batch.add(new Task("Task " + ++nextId, null));
+        }
+        storage.saveAll(batch);
+
+        feed.createdAll(batch);
+        Recorder resumed = new Recorder();
+        feed.subscribe(position, resumed);
+        Recorder tail = new Recorder();
+        feed.subscribe(feed.position(nextId - CAPACITY), tail);
+
+        assertThat(resumed.take(1)).containsExactly("reset");
+        assertThat(tail.take(CAPACITY)).containsExactly("CREATED 4", "CREATED 5", "CREATED 6", "CREATED 7");
+    }
+
+    @Test
+    void subscribersOnlyGetTheirOwnersChanges() throws InterruptedException {
+        Recorder alice = new Recorder();
+        Recorder bob = new Recorder();
+        try (TaskOwner.Scope ignored = TaskOwner.use("alice")) {
+            feed.subscribe(null, alice);
+        }
+        try (TaskOwner.Scope ignored = TaskOwner.use("bob")) {
+            feed.subscribe(null, bob);
+        }
+
+        createAs("alice");
+        createAs("bob");
+        createAs("alice");
+        createAs(TaskOwner.DEFAULT);
+
+        assertThat(alice.take(2)).containsExactly("CREATED 1", "CREATED 3");
+        assertThat(bob.take(1)).containsExactly("CREATED 2");
+        alice.assertNothingMore();
+        bob.assertNothingMore();
+    }
+
+    @Test
+    void clearingIsPublishedWithoutATask() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        feed.subscribe(null, recorder);
+
+        storage.truncate();
+        feed.cleared();
+
+        assertThat(recorder.take(1)).containsExactly("CLEARED null");
+    }
+}
@@ -0,0 +1,211 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.DueDateEvent;
+import com.tasktracker.model.Task;
+import com.tasktracker.repository.PartitionedTaskRepository;
+import com.tasktracker.repository.TaskOwner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DueDateSchedulerTest {
+    // Long enough that neither the tick nor a flush runs behind a test's back
+    private static final long IDLE_MS = 3_600_000;
+    private static final LocalDateTime DUE = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusDays(2);
+
+    @TempDir
+    Path dataDir;
+
+    private final List<DueDateEvent> events = new CopyOnWriteArrayList<>();
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private MeterRegistry meterRegistry;
+    private LocalStorageService storage;
+    private PartitionedTaskRepository repository;
+    private DueDateScheduler scheduler;
+    private TaskService taskService;
+    private int seen;
+
+    @BeforeEach
+    void open() {
+        open(List.of(events::add));
+    }
+
+    private void open(List<DueDateListener> listeners) {
+        meterRegistry = new SimpleMeterRegistry();
+        storage = new LocalStorageService(dataDir.toString(), IDLE_MS, "sync", Long.MAX_VALUE, "binary",
+            meterRegistry, Runnable::run);
+        resources.add(storage);
+        repository = new PartitionedTaskRepository(storage, dataDir.toString(), 8, IDLE_MS, meterRegistry);
+        resources.add(repository);
+        scheduler = new DueDateScheduler(repository, listeners, 60, IDLE_MS, meterRegistry);
+        resources.add(scheduler::close);
+
+        ActivityFeed activityFeed = new ActivityFeed(dataDir.toString(), IDLE_MS, 10, IDLE_MS, repository);
+        resources.add(activityFeed::close);
+        ChangeFeed changeFeed = new ChangeFeed(repository, 1, 10, IDLE_MS, meterRegistry);
+        resources.add(changeFeed::shutdown);
+        taskService = new TaskService();
+        ReflectionTestUtils.setField(taskService, "storageService", repository);
+        ReflectionTestUtils.setField(taskService, "activityFeed", activityFeed);
+        ReflectionTestUtils.setField(taskService, "dueDateScheduler", scheduler);
+        ReflectionTestUtils.setField(taskService, "changeFeed", changeFeed);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            resources.get(i).close();
+        }
+        resources.clear();
+    }
+
+    private static Task task(String title, LocalDateTime dueDate) {
+        Task task = new Task(title, null);
+        task.setDueDate(dueDate);
+        return task;
+    }
+
+    // The events fired at the given time, as "TYPE title"
+    private List<String> fire(LocalDateTime at) {
+        scheduler.fireDue(at);
+        List<String> fired = events.subList(seen, events.size()).stream()
+            .map(event -> event.getType() + " " + event.getTitle())
+            .toList();
+        seen = events.size();
+        return fired;
+    }
+
+    private double pending() {
+        return meterRegistry.get("tasktracker.reminders.scheduled").gauge().value();
+    }
+
+    @Test
+    void openTaskGetsAReminderAndThenAnOverdueEvent() {
+        taskService.createTask(task("report", DUE));
+
+        assertThat(fire(DUE.minusHours(2))).isEmpty();
+        assertThat(fire(DUE.minusMinutes(30))).containsExactly("REMINDER report");
+        assertThat(fire(DUE.plusMinutes(1))).containsExactly("OVERDUE report");
+        assertThat(fire(DUE.plusDays(1))).isEmpty();
+    }
+
+    @Test
+    void changingTheDueDateMovesTheEvents() {
+        Task created = taskService.createTask(task("report", DUE));
+        Task edited = task("report", DUE.plusDays(1));
+        edited.setVersion(created.getVersion());
+
+        taskService.updateTask(created.getId(), edited);
+
+        assertThat(fire(DUE.plusHours(1))).isEmpty();
+        assertThat(fire(DUE.plusDays(1).plusMinutes(1))).containsExactly("REMINDER report", "OVERDUE report");
+    }
+
+    @Test
+    void unrelatedEditsDoNotRepeatEventsThatAlreadyFired() {
+        Task created = taskService.createTask(task("report", DUE));
+        assertThat(fire(DUE.minusMinutes(30))).containsExactly("REMINDER report");
+
+        Task edited = task("quarterly report", DUE);
+        taskService.updateTask(created.getId(), edited);
+
+        assertThat(fire(DUE.plusMinutes(1))).containsExactly("OVERDUE quarterly report");
+    }
+
+    @Test
+    void completingOrDeletingATaskCancelsItsEvents() {
+        Task completed = taskService.createTask(task("done", DUE));
+        Task bulkCompleted = taskService.createTask(task("done in bulk", DUE));
+        Task deleted = taskService.createTask(task("deleted", DUE));
+        Task bulkDeleted = taskService.createTask(task("deleted in bulk", DUE));
+        taskService.createTask(task("kept", DUE));
+
+        taskService.updateTaskStatus(completed.getId(), Task.TaskStatus.COMPLETED);
+        taskService.updateStatusBulk(List.of(bulkCompleted.getId()), Task.TaskStatus.COMPLETED);
+        taskService.deleteTask(deleted.getId());
+        taskService.deleteByIds(List.of(bulkDeleted.getId()));
+
+        assertThat(fire(DUE.plusMinutes(1))).containsExactly("REMINDER kept", "OVERDUE kept");
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    void anOlderSaveReportedAfterANewerOneIsIgnored() {
+        Task first = repository.saveTask(task("report", DUE));
+        Task older = repository.getTaskById(first.getId()).orElseThrow();
+        Task newer = repository.getTaskById(first.getId()).orElseThrow();
+        newer.setDueDate(DUE.plusDays(1));
+        repository.saveTask(newer);
+
+        // Two concurrent saves whose schedule calls arrive in the opposite order
+        scheduler.schedule(newer);
+        scheduler.schedule(older);
+
+        assertThat(fire(DUE.plusMinutes(1))).isEmpty();
+        assertThat(fire(DUE.plusDays(1).plusMinutes(1))).containsExactly("REMINDER report", "OVERDUE report");
+    }
+
+    @Test
+    void eventsForADueDateThatChangedUnseenAreMovedToTheStoredOne() {
+        Task created = taskService.createTask(task("report", DUE));
+        // Saved without telling the scheduler, as when its schedule call has not arrived yet
+        Task moved = repository.getTaskById(created.getId()).orElseThrow();
+        moved.setDueDate(DUE.plusDays(1));
+        repository.saveTask(moved);
+
+        assertThat(fire(DUE.plusMinutes(1))).isEmpty();
+        assertThat(fire(DUE.plusDays(1).plusMinutes(1))).containsExactly("REMINDER report", "OVERDUE report");
+    }
+
+    @Test
+    void eventsReachEveryListenerInTheOwnersScope() throws Exception {
+        close();
+        List<String> scopes = new CopyOnWriteArrayList<>();
+        DueDateListener failing = event -> {
+            throw new IllegalStateException("listener down");
+        };
+        open(List.of(failing, event -> scopes.add(TaskOwner.current()), events::add));
+
+        try (TaskOwner.Scope ignored = TaskOwner.use("alice")) {
+            taskService.createTask(task("alice's report", DUE));
+        }
+        taskService.createTask(task("default report", DUE));
+
+        assertThat(fire(DUE.plusMinutes(1))).containsExactlyInAnyOrder(
+            "REMINDER alice's report", "OVERDUE alice's report", "REMINDER default report", "OVERDUE default report");
+        assertThat(events).extracting(DueDateEvent::getOwner).containsOnly("alice", TaskOwner.DEFAULT);
+        assertThat(scopes).containsExactlyElementsOf(events.stream().map(DueDateEvent::getOwner).toList());
+        assertThat(scheduler.getFiredCount()).isEqualTo(4);
+    }
+
+    @Test
+    void partitionsAreLoadedWhenTheyOpenAndPastDueDatesAreNotAnnounced() throws Exception {
+        try (TaskOwner.Scope ignored = TaskOwner.use("alice")) {
+            taskService.createTask(task("upcoming", DUE));
+            taskService.createTask(task("long overdue", LocalDateTime.now().minusDays(3)));
+        }
+        close();
+
+        open(List.of(events::add));
+        assertThat(pending()).isZero();
+
+        try (TaskOwner.Scope ignored = TaskOwner.use("alice")) {
+            assertThat(taskService.getTaskById(1L)).isPresent();
+        }
+        assertThat(pending()).isEqualTo(2);
+        assertThat(fire(DUE.plusMinutes(1))).containsExactly("REMINDER upcoming", "OVERDUE upcoming");
+    }
+}
@@ -0,0 +1,395 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+import com.tasktracker.model.WeeklyCompletion;
+import com.tasktracker.storage.CodecSnapshotStore;
+import com.tasktracker.storage.TaskCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalStorageServiceTest {
+    // Long enough that nothing is compacted or flushed behind a test's back
+    private static final long IDLE_MS = 3_600_000;
+
+    @TempDir
+    Path dataDir;
+
+    private final List<LocalStorageService> services = new ArrayList<>();
+
+    @AfterEach
+    void closeServices() {
+        services.forEach(LocalStorageService::close);
+    }
+
+    private LocalStorageService open(String format) {
+        LocalStorageService service = new LocalStorageService(dataDir.toString(), IDLE_MS, "sync",
+            Long.MAX_VALUE, format, new SimpleMeterRegistry(), Runnable::run);
+        services.add(service);
+        return service;
+    }
+
+    private void close(LocalStorageService service) {
+        services.remove(service);
+        service.close();
+    }
+
+    private static Task task(String title, Task.TaskStatus status) {
+        Task task = new Task(title, "About " + title);
+        task.setStatus(status);
+        task.setPriority(Task.TaskPriority.HIGH);
+        task.setCreatedAt(LocalDateTime.of(2025, 3, 1, 9, 30).plusMinutes(title.length()));
+        task.setUpdatedAt(task.getCreatedAt());
+        return task;
+    }
+
+    private static Map<Long, String> contents(LocalStorageService service) {
+        return service.getAllTasks().stream().collect(Collectors.toMap(Task::getId,
+            task -> task.getTitle() + "|" + task.getStatus() + "|v" + task.getVersion(), (a, b) -> a, TreeMap::new));
+    }
+
+    private void writeMixedHistory(LocalStorageService service) {
+        service.saveTask(task("one", Task.TaskStatus.PENDING));
+        service.saveTask(task("two", Task.TaskStatus.PENDING));
+        service.saveAll(List.of(task("three", Task.TaskStatus.IN_PROGRESS), task("four", Task.TaskStatus.PENDING)));
+        Task two = service.getTaskById(2L).orElseThrow();
+        two.setStatus(Task.TaskStatus.COMPLETED);
+        service.saveTask(two);
+        service.deleteTask(1L);
+        service.updateAll(List.of(3L, 4L), task -> task.setStatus(Task.TaskStatus.COMPLETED));
+        service.deleteByIds(List.of(4L));
+    }
+
+    private List<Path> journalSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dataDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    @Test
+    void reopeningReplaysTheJournal() {
+        LocalStorageService service = open("binary");
+        writeMixedHistory(service);
+        Map<Long, String> expected = contents(service);
+
+        // Without close() nothing is compacted, as after a crash
+        assertThat(contents(open("binary"))).isEqualTo(expected);
+        assertThat(expected).containsOnlyKeys(2L, 3L);
+    }
+
+    @Test
+    void replayOverASnapshotThatAlreadyHoldsTheEntriesIsIdempotent() throws IOException {
+        LocalStorageService service = open("binary");
+        writeMixedHistory(service);
+        Map<Long, String> expected = contents(service);
+        Map<Path, byte[]> segments = new TreeMap<>();
+        for (Path segment : journalSegments()) {
+            segments.put(segment, Files.readAllBytes(segment));
+        }
+
+        // A crash after the snapshot is written but before the folded segments are deleted
+        service.compact();
+        assertThat(journalSegments()).hasSize(1);
+        for (Map.Entry<Path, byte[]> segment : segments.entrySet()) {
+            Files.write(segment.getKey(), segment.getValue());
+        }
+
+        LocalStorageService reopened = open("binary");
+        assertThat(contents(reopened)).isEqualTo(expected);
+        assertThat(contents(open("binary"))).isEqualTo(expected);
+    }
+
+    @Test
+    void truncateInTheJournalIsReplayed() {
+        LocalStorageService service = open("json");
+        service.saveTask(task("before", Task.TaskStatus.PENDING));
+        service.truncate();
+        service.saveTask(task("after", Task.TaskStatus.PENDING));
+
+        assertThat(open("json").getAllTasks()).extracting(Task::getTitle).containsExactly("after");
+    }
+
+    @Test
+    void idsContinueAfterReplay() {
+        LocalStorageService service = open("binary");
+        service.saveTask(task("one", Task.TaskStatus.PENDING));
+        service.saveTask(task("two", Task.TaskStatus.PENDING));
+
+        Task next = open("binary").saveTask(task("three", Task.TaskStatus.PENDING));
+
+        assertThat(next.getId()).isEqualTo(3L);
+    }
+
+    private static List<Long> listed(LocalStorageService service, TaskQuery.Sort sort) {
+        TaskQuery query = new TaskQuery();
+        query.setSort(sort);
+        query.setSize(10);
+        return service.findTasks(query).getTasks().stream().map(Task::getId).toList();
+    }
+
+    @Test
+    void tasksSavedWithoutTimestampsAreDatedAndListed() {
+        LocalStorageService service = open("binary");
+        service.saveTask(task("dated", Task.TaskStatus.PENDING));
+        Task undated = service.saveTask(new Task("undated", null));
+        service.saveAll(List.of(new Task("undated batch", null)));
+
+        assertThat(undated.getCreatedAt()).isNotNull().isEqualTo(undated.getUpdatedAt());
+        assertThat(listed(service, TaskQuery.Sort.NEWEST)).containsExactly(3L, 2L, 1L);
+        assertThat(listed(service, TaskQuery.Sort.OLDEST)).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void undatedTasksInAnOlderSnapshotAreListed() throws IOException {
+        Task updated = task("updated", Task.TaskStatus.PENDING);
+        updated.setId(1L);
+        updated.setCreatedAt(null);
+        Task undated = task("undated", Task.TaskStatus.PENDING);
+        undated.setId(2L);
+        undated.setCreatedAt(null);
+        undated.setUpdatedAt(null);
+        new CodecSnapshotStore(dataDir, TaskCodec.forFormat("binary")).write(List.of(updated, undated));
+
+        LocalStorageService service = open("binary");
+
+        assertThat(service.getTaskById(1L)).get().extracting(Task::getCreatedAt).isEqualTo(updated.getUpdatedAt());
+        assertThat(listed(service, TaskQuery.Sort.NEWEST)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void snapshotInAnotherFormatIsMigratedAndLeftInPlace() throws IOException {
+        Path legacy = dataDir.resolve("tasks.json");
+        Task seeded = task("seeded", Task.TaskStatus.PENDING);
+        seeded.setId(7L);
+        seeded.setVersion(3L);
+        new CodecSnapshotStore(dataDir, TaskCodec.forFormat("json")).write(List.of(seeded));
+        byte[] original = Files.readAllBytes(legacy);
+
+        LocalStorageService service = open("binary");
+
+        assertThat(service.getAllTasks()).usingRecursiveFieldByFieldElementComparator().containsExactly(seeded);
+        assertThat(dataDir.resolve("tasks.bin")).exists();
+        assertThat(Files.readAllBytes(legacy)).isEqualTo(original);
+        assertThat(dataDir.resolve("tasks.json.migrated")).exists();
+    }
+
+    @Test
+    void switchingBackConvertsTheCurrentDataInsteadOfTheStaleOriginal() {
+        LocalStorageService json = open("json");
+        json.saveTask(task("original", Task.TaskStatus.PENDING));
+        close(json);
+
+        LocalStorageService binary = open("binary");
+        binary.saveTask(task("added in binary", Task.TaskStatus.PENDING));
+        close(binary);
+        LocalStorageService slots = open("slots");
+        slots.saveTask(task("added in slots", Task.TaskStatus.PENDING));
+        Map<Long, String> expected = contents(slots);
+        close(slots);
+
+        assertThat(contents(open("json"))).isEqualTo(expected).hasSize(3);
+        assertThat(dataDir.resolve("tasks.json.migrated")).doesNotExist();
+        assertThat(dataDir.resolve("tasks.bin.migrated")).exists();
+        assertThat(dataDir.resolve("tasks.slots.migrated")).exists();
+    }
+
+    @Test
+    void slotSnapshotSurvivesIncrementalCompactions() {
+        LocalStorageService service = open("slots");
+        writeMixedHistory(service);
+        service.compact();
+        service.saveTask(task("five", Task.TaskStatus.PENDING));
+        service.deleteTask(3L);
+        service.compact();
+        Map<Long, String> expected = contents(service);
+        close(service);
+
+        assertThat(contents(open("slots"))).isEqualTo(expected).containsOnlyKeys(2L, 5L);
+    }
+
+    @Test
+    void columnReportsMatchTheStoredTasksAfterReplay() {
+        LocalStorageService service = open("binary");
+        for (int i = 0; i < 60; i++) {
+            Task task = task("task " + i, Task.TaskStatus.values()[i % 3]);
+            task.setPriority(Task.TaskPriority.values()[i / 3 % 3]);
+            task.setCreatedAt(LocalDateTime.of(2025, 3, 1, 9, 0).plusDays(i));
+            task.setDueDate(i % 4 == 0 ? null : task.getCreatedAt().plusDays(i % 10));
+            task.setCompletedAt(task.getStatus() == Task.TaskStatus.COMPLETED ? task.getCreatedAt().plusDays(3) : null);
+            service.saveTask(task);
+        }
+        service.updateAll(List.of(1L, 2L, 3L), task -> {
+            task.setStatus(Task.TaskStatus.COMPLETED);
+            task.setCompletedAt(task.getCreatedAt().plusDays(1));
+        });
+        service.deleteByIds(List.of(4L, 5L, 6L));
+
+        LocalStorageService reopened = open("binary");
+        List<Task> stored = reopened.getAllTasks();
+        LocalDateTime now = LocalDateTime.of(2025, 4, 15, 0, 0);
+        LocalDate firstWeek = LocalDate.of(2025, 2, 24);
+
+        Map<Task.TaskPriority, Long> overdue = new EnumMap<>(Task.TaskPriority.class);
+        for (Task.TaskPriority priority : Task.TaskPriority.values()) {
+            overdue.put(priority, stored.stream().filter(task -> task.getPriority() == priority
+                && task.getStatus() != Task.TaskStatus.COMPLETED
+                && task.getDueDate() != null && task.getDueDate().isBefore(now)).count());
+        }
+        assertThat(reopened.countOverdueByPriority(now)).isEqualTo(overdue);
+
+        List<WeeklyCompletion> weeks = reopened.getWeeklyCompletion(firstWeek, 12);
+        for (WeeklyCompletion week : weeks) {
+            LocalDateTime start = week.getWeekStart().atStartOfDay();
+            LocalDateTime end = start.plusWeeks(1);
+            assertThat(week.getCreated()).isEqualTo(stored.stream()
+                .filter(task -> !task.getCreatedAt().isBefore(start) && task.getCreatedAt().isBefore(end)).count());
+            assertThat(week.getCompleted()).isEqualTo(stored.stream()
+                .filter(task -> task.getStatus() == Task.TaskStatus.COMPLETED && task.getCompletedAt() != null
+                    && !task.getCompletedAt().isBefore(start) && task.getCompletedAt().isBefore(end)).count());
+        }
+        assertThat(weeks).extracting(WeeklyCompletion::getCreated).contains(7L);
+    }
+
+    @Test
+    void staleVersionIsRejectedAndNothingIsStored() {
+        LocalStorageService service = open("binary");
+        Task saved = service.saveTask(task("original", Task.TaskStatus.PENDING));
+        Task first = service.getTaskById(saved.getId()).orElseThrow();
+        Task second = service.getTaskById(saved.getId()).orElseThrow();
+        first.setTitle("first edit");
+        service.saveTask(first);
+
+        second.setTitle("second edit");
+        assertThatThrownBy(() -> service.saveTask(second)).isInstanceOf(StaleTaskException.class);
+
+        Map<Long, String> expected = Map.of(saved.getId(), "first edit|PENDING|v2");
+        assertThat(contents(service)).isEqualTo(expected);
+        assertThat(contents(open("binary"))).isEqualTo(expected);
+    }
+
+    @Test
+    void concurrentWritersToOneTaskLoseNoUpdate() throws Exception {
+        LocalStorageService service = open("binary");
+        Task counter = task("counter", Task.TaskStatus.PENDING);
+        counter.setDescription("0");
+        long id = service.saveTask(counter).getId();
+        int writers = 8;
+        int writesEach = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                running.add(pool.submit(() -> {
+                    for (int i = 0; i < writesEach; ) {
+                        Task current = service.getTaskById(id).orElseThrow();
+                        current.setDescription(String.valueOf(Long.parseLong(current.getDescription()) + 1));
+                        try {
+                            service.saveTask(current);
+                            i++;
+                        } catch (StaleTaskException e) {
+                            // Another writer got in first; read it again and retry
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : running) {
+                writer.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Task stored = service.getTaskById(id).orElseThrow();
+        assertThat(stored.getVersion()).isEqualTo(1L + writers * writesEach);
+        assertThat(Long.parseLong(stored.getDescription())).isEqualTo((long) writers * writesEach);
+        assertThat(contents(open("binary"))).isEqualTo(contents(service));
+    }
+
+    @Test
+    void repeatedIdsInABatchEachBumpTheVersion() {
+        LocalStorageService service = open("json");
+        Task saved = service.saveTask(task("one", Task.TaskStatus.PENDING));
+        Task again = task("one again", Task.TaskStatus.IN_PROGRESS);
+        again.setId(saved.getId());
+        Task last = task("one last", Task.TaskStatus.COMPLETED);
+        last.setId(saved.getId());
+        // Versions in a batch are not checked, so an old one does not matter
+        last.setVersion(1L);
+
+        service.saveAll(List.of(again, last));
+
+        assertThat(List.of(again.getVersion(), last.getVersion())).containsExactly(2L, 3L);
+        Map<Long, String> expected = Map.of(saved.getId(), "one last|COMPLETED|v3");
+        assertThat(contents(service)).isEqualTo(expected);
+        assertThat(contents(open("json"))).isEqualTo(expected);
+    }
+
+    @Test
+    void writesTheJournalRefusesLeaveTheTasksUnchanged() {
+        LocalStorageService service = open("binary");
+        writeMixedHistory(service);
+        Map<Long, String> expected = contents(service);
+        close(service);
+
+        assertThatThrownBy(() -> service.saveTask(task("five", Task.TaskStatus.PENDING)))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> service.saveAll(List.of(task("six", Task.TaskStatus.PENDING))))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> service.deleteTask(2L)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> service.updateAll(List.of(2L, 3L), task -> task.setTitle("changed")))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> service.deleteByIds(List.of(2L, 3L))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(service::truncate).isInstanceOf(IllegalStateException.class);
+
+        assertThat(contents(service)).isEqualTo(expected);
+        assertThat(service.count()).isEqualTo(expected.size());
+        assertThat(service.countByStatus(Task.TaskStatus.COMPLETED)).isEqualTo(2);
+        assertThat(contents(open("binary"))).isEqualTo(expected);
+    }
+
+    @Test
+    void searchPagesFollowTheRankingAndFarPagesAreEmpty() {
+        LocalStorageService service = open("binary");
+        for (int i = 0; i < 25; i++) {
+            service.saveTask(task(i % 5 == 0 ? "invoice " + i : "task " + i, Task.TaskStatus.PENDING));
+        }
+        service.saveTask(task("invoice done", Task.TaskStatus.COMPLETED));
+        TaskQuery query = new TaskQuery();
+        query.setStatus(Task.TaskStatus.PENDING);
+        query.setSize(2);
+
+        query.setPage(2);
+        TaskPage second = service.search("invoice", query);
+        // Far enough out that (page - 1) * size overflows an int
+        query.setPage(Integer.MAX_VALUE);
+        TaskPage far = service.search("invoice", query);
+
+        assertThat(second.getTasks()).extracting(Task::getTitle).containsExactly("invoice 10", "invoice 5");
+        assertThat(second.getTotalElements()).isEqualTo(5);
+        assertThat(far.getTasks()).isEmpty();
+        assertThat(far.getTotalElements()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,114 @@
+package com.tasktracker.service;
+
+import com.tasktracker.model.DueDateEvent;
+import com.tasktracker.repository.TaskOwner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationQueueTest {
+    private static final LocalDateTime DUE = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    @TempDir
+    Path dataDir;
+
+    private SettingsService settings;
+    private NotificationQueue queue;
+
+    @BeforeEach
+    void open() {
+        settings = new SettingsService(dataDir.toString());
+        queue = new NotificationQueue(settings, 3);
+    }
+
+    private static DueDateEvent event(String owner, long taskId) {
+        return new DueDateEvent(DueDateEvent.Type.OVERDUE, owner, taskId, "Task " + taskId, DUE, DUE);
+    }
+
+    private List<Long> pending(String owner) {
+        try (TaskOwner.Scope ignored = TaskOwner.use(owner)) {
+            return queue.pending().stream().map(DueDateEvent::getTaskId).toList();
+        }
+    }
+
+    private long version(String owner) {
+        try (TaskOwner.Scope ignored = TaskOwner.use(owner)) {
+            return queue.getVersion();
+        }
+    }
+
+    @Test
+    void eachOwnerSeesOnlyTheirOwnNotificationsNewestFirst() {
+        queue.onDueDate(event("alice", 1));
+        queue.onDueDate(event("bob", 2));
+        queue.onDueDate(event("alice", 3));
+
+        assertThat(pending("alice")).containsExactly(3L, 1L);
+        assertThat(pending("bob")).containsExactly(2L);
+        assertThat(pending("carol")).isEmpty();
+    }
+
+    @Test
+    void onlyTheNewestNotificationsAreKept() {
+        for (long id = 1; id <= 5; id++) {
+            queue.onDueDate(event("alice", id));
+        }
+
+        assertThat(pending("alice")).containsExactly(5L, 4L, 3L);
+    }
+
+    @Test
+    void nothingIsQueuedWhileRemindersAreTurnedOff() {
+        settings.updateNotificationSettings(false, false, false);
+
+        queue.onDueDate(event("alice", 1));
+
+        assertThat(pending("alice")).isEmpty();
+        assertThat(version("alice")).isZero();
+    }
+
+    @Test
+    void clearingEmptiesOnlyTheCurrentOwnersQueue() {
+        queue.onDueDate(event("alice", 1));
+        queue.onDueDate(event("bob", 2));
+        long before = version("alice");
+
+        try (TaskOwner.Scope ignored = TaskOwner.use("alice")) {
+            queue.clear();
+        }
+
+        assertThat(pending("alice")).isEmpty();
+        assertThat(version("alice")).isGreaterThan(before);
+        assertThat(pending("bob")).containsExactly(2L);
+    }
+
+    @Test
+    void clearingEverythingEmptiesEveryOwnersQueue() {
+        queue.onDueDate(event("alice", 1));
+        queue.onDueDate(event("bob", 2));
+
+        queue.clearAll();
+
+        assertThat(pending("alice")).isEmpty();
+        assertThat(pending("bob")).isEmpty();
+    }
+
+    @Test
+    void versionOnlyChangesWhenTheQueueDoes() {
+        long empty = version("alice");
+        try (TaskOwner.Scope ignored = TaskOwner.use("alice")) {
+            queue.clear();
+        }
+        assertThat(version("alice")).isEqualTo(empty);
+
+        queue.onDueDate(event("alice", 1));
+        assertThat(version("alice")).isEqualTo(empty + 1);
+        assertThat(version("bob")).isZero();
+    }
+}
@@ -0,0 +1,84 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CodecSnapshotStoreTest {
+
+    @TempDir
+    Path dataDir;
+
+    static List<Task> sampleTasks() {
+        List<Task> tasks = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 9, 30, 15, 123_000_000);
+        for (int i = 1; i <= 50; i++) {
+            Task task = new Task("Task " + i, i % 3 == 0 ? null : "Notes for " + i + " ✓");
+            task.setId((long) i);
+            task.setVersion((long) i % 4 + 1);
+            task.setStatus(Task.TaskStatus.values()[i % 3]);
+            task.setPriority(Task.TaskPriority.values()[i % 3]);
+            task.setCreatedAt(base.plusHours(i));
+            task.setUpdatedAt(base.plusHours(i).plusMinutes(5));
+            task.setDueDate(i % 2 == 0 ? base.plusDays(i) : null);
+            task.setCompletedAt(task.getStatus() == Task.TaskStatus.COMPLETED ? base.plusDays(i).plusHours(1) : null);
+            tasks.add(task);
+        }
+        // Timestamps a legacy snapshot may lack
+        Task sparse = new Task();
+        sparse.setId(51L);
+        sparse.setTitle("");
+        sparse.setVersion(1L);
+        tasks.add(sparse);
+        return tasks;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"binary", "json"})
+    void writtenTasksLoadBackUnchanged(String format) throws IOException {
+        CodecSnapshotStore store = new CodecSnapshotStore(dataDir, TaskCodec.forFormat(format));
+        List<Task> tasks = sampleTasks();
+
+        long written = store.write(tasks);
+
+        assertThat(store.exists()).isTrue();
+        assertThat(written).isEqualTo(store.sizeOnDisk());
+        assertThat(new CodecSnapshotStore(dataDir, TaskCodec.forFormat(format)).load())
+            .usingRecursiveFieldByFieldElementComparator()
+            .containsExactlyElementsOf(tasks);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"binary", "json"})
+    void writeReplacesThePreviousSnapshot(String format) throws IOException {
+        CodecSnapshotStore store = new CodecSnapshotStore(dataDir, TaskCodec.forFormat(format));
+        store.write(sampleTasks());
+
+        store.write(sampleTasks().subList(0, 2));
+
+        assertThat(store.load()).extracting(Task::getId).containsExactly(1L, 2L);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"binary", "json"})
+    void staleTemporaryFileIsRemovedOnOpen(String format) throws IOException {
+        TaskCodec codec = TaskCodec.forFormat(format);
+        Path tmp = dataDir.resolve(codec.fileName() + ".tmp");
+        Files.write(tmp, new byte[] {1, 2, 3});
+
+        CodecSnapshotStore store = new CodecSnapshotStore(dataDir, codec);
+
+        assertThat(tmp).doesNotExist();
+        assertThat(store.exists()).isFalse();
+    }
+}
@@ -0,0 +1,151 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTest {
+    private final Map<Long, TaskRecord> tasks = new HashMap<>();
+    private final SearchIndex index = new SearchIndex();
+    private final StringPool strings = new StringPool(64);
+
+    private void put(long id, String title, String description) {
+        Task task = new Task(title, description);
+        task.setId(id);
+        task.setVersion(1L);
+        TaskRecord record = TaskRecord.of(task, strings);
+        index.update(id, tasks.put(id, record), record);
+    }
+
+    private void delete(long id) {
+        index.update(id, tasks.remove(id), null);
+    }
+
+    private List<Long> search(String text) {
+        return search(text, 100);
+    }
+
+    private List<Long> search(String text, int limit) {
+        return index.search(text, id -> true, limit).hits().stream().map(SearchIndex.Hit::id).toList();
+    }
+
+    @Test
+    void termsAreMatchedAsCaseInsensitivePrefixes() {
+        put(1, "Quarterly Report", null);
+        put(2, "Reply to email", null);
+        put(3, "Groceries", "Eggs, milk");
+
+        assertThat(search("rep")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(search("REPORT")).containsExactly(1L);
+        assertThat(search("milk")).containsExactly(3L);
+        assertThat(search("rapport")).isEmpty();
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        put(1, "Quarterly report", "For the board");
+        put(2, "Monthly report", null);
+        put(3, "Quarterly taxes", null);
+
+        assertThat(search("quarterly report")).containsExactly(1L);
+        assertThat(search("report board")).containsExactly(1L);
+        assertThat(search("quarterly missing")).isEmpty();
+    }
+
+    @Test
+    void shortTermsAndPunctuationAreIgnored() {
+        put(1, "A plan", null);
+
+        assertThat(search("a")).isEmpty();
+        assertThat(search("  plan!  ")).containsExactly(1L);
+        assertThat(SearchIndex.tokenize("x, Hello-World 42")).containsExactly("hello", "world", "42");
+    }
+
+    @Test
+    void titlesOutrankDescriptionsAndExactTermsOutrankPrefixes() {
+        put(1, "Notes", "Review the budget");
+        put(2, "Budget review", null);
+        put(3, "Budgeting course", null);
+
+        assertThat(search("budget")).containsExactly(2L, 3L, 1L);
+        assertThat(index.search("budget", id -> true, 10).hits())
+            .extracting(SearchIndex.Hit::score).containsExactly(6, 3, 2);
+    }
+
+    @Test
+    void tiesGoToTheNewerTask() {
+        put(1, "Call the bank", null);
+        put(2, "Call the plumber", null);
+        put(3, "Call mum", null);
+
+        assertThat(search("call")).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void limitKeepsTheBestHitsAndTotalCountsThemAll() {
+        for (long id = 1; id <= 20; id++) {
+            put(id, id % 5 == 0 ? "Invoice" : "Other", id % 5 == 0 ? null : "invoice attached");
+        }
+
+        SearchIndex.Result result = index.search("invoice", id -> true, 3);
+
+        assertThat(result.total()).isEqualTo(20);
+        assertThat(result.hits()).extracting(SearchIndex.Hit::id).containsExactly(20L, 15L, 10L);
+    }
+
+    @Test
+    void filteredOutTasksAreNeitherListedNorCounted() {
+        put(1, "Invoice March", null);
+        put(2, "Invoice April", null);
+        put(3, "Invoice May", null);
+
+        SearchIndex.Result result = index.search("invoice", id -> id != 2, 10);
+
+        assertThat(result.total()).isEqualTo(2);
+        assertThat(result.hits()).extracting(SearchIndex.Hit::id).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void editsMoveATaskBetweenTerms() {
+        put(1, "Draft proposal", "First pass");
+        put(2, "Proposal review", null);
+
+        put(1, "Final contract", "First pass");
+
+        assertThat(search("draft")).isEmpty();
+        assertThat(search("proposal")).containsExactly(2L);
+        assertThat(search("contract")).containsExactly(1L);
+        assertThat(search("first")).containsExactly(1L);
+    }
+
+    @Test
+    void unchangedTextKeepsItsPostingsAndDeletesRemoveThem() {
+        put(1, "Renew passport", null);
+        Task task = tasks.get(1L).toTask();
+        task.setStatus(Task.TaskStatus.COMPLETED);
+        TaskRecord completed = TaskRecord.of(task, strings);
+        index.update(1L, tasks.put(1L, completed), completed);
+        assertThat(search("passport")).containsExactly(1L);
+
+        delete(1);
+
+        assertThat(search("passport")).isEmpty();
+        assertThat(search("renew")).isEmpty();
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        put(1, "Renew passport", null);
+        put(2, "Pay rent", null);
+
+        index.clear();
+
+        assertThat(search("renew")).isEmpty();
+        assertThat(search("pay")).isEmpty();
+    }
+}
@@ -0,0 +1,166 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlotSnapshotStoreTest {
+
+    @TempDir
+    Path dataDir;
+
+    private final List<SlotSnapshotStore> stores = new ArrayList<>();
+
+    @AfterEach
+    void closeStores() throws IOException {
+        for (SlotSnapshotStore store : stores) {
+            store.close();
+        }
+    }
+
+    private SlotSnapshotStore open() {
+        SlotSnapshotStore store = new SlotSnapshotStore(dataDir);
+        stores.add(store);
+        return store;
+    }
+
+    private List<Task> reload() throws IOException {
+        return open().load();
+    }
+
+    private static Task copy(Task task) {
+        Task copy = new Task(task.getTitle(), task.getDescription());
+        copy.setId(task.getId());
+        copy.setStatus(task.getStatus());
+        copy.setPriority(task.getPriority());
+        copy.setCreatedAt(task.getCreatedAt());
+        copy.setUpdatedAt(task.getUpdatedAt());
+        copy.setDueDate(task.getDueDate());
+        copy.setCompletedAt(task.getCompletedAt());
+        copy.setVersion(task.getVersion());
+        return copy;
+    }
+
+    private List<String> heapFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dataDir)) {
+            return files.map(file -> file.getFileName().toString()).filter(name -> name.startsWith("tasks.heap.")).toList();
+        }
+    }
+
+    @Test
+    void writtenTasksLoadBackUnchanged() throws IOException {
+        List<Task> tasks = CodecSnapshotStoreTest.sampleTasks();
+
+        open().write(tasks);
+
+        assertThat(reload()).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(tasks);
+    }
+
+    @Test
+    void updatesChangeAddAndRemoveTasksInPlace() throws IOException {
+        List<Task> tasks = CodecSnapshotStoreTest.sampleTasks();
+        SlotSnapshotStore store = open();
+        store.write(tasks);
+
+        Task changed = copy(tasks.get(0));
+        changed.setTitle("A much longer title than the one stored before");
+        changed.setStatus(Task.TaskStatus.COMPLETED);
+        changed.setVersion(changed.getVersion() + 1);
+        Task added = copy(tasks.get(1));
+        added.setId(100L);
+        Map<Long, Task> changes = new HashMap<>();
+        changes.put(changed.getId(), changed);
+        changes.put(added.getId(), added);
+        changes.put(tasks.get(2).getId(), null);
+        store.update(changes);
+
+        List<Task> expected = new ArrayList<>(tasks);
+        expected.set(0, changed);
+        expected.remove(2);
+        expected.add(added);
+        assertThat(reload()).usingRecursiveFieldByFieldElementComparator().containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void freedSlotsAreReusedAfterReload() throws IOException {
+        List<Task> tasks = CodecSnapshotStoreTest.sampleTasks();
+        open().write(tasks);
+        SlotSnapshotStore store = open();
+        store.load();
+        Map<Long, Task> delete = new HashMap<>();
+        delete.put(1L, null);
+        store.update(delete);
+        long size = Files.size(dataDir.resolve("tasks.slots"));
+
+        Task replacement = copy(tasks.get(0));
+        replacement.setId(200L);
+        store.update(Map.of(200L, replacement));
+
+        assertThat(Files.size(dataDir.resolve("tasks.slots"))).isEqualTo(size);
+        assertThat(reload()).extracting(Task::getId).contains(200L).doesNotContain(1L).hasSize(tasks.size());
+    }
+
+    @Test
+    void manyStringChangesAskForARewriteThatStartsANewHeap() throws IOException {
+        List<Task> tasks = CodecSnapshotStoreTest.sampleTasks();
+        SlotSnapshotStore store = open();
+        store.write(tasks);
+        assertThat(store.needsRewrite()).isFalse();
+
+        String filler = "x".repeat(64 * 1024);
+        for (int round = 0; round < 40 && !store.needsRewrite(); round++) {
+            Task task = copy(tasks.get(0));
+            task.setDescription(filler + round);
+            store.update(Map.of(task.getId(), task));
+        }
+        assertThat(store.needsRewrite()).isTrue();
+        List<String> before = heapFiles();
+
+        List<Task> current = reload();
+        store.write(current);
+
+        assertThat(store.needsRewrite()).isFalse();
+        assertThat(heapFiles()).hasSize(1).doesNotContainAnyElementsOf(before);
+        assertThat(reload()).usingRecursiveFieldByFieldElementComparator().containsExactlyInAnyOrderElementsOf(current);
+    }
+
+    @Test
+    void recordPointingPastTheHeapIsDroppedAsTorn() throws IOException {
+        List<Task> tasks = CodecSnapshotStoreTest.sampleTasks();
+        SlotSnapshotStore store = open();
+        store.write(tasks);
+        Path heap = dataDir.resolve(heapFiles().get(0));
+        long durableHeap = Files.size(heap);
+        Task renamed = CodecSnapshotStoreTest.sampleTasks().get(4);
+        renamed.setTitle("Renamed after the last full write");
+        store.update(Map.of(renamed.getId(), renamed));
+        store.close();
+
+        // The slot reached the disk but the string it points at did not
+        try (FileChannel channel = FileChannel.open(heap, StandardOpenOption.WRITE)) {
+            channel.truncate(durableHeap);
+        }
+
+        List<Task> loaded = reload();
+        assertThat(loaded).extracting(Task::getId).doesNotContain(renamed.getId()).hasSize(tasks.size() - 1);
+        Task replayed = CodecSnapshotStoreTest.sampleTasks().get(4);
+        replayed.setTitle("Restored by the journal");
+        SlotSnapshotStore reopened = stores.get(stores.size() - 1);
+        reopened.update(Map.of(replayed.getId(), replayed));
+        assertThat(reload()).extracting(Task::getTitle).contains("Restored by the journal").hasSize(tasks.size());
+    }
+}
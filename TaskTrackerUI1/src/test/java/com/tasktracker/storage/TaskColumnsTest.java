@@ -0,0 +1,170 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskColumnsTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 6, 0, 0);
+    private static final long WEEK_MILLIS = TimeUnit.DAYS.toMillis(7);
+    private static final int WEEKS = 12;
+
+    private final Map<Long, TaskRecord> tasks = new HashMap<>();
+    private final TaskColumns columns = new TaskColumns();
+    private final StringPool strings = new StringPool(64);
+    private final Random random = new Random(42);
+    private long nextId;
+
+    private LocalDateTime randomTime() {
+        return random.nextInt(10) == 0 ? null : BASE.minusWeeks(2).plusMinutes(random.nextInt(16 * 7 * 24 * 60));
+    }
+
+    private Task randomTask(long id) {
+        Task task = new Task("Task " + id, null);
+        task.setId(id);
+        task.setVersion(1L);
+        task.setStatus(Task.TaskStatus.values()[random.nextInt(3)]);
+        task.setPriority(Task.TaskPriority.values()[random.nextInt(3)]);
+        task.setCreatedAt(randomTime());
+        task.setDueDate(randomTime());
+        task.setCompletedAt(task.getStatus() == Task.TaskStatus.COMPLETED ? randomTime() : null);
+        return task;
+    }
+
+    private void put(Task task) {
+        TaskRecord record = TaskRecord.of(task, strings);
+        columns.update(tasks.put(task.getId(), record), record);
+    }
+
+    private void delete(long id) {
+        TaskRecord removed = tasks.remove(id);
+        if (removed != null) {
+            columns.update(removed, null);
+        }
+    }
+
+    private void insert(int count) {
+        for (int i = 0; i < count; i++) {
+            put(randomTask(++nextId));
+        }
+    }
+
+    // Inserts, status changes and deletes in random order, so freed rows get reused
+    private void churn(int operations) {
+        for (int i = 0; i < operations; i++) {
+            long id = 1 + random.nextInt((int) nextId);
+            switch (random.nextInt(4)) {
+                case 0 -> put(randomTask(++nextId));
+                case 1 -> delete(id);
+                default -> {
+                    TaskRecord current = tasks.get(id);
+                    if (current != null) {
+                        Task task = randomTask(id);
+                        task.setCreatedAt(current.toTask().getCreatedAt());
+                        put(task);
+                    }
+                }
+            }
+        }
+    }
+
+    private long[] expectedWeekly(long from, int weeks) {
+        long[] counts = new long[3 * weeks];
+        long to = from + WEEK_MILLIS * weeks;
+        for (TaskRecord task : tasks.values()) {
+            boolean completed = task.getStatus() == Task.TaskStatus.COMPLETED;
+            long created = task.getCreatedAt();
+            if (created != TaskRecord.NONE && created >= from && created < to) {
+                int week = (int) ((created - from) / WEEK_MILLIS);
+                counts[3 * week]++;
+                if (completed) {
+                    counts[3 * week + 2]++;
+                }
+            }
+            long done = task.getCompletedAt();
+            if (completed && done != TaskRecord.NONE && done >= from && done < to) {
+                counts[3 * (int) ((done - from) / WEEK_MILLIS) + 1]++;
+            }
+        }
+        return counts;
+    }
+
+    private long[] expectedOverdue(long now) {
+        long[] counts = new long[Task.TaskPriority.values().length];
+        for (TaskRecord task : tasks.values()) {
+            long due = task.getDueDate();
+            if (due != TaskRecord.NONE && due < now && task.getStatus() != Task.TaskStatus.COMPLETED) {
+                counts[task.getPriority().ordinal()]++;
+            }
+        }
+        return counts;
+    }
+
+    private void assertReportsMatchTheRows() {
+        long from = TaskRecord.millis(BASE);
+        assertThat(columns.weekly(from, WEEKS)).containsExactly(expectedWeekly(from, WEEKS));
+        for (int week = 0; week <= WEEKS; week += 4) {
+            long now = TaskRecord.millis(BASE.plusWeeks(week));
+            assertThat(columns.overdueByPriority(now)).containsExactly(expectedOverdue(now));
+        }
+    }
+
+    @Test
+    void reportsMatchTheRowsAfterInserts() {
+        insert(2_000);
+
+        assertReportsMatchTheRows();
+        assertThat(columns.weekly(TaskRecord.millis(BASE), WEEKS)).isNotEqualTo(new long[3 * WEEKS]);
+    }
+
+    @Test
+    void reportsMatchTheRowsAfterUpdatesAndDeletes() {
+        insert(2_000);
+        churn(10_000);
+
+        assertReportsMatchTheRows();
+    }
+
+    @Test
+    void reportsMatchTheRowsWhenScannedInParallelChunks() {
+        // More rows than one chunk, so the scan is split across the fork-join pool
+        insert(150_000);
+        churn(20_000);
+
+        assertReportsMatchTheRows();
+    }
+
+    @Test
+    void deletedRowsAreNotCountedAndAreReused() {
+        insert(100);
+        List<Long> ids = new ArrayList<>(tasks.keySet());
+        ids.forEach(this::delete);
+
+        assertThat(columns.weekly(TaskRecord.millis(BASE), WEEKS)).containsOnly(0L);
+        assertThat(columns.overdueByPriority(TaskRecord.millis(BASE.plusYears(1)))).containsOnly(0L);
+
+        insert(100);
+        assertThat(tasks.values()).allMatch(task -> task.row < 100);
+        assertReportsMatchTheRows();
+    }
+
+    @Test
+    void clearEmptiesTheReports() {
+        insert(500);
+        columns.clear();
+        tasks.clear();
+
+        assertReportsMatchTheRows();
+        insert(10);
+        assertReportsMatchTheRows();
+    }
+}
@@ -0,0 +1,237 @@
+package com.tasktracker.storage;
+
+import com.google.gson.Gson;
+import com.tasktracker.model.Task;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskJournalTest {
+    private static final Gson GSON = TaskGson.builder().create();
+
+    @TempDir
+    Path dataDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<TaskJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        journals.forEach(TaskJournal::close);
+    }
+
+    private TaskJournal open(long commitIntervalMs) {
+        TaskJournal journal = new TaskJournal(dataDir, GSON, commitIntervalMs, meterRegistry);
+        journals.add(journal);
+        return journal;
+    }
+
+    private TaskJournal openFaulty(List<FaultyFileChannel> channels) {
+        TaskJournal journal = new TaskJournal(dataDir, GSON, TimeUnit.MINUTES.toMillis(1), meterRegistry, path -> {
+            FaultyFileChannel channel = new FaultyFileChannel(FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+            channels.add(channel);
+            return channel;
+        });
+        journals.add(journal);
+        return journal;
+    }
+
+    private List<JournalEntry> replay(TaskJournal journal) {
+        List<JournalEntry> entries = new ArrayList<>();
+        journal.replay(entries::add);
+        return entries;
+    }
+
+    private static Task task(long id, String title) {
+        Task task = new Task(title, null);
+        task.setId(id);
+        task.setVersion(1L);
+        return task;
+    }
+
+    private long fsyncs() {
+        return meterRegistry.timer("tasktracker.storage.journal.fsync").count();
+    }
+
+    @Test
+    void replaysEntriesOfEarlierRunsInOrder() {
+        TaskJournal journal = open(1000);
+        journal.append(JournalEntry.put(task(1, "first")));
+        journal.append(JournalEntry.putAll(List.of(task(2, "second"), task(3, "third"))));
+        journal.append(JournalEntry.delete(1L));
+        journal.close();
+
+        List<JournalEntry> entries = replay(open(1000));
+
+        assertThat(entries).extracting(JournalEntry::getOp).containsExactly(
+            JournalEntry.Op.PUT, JournalEntry.Op.PUT_ALL, JournalEntry.Op.DELETE);
+        assertThat(entries.get(0).getTask().getTitle()).isEqualTo("first");
+        assertThat(entries.get(1).getTasks()).extracting(Task::getId).containsExactly(2L, 3L);
+        assertThat(entries.get(2).getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void replayingTwiceYieldsTheSameEntries() {
+        TaskJournal journal = open(1000);
+        journal.append(JournalEntry.put(task(1, "first")));
+        journal.append(JournalEntry.truncate());
+        journal.append(JournalEntry.put(task(2, "second")));
+        journal.close();
+
+        TaskJournal reopened = open(1000);
+
+        assertThat(replay(reopened)).usingRecursiveFieldByFieldElementComparator()
+            .containsExactlyElementsOf(replay(reopened));
+    }
+
+    @Test
+    void oneFsyncCoversEveryEntryAppendedBeforeIt() {
+        // A long interval keeps the committer waiting until someone needs durability
+        TaskJournal journal = open(TimeUnit.MINUTES.toMillis(1));
+        long last = 0;
+        for (int i = 1; i <= 100; i++) {
+            last = journal.append(JournalEntry.put(task(i, "task " + i)));
+        }
+
+        journal.awaitDurable(last);
+
+        assertThat(fsyncs()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentWaitersAllBecomeDurable() {
+        TaskJournal journal = open(TimeUnit.MINUTES.toMillis(1));
+        int writers = 8;
+        int perWriter = 50;
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            long base = w * perWriter;
+            done.add(CompletableFuture.runAsync(() -> {
+                for (long i = 1; i <= perWriter; i++) {
+                    journal.awaitDurable(journal.append(JournalEntry.put(task(base + i, "task"))));
+                }
+            }));
+        }
+
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).join();
+
+        assertThat(fsyncs()).isBetween(1L, (long) writers * perWriter);
+        assertThat(journal.whenDurable((long) writers * perWriter)).isCompleted();
+    }
+
+    @Test
+    void whenDurableCompletesAfterTheCommit() throws Exception {
+        TaskJournal journal = open(TimeUnit.MINUTES.toMillis(1));
+        long seq = journal.append(JournalEntry.put(task(1, "first")));
+
+        journal.whenDurable(seq).get(10, TimeUnit.SECONDS);
+
+        assertThat(fsyncs()).isEqualTo(1);
+        assertThat(journal.whenDurable(seq)).isCompleted();
+    }
+
+    @Test
+    void rolloverSealsTheActiveSegment() {
+        TaskJournal journal = open(1000);
+        journal.append(JournalEntry.put(task(1, "before")));
+        long generation = journal.rollover();
+        journal.append(JournalEntry.put(task(2, "after")));
+
+        assertThat(journal.hasSealedSegments()).isTrue();
+        assertThat(journal.getSegmentBytes()).isPositive();
+        journal.close();
+
+        assertThat(replay(open(1000))).extracting(entry -> entry.getTask().getTitle())
+            .containsExactly("before", "after");
+        assertThat(generation).isEqualTo(2);
+    }
+
+    @Test
+    void segmentsBeforeACompactionAreNotReplayed() {
+        TaskJournal journal = open(1000);
+        journal.append(JournalEntry.put(task(1, "compacted")));
+        long generation = journal.rollover();
+        journal.append(JournalEntry.put(task(2, "pending")));
+        journal.deleteSegmentsBefore(generation);
+        journal.close();
+
+        assertThat(replay(open(1000))).extracting(entry -> entry.getTask().getTitle())
+            .containsExactly("pending");
+    }
+
+    @Test
+    void tornLastEntryIsSkipped() throws IOException {
+        TaskJournal journal = open(1000);
+        journal.append(JournalEntry.put(task(1, "complete")));
+        journal.close();
+        Files.writeString(dataDir.resolve("tasks-1.log"), "{\"op\":\"PUT\",\"task\":{\"id\":2,",
+            StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertThat(replay(open(1000))).extracting(entry -> entry.getTask().getTitle())
+            .containsExactly("complete");
+    }
+
+    @Test
+    void failedFsyncReleasesNoWaiterAsDurable() {
+        List<FaultyFileChannel> channels = new ArrayList<>();
+        TaskJournal journal = openFaulty(channels);
+        long durable = journal.append(JournalEntry.put(task(1, "durable")));
+        journal.awaitDurable(durable);
+
+        channels.get(0).failForce = true;
+        long lost = journal.append(JournalEntry.put(task(2, "lost")));
+        CompletableFuture<Void> pending = journal.whenDurable(lost);
+
+        assertThatThrownBy(() -> journal.awaitDurable(lost)).hasRootCauseMessage("Input/output error");
+        assertThatThrownBy(() -> pending.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThat(journal.whenDurable(lost)).isCompletedExceptionally();
+        assertThat(journal.whenDurable(durable)).isCompleted().isNotCompletedExceptionally();
+        assertThat(fsyncs()).isEqualTo(1);
+    }
+
+    @Test
+    void failedJournalRefusesFurtherWrites() {
+        List<FaultyFileChannel> channels = new ArrayList<>();
+        TaskJournal journal = openFaulty(channels);
+        channels.get(0).failForce = true;
+        long seq = journal.append(JournalEntry.put(task(1, "first")));
+        assertThatThrownBy(() -> journal.awaitDurable(seq)).isInstanceOf(RuntimeException.class);
+
+        channels.get(0).failForce = false;
+
+        assertThatThrownBy(() -> journal.append(JournalEntry.put(task(2, "second"))))
+            .hasRootCauseMessage("Input/output error");
+        assertThatThrownBy(journal::rollover).hasRootCauseMessage("Input/output error");
+    }
+
+    @Test
+    void failedWriteFencesTheJournal() {
+        List<FaultyFileChannel> channels = new ArrayList<>();
+        TaskJournal journal = openFaulty(channels);
+        journal.append(JournalEntry.put(task(1, "first")));
+        channels.get(0).failWrites = true;
+
+        assertThatThrownBy(() -> journal.append(JournalEntry.put(task(2, "second"))))
+            .hasRootCauseMessage("No space left on device");
+        channels.get(0).failWrites = false;
+        assertThatThrownBy(() -> journal.append(JournalEntry.put(task(3, "third"))))
+            .hasRootCauseMessage("No space left on device");
+    }
+}
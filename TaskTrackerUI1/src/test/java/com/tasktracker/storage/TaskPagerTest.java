@@ -0,0 +1,198 @@
+package com.tasktracker.storage;
+
+import com.tasktracker.model.Task;
+import com.tasktracker.model.TaskPage;
+import com.tasktracker.model.TaskQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskPagerTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 1, 9, 0);
+    private static final int TASKS = 95;
+    private static final int PAGE_SIZE = 10;
+
+    private final ConcurrentSkipListMap<Long, TaskRecord> tasks = new ConcurrentSkipListMap<>();
+    private final TaskIndex index = new TaskIndex();
+    private final StringPool strings = new StringPool(64);
+    private final TaskPager pager = new TaskPager(tasks, index);
+    private long nextId;
+
+    @BeforeEach
+    void fill() {
+        for (int i = 0; i < TASKS; i++) {
+            // Every third task shares its creation time with the one before, so ties are ordered by id
+            put(BASE.plusHours(i - i % 3 / 2), i);
+        }
+    }
+
+    private long put(LocalDateTime createdAt, int seed) {
+        Task task = new Task("Task " + seed, null);
+        task.setId(++nextId);
+        task.setVersion(1L);
+        task.setStatus(Task.TaskStatus.values()[seed % 3]);
+        task.setPriority(Task.TaskPriority.values()[seed / 3 % 3]);
+        task.setCreatedAt(createdAt);
+        task.setDueDate(seed % 4 == 0 ? null : BASE.plusDays(seed % 7));
+        TaskRecord record = TaskRecord.of(task, strings);
+        index.update(task.getId(), tasks.put(task.getId(), record), record);
+        return task.getId();
+    }
+
+    private void delete(long id) {
+        index.update(id, tasks.remove(id), null);
+    }
+
+    private static TaskQuery query(TaskQuery.Sort sort, Consumer<TaskQuery> filter) {
+        TaskQuery query = new TaskQuery();
+        query.setSort(sort);
+        query.setSize(PAGE_SIZE);
+        filter.accept(query);
+        return query;
+    }
+
+    private List<Long> ids(TaskPage page) {
+        return page.getTasks().stream().map(Task::getId).toList();
+    }
+
+    // Follows next cursors to the end, running the hook between pages
+    private List<Long> walk(TaskQuery query, Consumer<TaskPage> betweenPages) {
+        List<Long> seen = new ArrayList<>();
+        TaskPage page = pager.find(query);
+        seen.addAll(ids(page));
+        while (page.getNextCursor() != null) {
+            betweenPages.accept(page);
+            query.setCursor(page.getNextCursor());
+            page = pager.find(query);
+            seen.addAll(ids(page));
+        }
+        return seen;
+    }
+
+    private List<Long> offsetPages(TaskQuery query) {
+        List<Long> seen = new ArrayList<>();
+        for (int page = 1; ; page++) {
+            query.setPage(page);
+            List<Long> ids = ids(pager.find(query));
+            if (ids.isEmpty()) {
+                return seen;
+            }
+            seen.addAll(ids);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(TaskQuery.Sort.class)
+    void cursorsVisitTheSameTasksAsPageNumbers(TaskQuery.Sort sort) {
+        List<Long> expected = offsetPages(query(sort, q -> { }));
+
+        assertThat(walk(query(sort, q -> { }), page -> { })).containsExactlyElementsOf(expected).hasSize(TASKS);
+    }
+
+    @ParameterizedTest
+    @EnumSource(TaskQuery.Sort.class)
+    void cursorsRespectFilters(TaskQuery.Sort sort) {
+        Consumer<TaskQuery> filter = q -> {
+            q.setStatus(Task.TaskStatus.IN_PROGRESS);
+            q.setPriority(Task.TaskPriority.HIGH);
+        };
+        List<Long> expected = offsetPages(query(sort, filter));
+
+        assertThat(walk(query(sort, filter), page -> { })).containsExactlyElementsOf(expected).isNotEmpty()
+            .allMatch(id -> tasks.get(id).getStatus() == Task.TaskStatus.IN_PROGRESS
+                && tasks.get(id).getPriority() == Task.TaskPriority.HIGH);
+    }
+
+    @Test
+    void insertsAheadOfTheCursorDoNotShiftLaterPages() {
+        List<Long> before = offsetPages(query(TaskQuery.Sort.NEWEST, q -> { }));
+        List<Long> inserted = new ArrayList<>();
+
+        List<Long> seen = walk(query(TaskQuery.Sort.NEWEST, q -> { }),
+            page -> inserted.add(put(BASE.plusYears(1).plusMinutes(inserted.size()), 0)));
+
+        assertThat(seen).containsExactlyElementsOf(before).doesNotContainAnyElementsOf(inserted);
+    }
+
+    @Test
+    void insertsBehindTheCursorAppearOnLaterPages() {
+        List<Long> inserted = new ArrayList<>();
+
+        List<Long> seen = walk(query(TaskQuery.Sort.NEWEST, q -> { }), page -> {
+            if (inserted.isEmpty()) {
+                inserted.add(put(BASE.minusDays(1), 0));
+            }
+        });
+
+        assertThat(seen).doesNotHaveDuplicates().hasSize(TASKS + 1).endsWith(inserted.get(0));
+    }
+
+    @Test
+    void deletingTheCursorTaskKeepsThePosition() {
+        List<Long> before = offsetPages(query(TaskQuery.Sort.OLDEST, q -> { }));
+        List<Long> deleted = new ArrayList<>();
+
+        List<Long> seen = walk(query(TaskQuery.Sort.OLDEST, q -> { }), page -> {
+            long last = ids(page).get(page.getTasks().size() - 1);
+            delete(last);
+            deleted.add(last);
+        });
+
+        assertThat(seen).containsExactlyElementsOf(before);
+        assertThat(deleted).hasSize((TASKS - 1) / PAGE_SIZE);
+    }
+
+    @Test
+    void tasksDeletedFromLaterPagesAreSkippedWithoutRepeats() {
+        List<Long> before = offsetPages(query(TaskQuery.Sort.PRIORITY, q -> { }));
+        List<Long> deleted = new ArrayList<>();
+
+        List<Long> seen = walk(query(TaskQuery.Sort.PRIORITY, q -> { }), page -> {
+            int position = ids(page).isEmpty() ? 0 : before.indexOf(ids(page).get(ids(page).size() - 1));
+            if (position + 1 < before.size()) {
+                long next = before.get(position + 1);
+                delete(next);
+                deleted.add(next);
+            }
+        });
+
+        List<Long> expected = new ArrayList<>(before);
+        expected.removeAll(deleted);
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void statusChangeMovesATaskBetweenFilteredIndexesWithoutRepeats() {
+        List<Long> seen = walk(query(TaskQuery.Sort.NEWEST, q -> q.setStatus(Task.TaskStatus.PENDING)), page -> {
+            // Move the first task of the page just returned out of the filter and back in
+            long id = ids(page).get(0);
+            TaskRecord record = tasks.get(id);
+            Task task = record.toTask();
+            task.setStatus(Task.TaskStatus.COMPLETED);
+            TaskRecord completed = TaskRecord.of(task, strings);
+            index.update(id, tasks.put(id, completed), completed);
+            task.setStatus(Task.TaskStatus.PENDING);
+            TaskRecord pending = TaskRecord.of(task, strings);
+            index.update(id, tasks.put(id, pending), pending);
+        });
+
+        assertThat(seen).doesNotHaveDuplicates().hasSize((int) index.countByStatus(Task.TaskStatus.PENDING));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        TaskQuery query = query(TaskQuery.Sort.NEWEST, q -> q.setCursor("not a cursor"));
+
+        assertThatThrownBy(() -> pager.find(query)).isInstanceOf(IllegalArgumentException.class);
+    }
+}